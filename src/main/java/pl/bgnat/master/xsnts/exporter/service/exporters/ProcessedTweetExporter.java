@@ -4,7 +4,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
+import pl.bgnat.master.xsnts.normalization.dto.TokenStrategyLabel;
 import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
+import pl.bgnat.master.xsnts.normalization.service.processing.TokenVocabulary;
 import pl.bgnat.master.xsnts.scrapper.model.Tweet;
 import pl.bgnat.master.xsnts.normalization.repository.ProcessedTweetRepository;
 import pl.bgnat.master.xsnts.exporter.utils.CsvWriterUtil;
@@ -29,6 +31,7 @@ public class ProcessedTweetExporter implements Exporter {
     private static final int PAGE_SIZE = 1000;
 
     private final ProcessedTweetRepository processedRepo;
+    private final TokenVocabulary tokenVocabulary;
 
     @Override
     public String export(String userPath) throws IOException {
@@ -50,8 +53,8 @@ public class ProcessedTweetExporter implements Exporter {
                             t != null ? String.valueOf(t.getId()) : "",
                             t != null ? CsvWriterUtil.esc(t.getUsername()) : "",
                             CsvWriterUtil.esc(p.getNormalizedContent()),
-                            CsvWriterUtil.esc(p.getTokens()),
-                            CsvWriterUtil.esc(p.getTokensLemmatized()),
+                            CsvWriterUtil.esc(tokenVocabulary.tokensAsJson(p, TokenStrategyLabel.NORMAL)),
+                            CsvWriterUtil.esc(tokenVocabulary.tokensAsJson(p, TokenStrategyLabel.LEMMATIZED)),
                             String.valueOf(p.getTokenCount()),
                             t != null && t.getLikeCount() != null ? CsvWriterUtil.getNumber(t.getLikeCount()) : "0",
                             t != null && t.getRepostCount() != null ? CsvWriterUtil.getNumber(t.getRepostCount()) : "0",
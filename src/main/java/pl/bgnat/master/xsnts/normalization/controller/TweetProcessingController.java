@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import pl.bgnat.master.xsnts.normalization.dto.CleanupResult;
+import pl.bgnat.master.xsnts.normalization.dto.ProcessingRunStatusDTO;
 import pl.bgnat.master.xsnts.normalization.dto.ProcessingStatsDTO;
 import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
 import pl.bgnat.master.xsnts.normalization.service.TweetProcessingService;
@@ -45,6 +46,27 @@ public class TweetProcessingController {
         }
     }
 
+    /**
+     * Przetwarza ponownie tweety, których treść zmieniła się po przetworzeniu
+     * Aktualizuje istniejące rekordy i unieważnia ich wyniki sentymentu
+     *
+     * @return ResponseEntity z podsumowaniem przebiegu
+     */
+    @PostMapping("/reprocess-changed")
+    public ResponseEntity<String> reprocessChangedTweets() {
+        log.info("Otrzymano żądanie ponownego przetworzenia zmienionych tweetów");
+
+        try {
+            String reprocessedResult = processingService.reprocessChangedTweets();
+            return ResponseEntity.ok(reprocessedResult);
+
+        } catch (Exception e) {
+            log.error("Błąd podczas ponownego przetwarzania tweetów: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                    .body("Błąd podczas ponownego przetwarzania: " + e.getMessage());
+        }
+    }
+
     /**
      * Zwraca statystyki przetwarzania
      * Pokazuje liczbę przetworzonych tweetów, postęp i średnie wartości
@@ -65,6 +87,27 @@ public class TweetProcessingController {
         }
     }
 
+    /**
+     * Zwraca postęp ostatniego przebiegu przetwarzania (checkpoint, liczniki, status)
+     * Można odpytywać w trakcie trwania /process-all
+     *
+     * @return ResponseEntity z ProcessingRunStatusDTO lub 404 gdy nie było jeszcze przebiegu
+     */
+    @GetMapping("/status")
+    public ResponseEntity<ProcessingRunStatusDTO> getRunStatus() {
+        log.debug("Pobieranie statusu przebiegu przetwarzania");
+
+        try {
+            return processingService.getRunStatus()
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+
+        } catch (Exception e) {
+            log.error("Błąd podczas pobierania statusu przebiegu: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body(null);
+        }
+    }
+
     /**
      * Zwraca liczbę pustych rekordów w tabeli processed_tweet
      * Puste rekordy to te, które mają puste pola normalized_content lub tokens
@@ -0,0 +1,22 @@
+package pl.bgnat.master.xsnts.normalization.dto;
+
+import com.github.pemistahl.lingua.api.Language;
+
+/**
+ * Wynik detekcji języka
+ * @param language wykryty język (UNKNOWN, gdy heurystyka odrzuciła tekst bez wskazania języka)
+ * @param confidence pewność Lingua dla wykrytego języka, null dla heurystyk
+ * @param method sposób, w jaki podjęto decyzję
+ */
+public record LanguageDetection(Language language, Double confidence, LanguageDetectionMethodLabel method) {
+
+    public static final LanguageDetection FAILED = new LanguageDetection(Language.UNKNOWN, null, LanguageDetectionMethodLabel.ERROR);
+
+    public static LanguageDetection heuristic(boolean polish, LanguageDetectionMethodLabel method) {
+        return new LanguageDetection(polish ? Language.POLISH : Language.UNKNOWN, null, method);
+    }
+
+    public boolean isPolish() {
+        return language == Language.POLISH;
+    }
+}
@@ -0,0 +1,8 @@
+package pl.bgnat.master.xsnts.normalization.dto;
+
+public enum LanguageDetectionMethodLabel {
+    SHORT_TEXT, // heurystyka dla tekstów < 10 znaków
+    FAST_PATH,  // LanguagePreClassifier - oczywiste przypadki bez Lingua
+    LINGUA,     // pełna detekcja Lingua
+    ERROR       // błąd detekcji - wynik nie jest zapamiętywany
+}
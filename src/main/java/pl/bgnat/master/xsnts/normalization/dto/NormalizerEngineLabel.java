@@ -0,0 +1,7 @@
+package pl.bgnat.master.xsnts.normalization.dto;
+
+public enum NormalizerEngineLabel {
+    // wybór silnika normalizacji - oba zwracają identyczny wynik
+    REGEX, // TextNormalizer - osiem kolejnych przebiegów regex (wzorzec referencyjny)
+    FUSED  // FusedTextNormalizer - skan znak po znaku do bufora wielokrotnego użytku
+}
@@ -0,0 +1,26 @@
+package pl.bgnat.master.xsnts.normalization.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO z postępem ostatniego przebiegu przetwarzania tweetów
+ */
+@Data
+@Builder
+public class ProcessingRunStatusDTO {
+    private Long runId;
+    private ProcessingRunStatusLabel status;
+    private Long lastTweetId;
+    private Long processedCount;
+    private Long skippedCount;
+    private Long totalToProcess;
+    private Double progress; // % zapisanych + odrzuconych względem liczby do przetworzenia na starcie
+    private Integer resumeCount;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+    private String errorMessage;
+}
@@ -0,0 +1,8 @@
+package pl.bgnat.master.xsnts.normalization.dto;
+
+public enum ProcessingRunStatusLabel {
+    RUNNING,     // przebieg w toku
+    COMPLETED,   // źródło wyczerpane, wszystkie paczki zatwierdzone
+    FAILED,      // przerwany błędem - następne uruchomienie wznowi od checkpointu
+    INTERRUPTED  // aplikacja zatrzymana w trakcie przebiegu - następne uruchomienie wznowi od checkpointu
+}
@@ -0,0 +1,52 @@
+package pl.bgnat.master.xsnts.normalization.model;
+
+import com.github.pemistahl.lingua.api.Language;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.bgnat.master.xsnts.normalization.dto.LanguageDetectionMethodLabel;
+
+import java.time.LocalDateTime;
+
+/**
+ * Encja przechowująca wynik analizy treści (język, pewność, znormalizowany tekst) pod skrótem SHA-256 treści.
+ * Identyczne treści (retweety, kopiowane wpisy) i ponowne przetwarzanie korzystają z zapisanego wyniku.
+ */
+@Builder(toBuilder = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "ContentAnalysis")
+@Table(name = "content_analysis_cache")
+public class ContentAnalysis {
+
+    @Id
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "language", length = 32, nullable = false)
+    private Language language;
+
+    @Column(name = "confidence")
+    private Double confidence;          // null dla heurystyk
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "detection_method", length = 16, nullable = false)
+    private LanguageDetectionMethodLabel detectionMethod;
+
+    @Column(name = "normalized_content", length = 4000)
+    private String normalizedContent;   // tylko dla tekstów polskich
+
+    @Column(name = "normalizer_version")
+    private Integer normalizerVersion;
+
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+
+    public boolean isPolish() {
+        return language == Language.POLISH;
+    }
+}
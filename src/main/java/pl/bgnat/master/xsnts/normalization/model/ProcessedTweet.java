@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import pl.bgnat.master.xsnts.scrapper.model.Tweet;
 
 import java.time.LocalDateTime;
@@ -17,7 +18,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity(name = "ProcessedTweet")
-@Table(name = "processed_tweet")
+@Table(name = "processed_tweet",
+        indexes = @Index(name = "idx_processed_tweet_tweet_id", columnList = "tweet_id"))
 public class ProcessedTweet {
 
     @Id
@@ -33,6 +35,9 @@ public class ProcessedTweet {
     @JoinColumn(name = "tweet_id", referencedColumnName = "id")
     private Tweet originalTweet;
 
+    @Column(name = "source_content_hash", length = 64)
+    private String sourceContentHash;   // hash treści tweeta w chwili przetwarzania, zob. Tweet.contentHash
+
     @Column(name = "normalized_content", length = 4000)
     private String normalizedContent;
 
@@ -42,6 +47,14 @@ public class ProcessedTweet {
     @Column(name = "tokens_lemmatized", columnDefinition = "TEXT")
     private String tokensLemmatized;
 
+    @ToString.Exclude
+    @Column(name = "token_ids", columnDefinition = "bytea")
+    private byte[] tokenIds;            // tokens jako identyfikatory token_vocabulary (varint), zob. TokenVocabulary
+
+    @ToString.Exclude
+    @Column(name = "lemma_ids", columnDefinition = "bytea")
+    private byte[] lemmaIds;            // tokensLemmatized jako identyfikatory token_vocabulary (varint)
+
     @Column(name = "processed_date")
     private LocalDateTime processedDate;
 
@@ -0,0 +1,67 @@
+package pl.bgnat.master.xsnts.normalization.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.bgnat.master.xsnts.normalization.dto.ProcessingRunStatusLabel;
+
+import java.time.LocalDateTime;
+
+/**
+ * Encja przechowująca stan przebiegu przetwarzania tweetów wraz z checkpointem.
+ * lastTweetId to próg (watermark): każdy tweet o id <= lastTweetId jest zapisany albo odrzucony.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "ProcessingRun")
+@Table(name = "processing_run")
+public class ProcessingRun {
+
+    @Id
+    @SequenceGenerator(
+            name = "processing_run_id_generator",
+            sequenceName = "processing_run_id_generator",
+            allocationSize = 1)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "processing_run_id_generator")
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ProcessingRunStatusLabel status;
+
+    @Builder.Default
+    @Column(name = "last_tweet_id", nullable = false)
+    private Long lastTweetId = 0L;
+
+    @Builder.Default
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+
+    @Builder.Default
+    @Column(name = "skipped_count", nullable = false)
+    private Long skippedCount = 0L;
+
+    @Column(name = "total_to_process")
+    private Long totalToProcess;
+
+    @Builder.Default
+    @Column(name = "resume_count", nullable = false)
+    private Integer resumeCount = 0;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "error_message", length = 2000)
+    private String errorMessage;
+}
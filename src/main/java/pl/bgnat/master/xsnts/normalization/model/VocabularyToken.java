@@ -0,0 +1,27 @@
+package pl.bgnat.master.xsnts.normalization.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Encja słownika tokenów - wspólne identyfikatory dla kolumn token_ids / lemma_ids w processed_tweet.
+ * Identyfikatory nadaje TokenVocabulary (kolejne liczby od 1) i to on pilnuje unikalności tokenów, stąd brak generatora.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "VocabularyToken")
+@Table(name = "token_vocabulary")
+public class VocabularyToken {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private Integer id;
+
+    @Column(name = "token", nullable = false, columnDefinition = "TEXT")
+    private String token;
+}
@@ -0,0 +1,22 @@
+package pl.bgnat.master.xsnts.normalization.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pl.bgnat.master.xsnts.normalization.model.ContentAnalysis;
+
+@Repository
+public interface ContentAnalysisRepository extends JpaRepository<ContentAnalysis, String> {
+
+    /**
+     * Upsert wsadowy (Postgres) - ta sama treść mogła zostać przeanalizowana równolegle w innym wątku
+     */
+    String QUERY_UPSERT =
+            """
+                INSERT INTO content_analysis_cache
+                       (content_hash, language, confidence, detection_method, normalized_content, normalizer_version, created_date)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                ON CONFLICT (content_hash) DO UPDATE
+                SET    normalized_content = EXCLUDED.normalized_content,
+                       normalizer_version = EXCLUDED.normalizer_version
+            """;
+}
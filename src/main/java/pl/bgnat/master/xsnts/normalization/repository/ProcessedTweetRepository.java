@@ -1,29 +1,31 @@
 package pl.bgnat.master.xsnts.normalization.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import pl.bgnat.master.xsnts.normalization.dto.TokenStrategyLabel;
 import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
 import pl.bgnat.master.xsnts.sentiment.dto.SentimentStrategyLabel;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusFingerprint;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusTweet;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProcessedTweetRepository extends JpaRepository<ProcessedTweet, Long> {
 
-    String QUERY_FIND_ALL_PROCESSED_TWEET_IDS =
-            """
-                SELECT pt.originalTweet.id FROM ProcessedTweet pt
-            """;
     String QUERY_CALCULATE_AVG_TOKEN_COUNT =
             """
                 SELECT AVG(pt.tokenCount) FROM ProcessedTweet pt
@@ -33,19 +35,19 @@ public interface ProcessedTweetRepository extends JpaRepository<ProcessedTweet,
             """ 
                 SELECT pt FROM ProcessedTweet pt WHERE
                 (pt.normalizedContent IS NULL OR pt.normalizedContent = '') OR
-                (pt.tokens IS NULL OR pt.tokens = '')
+                ((pt.tokens IS NULL OR pt.tokens = '') AND pt.tokenIds IS NULL)
             """;
     String QUERY_COUNT_EMPTY_RECORDS =
             """
                SELECT COUNT(pt) FROM ProcessedTweet pt WHERE
                (pt.normalizedContent IS NULL OR pt.normalizedContent = '') OR
-               (pt.tokens IS NULL OR pt.tokens = '')
+               ((pt.tokens IS NULL OR pt.tokens = '') AND pt.tokenIds IS NULL)
             """;
     String QUERY_DELETE_EMPTY_RECORDS =
             """
                 DELETE FROM ProcessedTweet pt WHERE
                 (pt.normalizedContent IS NULL OR pt.normalizedContent = '') OR
-                (pt.tokens IS NULL OR pt.tokens = '')
+                ((pt.tokens IS NULL OR pt.tokens = '') AND pt.tokenIds IS NULL)
             """;
     String QUERY_FIND_BY_ORG_TWEET_ID_IN_LIST =
             """
@@ -56,25 +58,52 @@ public interface ProcessedTweetRepository extends JpaRepository<ProcessedTweet,
             """
                 DELETE FROM ProcessedTweet pt WHERE pt.id IN :ids
             """;
-    String QUERY_FIND_BY_DATE_RANGE =
+    String QUERY_FIND_CHANGED_AFTER_ID =
             """
                 SELECT pt FROM ProcessedTweet pt
-                WHERE pt.originalTweet.postDate BETWEEN :start AND :end
+                JOIN FETCH pt.originalTweet t
+                WHERE pt.id > :lastId
+                AND t.contentHash IS NOT NULL
+                AND (pt.sourceContentHash IS NULL OR pt.sourceContentHash <> t.contentHash)
+                ORDER BY pt.id
             """;
-
-    String QUERY_FIND_BY_DATE_AFTER =
+    String QUERY_COUNT_CHANGED =
+            """
+                SELECT COUNT(pt) FROM ProcessedTweet pt
+                JOIN pt.originalTweet t
+                WHERE t.contentHash IS NOT NULL
+                AND (pt.sourceContentHash IS NULL OR pt.sourceContentHash <> t.contentHash)
+            """;
+    String CORPUS_FETCH_SIZE = "1000";
+    String CORPUS_PROJECTION =
             """
-                SELECT pt
+                SELECT new pl.bgnat.master.xsnts.topicmodeling.dto.CorpusTweet(
+                       pt.id, t.id, t.username, t.postDate, pt.tokenIds, pt.lemmaIds,
+                       CASE WHEN pt.tokenIds IS NULL THEN pt.tokens ELSE NULL END,
+                       CASE WHEN pt.lemmaIds IS NULL THEN pt.tokensLemmatized ELSE NULL END)
                 FROM   ProcessedTweet pt
-                WHERE  pt.originalTweet.postDate >= :start
+                JOIN   pt.originalTweet t
             """;
-
-    String QUERY_FIND_BY_DATE_BEFORE =
-             """
-                SELECT pt
+    String QUERY_STREAM_CORPUS = CORPUS_PROJECTION +
+            """
+                WHERE  t.postDate BETWEEN :start AND :end
+            """;
+    String QUERY_FIND_CORPUS_BY_TWEET_IDS = CORPUS_PROJECTION +
+            """
+                WHERE  t.id IN :ids
+            """;
+    String QUERY_FIND_CORPUS_BY_PROCESSED_TWEET_IDS = CORPUS_PROJECTION +
+            """
+                WHERE  pt.id IN :ids
+            """;
+    String QUERY_CORPUS_FINGERPRINT =
+            """
+                SELECT new pl.bgnat.master.xsnts.topicmodeling.dto.CorpusFingerprint(
+                       COUNT(pt), MAX(pt.id), MAX(pt.processedDate))
                 FROM   ProcessedTweet pt
-                WHERE  pt.originalTweet.postDate <= :end
-             """;
+                JOIN   pt.originalTweet t
+                WHERE  t.postDate BETWEEN :start AND :end
+            """;
 
     String QUERY_SELECT_WITHOUT_SENTIMENT =
             """
@@ -101,17 +130,22 @@ public interface ProcessedTweetRepository extends JpaRepository<ProcessedTweet,
                 )
             """;
 
-    @Query(QUERY_FIND_BY_DATE_AFTER)
-    List<ProcessedTweet> findByOriginalTweet_PostDateAfter(@Param("start") LocalDateTime start);
+    /**
+     * Strumień projekcji tweetów z zakresu dat do budowy korpusu topic modelingu (wymaga aktywnej transakcji;
+     * wiersze pobierane z bazy porcjami wg fetch size, bez ładowania encji)
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = CORPUS_FETCH_SIZE))
+    @Query(QUERY_STREAM_CORPUS)
+    Stream<CorpusTweet> streamCorpus(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
-    @Query(QUERY_FIND_BY_DATE_BEFORE)
-    List<ProcessedTweet> findByOriginalTweet_PostDateBefore(@Param("end") LocalDateTime end);
+    @Query(QUERY_FIND_CORPUS_BY_TWEET_IDS)
+    List<CorpusTweet> findCorpusByTweetIds(@Param("ids") Collection<Long> tweetIds);
 
-    @Query(QUERY_FIND_BY_DATE_RANGE)
-    List<ProcessedTweet> findAllInDateRange(@Param("start") LocalDateTime start, @Param("end")   LocalDateTime end);
+    @Query(QUERY_FIND_CORPUS_BY_PROCESSED_TWEET_IDS)
+    List<CorpusTweet> findCorpusByProcessedTweetIds(@Param("ids") Collection<Long> processedTweetIds);
 
-    @Query(QUERY_FIND_ALL_PROCESSED_TWEET_IDS)
-    Set<Long> findAllProcessedTweetIds();
+    @Query(QUERY_CORPUS_FINGERPRINT)
+    CorpusFingerprint corpusFingerprint(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
     @Query(QUERY_CALCULATE_AVG_TOKEN_COUNT)
     Long getAverageTokenCount();
@@ -127,6 +161,19 @@ public interface ProcessedTweetRepository extends JpaRepository<ProcessedTweet,
     @Query(QUERY_DELETE_EMPTY_RECORDS)
     int deleteEmptyRecords();
 
+    @Modifying
+    @Query(QUERY_DELETE_BY_IDS)
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Przetworzone tweety, których treść źródłowa zmieniła się od przetworzenia (paginacja keyset po id)
+     */
+    @Query(QUERY_FIND_CHANGED_AFTER_ID)
+    List<ProcessedTweet> findChangedAfterId(@Param("lastId") long lastId, Pageable pageable);
+
+    @Query(QUERY_COUNT_CHANGED)
+    long countChanged();
+
     @Query(QUERY_FIND_BY_ORG_TWEET_ID_IN_LIST)
     List<ProcessedTweet> findAllByOriginalTweetIdIn(@Param("tweetIds") Set<Long> tweetIds);
 
@@ -0,0 +1,34 @@
+package pl.bgnat.master.xsnts.normalization.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pl.bgnat.master.xsnts.normalization.dto.ProcessingRunStatusLabel;
+import pl.bgnat.master.xsnts.normalization.model.ProcessingRun;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ProcessingRunRepository extends JpaRepository<ProcessingRun, Long> {
+
+    String QUERY_UPDATE_STATUS =
+            """
+                UPDATE ProcessingRun pr
+                SET    pr.status    = :newStatus,
+                       pr.updatedAt = :now
+                WHERE  pr.status    = :oldStatus
+            """;
+
+    Optional<ProcessingRun> findTopByOrderByStartedAtDesc();
+
+    Optional<ProcessingRun> findTopByStatusNotOrderByStartedAtDesc(ProcessingRunStatusLabel status);
+
+    @Modifying
+    @Query(QUERY_UPDATE_STATUS)
+    int updateStatus(@Param("oldStatus") ProcessingRunStatusLabel oldStatus,
+                     @Param("newStatus") ProcessingRunStatusLabel newStatus,
+                     @Param("now") LocalDateTime now);
+}
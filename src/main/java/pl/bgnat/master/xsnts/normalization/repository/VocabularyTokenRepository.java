@@ -0,0 +1,16 @@
+package pl.bgnat.master.xsnts.normalization.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pl.bgnat.master.xsnts.normalization.model.VocabularyToken;
+
+@Repository
+public interface VocabularyTokenRepository extends JpaRepository<VocabularyToken, Integer> {
+
+    String QUERY_INSERT_IGNORE =
+            """
+                INSERT INTO token_vocabulary (id, token)
+                VALUES (?, ?)
+                ON CONFLICT DO NOTHING
+            """;
+}
@@ -6,17 +6,48 @@ import com.github.pemistahl.lingua.api.LanguageDetectorBuilder;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import pl.bgnat.master.xsnts.normalization.dto.LanguageDetection;
+import pl.bgnat.master.xsnts.normalization.utils.LanguagePreClassifier;
+import pl.bgnat.master.xsnts.normalization.utils.LanguagePreClassifier.Verdict;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 
 import static org.springframework.util.StringUtils.*;
+import static pl.bgnat.master.xsnts.normalization.dto.LanguageDetectionMethodLabel.*;
 
 
 @Slf4j
 @Service
 public class LanguageDetectionService {
 
+    private static final Pattern POLISH_DIACRITICS_PATTERN = Pattern.compile("[ąćęłńóśźż]");
+    private static final Pattern POLISH_SHORT_WORDS_PATTERN =
+            Pattern.compile("że|się|nie|już|też|oraz|przez|czyli|więc|jak|czy|gdzie|kiedy");
+
     private LanguageDetector detector;
 
+    @Value("${app.processing.language-fast-path:true}")
+    private boolean fastPathEnabled;
+
+    // co który rozstrzygnięty szybką ścieżką tekst sprawdzamy dodatkowo w Lingua (0 = bez kontroli)
+    @Value("${app.processing.language-fast-path-audit-every:100}")
+    private int auditEvery;
+
+    private final AtomicLong fastDecisions = new AtomicLong();
+    private final LongAdder shortTexts = new LongAdder();
+    private final LongAdder fastPolish = new LongAdder();
+    private final LongAdder fastNotPolish = new LongAdder();
+    private final LongAdder linguaCalls = new LongAdder();
+    private final LongAdder audited = new LongAdder();
+    private final LongAdder auditAgreed = new LongAdder();
+
     @PostConstruct
     public void initialize() {
         log.info("Inicjalizacja Language Detector dla wykrywania języka polskiego");
@@ -44,32 +75,111 @@ public class LanguageDetectionService {
     }
 
     public boolean isPolish(String text) {
+        return detect(text).isPolish();
+    }
+
+    /**
+     * Wykrywa język tekstu: heurystyka dla krótkich tekstów, szybka ścieżka, a dla niejednoznacznych - Lingua
+     * @param text treść tweeta
+     * @return wynik detekcji z pewnością i sposobem rozstrzygnięcia
+     */
+    public LanguageDetection detect(String text) {
         if (!hasLength(text)) {
-            return false;
+            return LanguageDetection.FAILED;
         }
 
         try {
             log.debug("Zaczynam detekcje jezyka dla: {}", text);
             if (text.trim().length() < 10) {
-                return detectShortText(text);
+                shortTexts.increment();
+                return LanguageDetection.heuristic(detectShortText(text), SHORT_TEXT);
             }
 
-            var detectedLanguage = detector.detectLanguageOf(text);
-            log.debug("Language detected: " + detectedLanguage);
-            return detectedLanguage == Language.POLISH;
+            if (fastPathEnabled) {
+                Verdict verdict = LanguagePreClassifier.classify(text);
+                if (verdict != Verdict.UNKNOWN) {
+                    return LanguageDetection.heuristic(fastPathResult(text, verdict == Verdict.POLISH), FAST_PATH);
+                }
+            }
+
+            return detectWithLingua(text);
         } catch (Exception e) {
             log.warn("Błąd podczas wykrywania języka dla tekstu: {}", e.getMessage());
-            return false;
+            return LanguageDetection.FAILED;
         }
     }
 
+    /**
+     * Zwraca statystyki szybkiej ścieżki: liczbę tekstów rozstrzygniętych bez Lingua
+     * oraz zgodność z Lingua na próbce kontrolnej
+     */
+    public FastPathStats getFastPathStats() {
+        return new FastPathStats(shortTexts.sum(), fastPolish.sum(), fastNotPolish.sum(),
+                linguaCalls.sum(), audited.sum(), auditAgreed.sum());
+    }
+
+    private boolean fastPathResult(String text, boolean polish) {
+        (polish ? fastPolish : fastNotPolish).increment();
+
+        if (auditEvery > 0 && fastDecisions.getAndIncrement() % auditEvery == 0) {
+            audited.increment();
+            if (detectWithLingua(text).isPolish() == polish) {
+                auditAgreed.increment();
+            } else {
+                log.debug("Szybka ścieżka niezgodna z Lingua ({}): {}", polish ? "PL" : "nie PL", text);
+            }
+        }
+        return polish;
+    }
+
+    /**
+     * Odpowiednik detectLanguageOf, który zwraca także pewność - mapa jest posortowana malejąco wg pewności,
+     * a remis dwóch najlepszych języków daje UNKNOWN
+     */
+    private LanguageDetection detectWithLingua(String text) {
+        linguaCalls.increment();
+        SortedMap<Language, Double> confidences = detector.computeLanguageConfidenceValues(text);
+        if (confidences.isEmpty()) {
+            return new LanguageDetection(Language.UNKNOWN, 0.0, LINGUA);
+        }
+
+        Iterator<Map.Entry<Language, Double>> iterator = confidences.entrySet().iterator();
+        Map.Entry<Language, Double> best = iterator.next();
+        Language detectedLanguage = iterator.hasNext() && iterator.next().getValue().equals(best.getValue())
+                ? Language.UNKNOWN
+                : best.getKey();
+
+        log.debug("Language detected: " + detectedLanguage);
+        return new LanguageDetection(detectedLanguage, best.getValue(), LINGUA);
+    }
+
     private boolean detectShortText(String text) {
         text = text.toLowerCase();
 
-        if (text.matches(".*[ąćęłńóśźż].*")) {
+        if (POLISH_DIACRITICS_PATTERN.matcher(text).find()) {
             return true;
         }
 
-        return text.matches(".*(że|się|nie|już|też|oraz|przez|czyli|więc|jak|czy|gdzie|kiedy).*");
+        return POLISH_SHORT_WORDS_PATTERN.matcher(text).find();
+    }
+
+    public record FastPathStats(long shortTexts, long fastPolish, long fastNotPolish,
+                                long linguaCalls, long audited, long auditAgreed) {
+
+        public long shortCircuited() {
+            return fastPolish + fastNotPolish;
+        }
+
+        public double auditAgreement() {
+            return audited == 0 ? 1.0 : (double) auditAgreed / audited;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("krótkie=%d, szybka ścieżka=%d (PL=%d, nie PL=%d), Lingua=%d, " +
+                            "zgodność z Lingua na próbce %.1f%% (%d/%d)",
+                    shortTexts, shortCircuited(), fastPolish, fastNotPolish, linguaCalls,
+                    auditAgreement() * 100, auditAgreed, audited);
+        }
     }
 }
@@ -0,0 +1,91 @@
+package pl.bgnat.master.xsnts.normalization.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Jednorazowe uzupełnienie hashy treści dla danych sprzed ich wprowadzenia.
+ * <p>
+ * Tweety bez content_hash dostają SHA-256 treści policzony w bazie (ten sam hex co {@code ContentHasher}),
+ * a przetworzone tweety bez source_content_hash - hash tweeta, o ile tweet nie był aktualizowany po przetworzeniu.
+ * Bez tego każdy odświeżony tweet sprzed wprowadzenia hashy trafiałby do /reprocess-changed mimo niezmienionej treści.
+ * Wiersze, których tweet zmienił się po przetworzeniu, zostają z NULL i są przetwarzane ponownie.
+ * Każda paczka jest zatwierdzana we własnej transakcji (połączenia mają wyłączony auto-commit). Liczba paczek jest
+ * ograniczona liczbą wierszy do uzupełnienia policzoną na starcie, więc niezatwierdzona paczka nie zapętla migracji.
+ * Na uzupełnionej bazie zapytania nie zmieniają żadnego wiersza.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NormalizationSchemaMigration {
+
+    private static final String QUERY_COUNT_MISSING_TWEET_HASH =
+            """
+                SELECT COUNT(*) FROM tweet WHERE content_hash IS NULL AND content IS NOT NULL
+            """;
+    private static final String QUERY_BACKFILL_TWEET_HASH =
+            """
+                UPDATE tweet
+                SET    content_hash = encode(sha256(convert_to(content, 'UTF8')), 'hex')
+                WHERE  id IN (SELECT id FROM tweet
+                              WHERE  content_hash IS NULL AND content IS NOT NULL
+                              LIMIT  ?)
+            """;
+    private static final String QUERY_COUNT_MISSING_SOURCE_HASH =
+            """
+                SELECT COUNT(*) FROM processed_tweet p
+                JOIN   tweet tw ON tw.id = p.tweet_id
+                WHERE  p.source_content_hash IS NULL
+                AND    tw.content_hash IS NOT NULL
+                AND    tw.update_date <= p.processed_date
+            """;
+    private static final String QUERY_BACKFILL_SOURCE_HASH =
+            """
+                UPDATE processed_tweet pt
+                SET    source_content_hash = t.content_hash
+                FROM   tweet t
+                WHERE  t.id = pt.tweet_id
+                AND    pt.id IN (SELECT p.id FROM processed_tweet p
+                                 JOIN   tweet tw ON tw.id = p.tweet_id
+                                 WHERE  p.source_content_hash IS NULL
+                                 AND    tw.content_hash IS NOT NULL
+                                 AND    tw.update_date <= p.processed_date
+                                 LIMIT  ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.processing.batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        backfill("tweet.content_hash", QUERY_COUNT_MISSING_TWEET_HASH, QUERY_BACKFILL_TWEET_HASH);
+        backfill("processed_tweet.source_content_hash", QUERY_COUNT_MISSING_SOURCE_HASH, QUERY_BACKFILL_SOURCE_HASH);
+    }
+
+    private void backfill(String column, String countQuery, String updateQuery) {
+        try {
+            Long missing = jdbcTemplate.queryForObject(countQuery, Long.class);
+            if (missing == null || missing == 0) return;
+
+            long maxBatches = (missing + batchSize - 1) / batchSize;
+            long updated = 0;
+            for (long batch = 0; batch < maxBatches; batch++) {
+                Integer rows = transactionTemplate.execute(status -> jdbcTemplate.update(updateQuery, batchSize));
+                if (rows == null || rows == 0) break;
+                updated += rows;
+            }
+            log.info("Uzupełniono {} dla {} z {} wierszy", column, updated, missing);
+        } catch (Exception e) {
+            log.warn("Nie udało się uzupełnić {}: {}", column, e.getMessage());
+        }
+    }
+}
@@ -3,25 +3,30 @@ package pl.bgnat.master.xsnts.normalization.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
+import pl.bgnat.master.xsnts.normalization.model.ProcessingRun;
 import pl.bgnat.master.xsnts.normalization.service.cleaning.EmptyRecordsCleaner;
 import pl.bgnat.master.xsnts.scrapper.model.Tweet;
-import pl.bgnat.master.xsnts.normalization.repository.ProcessedTweetRepository;
 import pl.bgnat.master.xsnts.scrapper.repository.TweetRepository;
 import pl.bgnat.master.xsnts.normalization.dto.CleanupResult;
+import pl.bgnat.master.xsnts.normalization.dto.ProcessingRunStatusDTO;
 import pl.bgnat.master.xsnts.normalization.dto.ProcessingStatsDTO;
+import pl.bgnat.master.xsnts.normalization.service.processing.ChangedTweetReprocessor;
+import pl.bgnat.master.xsnts.normalization.service.processing.ContentAnalysisCache;
+import pl.bgnat.master.xsnts.normalization.service.processing.LemmaCache;
+import pl.bgnat.master.xsnts.normalization.service.processing.ProcessingCheckpointService;
 import pl.bgnat.master.xsnts.normalization.service.processing.ProcessingStatsCalculator;
-import pl.bgnat.master.xsnts.normalization.service.processing.PolishTweetProcessor;
+import pl.bgnat.master.xsnts.normalization.service.pipeline.PipelineMetrics;
+import pl.bgnat.master.xsnts.normalization.service.pipeline.TweetProcessingPipeline;
+import pl.bgnat.master.xsnts.normalization.service.pipeline.UnprocessedTweetSource;
+
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+
+import static pl.bgnat.master.xsnts.normalization.service.pipeline.PipelineMetrics.Stage.WRITE;
 
 /**
  * Serwis odpowiedzialny za przetwarzanie tweetów
@@ -36,38 +41,113 @@ public class TweetProcessingService {
     public static final Predicate<ProcessedTweet> PROCESSED_TWEET_PREDICATE = processedTweet -> processedTweet.getTokenCount() > MIN_TOKEN_COUNT;
 
     private final TweetRepository tweetRepository;
-    private final ProcessedTweetRepository processedTweetRepository;
 
-    private final PolishTweetProcessor tweetProcessor;
+    private final TweetProcessingPipeline processingPipeline;
+    private final ProcessingCheckpointService checkpointService;
+    private final LemmaCache lemmaCache;
+    private final LanguageDetectionService languageDetectionService;
+    private final ContentAnalysisCache contentAnalysisCache;
     private final ProcessingStatsCalculator statsCalculator;
+    private final ChangedTweetReprocessor changedTweetReprocessor;
 
     private final EmptyRecordsCleaner emptyRecordsCleaner;
 
     @Value("${app.processing.batch-size:500}")
     private int batchSize;
 
-    @Value("${app.processing.progress-interval:1000}")
-    private int progressInterval;
+    private final AtomicBoolean running = new AtomicBoolean(false);
 
-    @Transactional
+    /**
+     * Przetwarza wszystkie nieprzetworzone tweety. Paczki zatwierdzane są osobno razem z checkpointem,
+     * więc przerwany przebieg jest wznawiany od ostatniej zatwierdzonej paczki.
+     *
+     * @return podsumowanie przebiegu
+     */
     public String processAllTweets() {
-        log.info("Rozpoczynam zoptymalizowane przetwarzanie wszystkich tweetów");
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Przetwarzanie tweetów jest już w toku");
+        }
 
-        long startTime = System.currentTimeMillis();
-        AtomicInteger totalProcessed = new AtomicInteger(0);
+        try {
+            log.info("Rozpoczynam zoptymalizowane przetwarzanie wszystkich tweetów");
+            long startTime = System.currentTimeMillis();
+
+            ProcessingRun run = checkpointService.startOrResume();
+            long skippedBefore = run.getSkippedCount();
+            log.info("Przebieg {}: {} tweetów do przetworzenia (z {} całkowitych), start od id > {}",
+                    run.getId(), run.getTotalToProcess() - run.getProcessedCount() - skippedBefore,
+                    getTotalTweetCount(), run.getLastTweetId());
+
+            UnprocessedTweetSource source = new UnprocessedTweetSource(tweetRepository, batchSize, run.getLastTweetId());
+            PipelineMetrics metrics;
+            try {
+                metrics = processingPipeline.process(
+                        () -> {
+                            List<Tweet> batch = source.nextBatch();
+                            contentAnalysisCache.preload(batch);
+                            return batch;
+                        },
+                        (batch, watermark, skipped) ->
+                                checkpointService.commitBatch(run.getId(), batch, watermark, skippedBefore + skipped));
+            } catch (RuntimeException e) {
+                checkpointService.fail(run.getId(), e.getMessage());
+                throw e;
+            }
+            checkpointService.complete(run.getId());
+            log.info("Cache lematów: {}", lemmaCache.getStats());
+            log.info("Detekcja języka: {}", languageDetectionService.getFastPathStats());
+            log.info("Cache analizy treści: {}", contentAnalysisCache.getStats());
+
+            long endTime = System.currentTimeMillis();
+            String processedResult = "Zakończono przetwarzanie (przebieg %d). Przetworzono %d nowych tweetów w %d ms (%s)"
+                    .formatted(run.getId(), metrics.getItems(WRITE), endTime - startTime, metrics.summary());
+            log.info(processedResult);
+            return processedResult;
+        } finally {
+            running.set(false);
+        }
+    }
 
-        // Pobierz tylko ID tweetów, które zostały przetworzone
-        Set<Long> processedTweetIds = getProcessedTweetIds();
-        long totalTweets = getTotalTweetCount();
+    /**
+     * Przetwarza ponownie tylko tweety, których treść zmieniła się od przetworzenia (np. edycja wykryta
+     * przy ponownym scrapowaniu). Każda paczka zatwierdzana jest osobno, więc koszt zależy od liczby zmian, a nie rozmiaru korpusu.
+     *
+     * @return podsumowanie przebiegu
+     */
+    public String reprocessChangedTweets() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Przetwarzanie tweetów jest już w toku");
+        }
 
-        log.info("Znaleziono {} tweetów do przetworzenia (z {} całkowitych)", totalTweets - processedTweetIds.size(), totalTweets);
+        try {
+            long startTime = System.currentTimeMillis();
+            log.info("Rozpoczynam ponowne przetwarzanie zmienionych tweetów: {} do przetworzenia",
+                    changedTweetReprocessor.countChanged());
+
+            long updated = 0;
+            long removed = 0;
+            long lastId = 0;
+            ChangedTweetReprocessor.BatchResult result;
+            while (!(result = changedTweetReprocessor.reprocessBatch(lastId, batchSize)).isEmpty()) {
+                updated += result.updated();
+                removed += result.removed();
+                lastId = result.lastId();
+            }
 
-        processUnprocessedTweetsInBatches(processedTweetIds, totalProcessed, totalTweets);
+            String reprocessedResult = "Zakończono ponowne przetwarzanie zmienionych tweetów w %d ms. Zaktualizowano: %d, usunięto (nie spełniają już warunków): %d"
+                    .formatted(System.currentTimeMillis() - startTime, updated, removed);
+            log.info(reprocessedResult);
+            return reprocessedResult;
+        } finally {
+            running.set(false);
+        }
+    }
 
-        long endTime = System.currentTimeMillis();
-        String processedResult = "Zakończono przetwarzanie. Przetworzono %s nowych tweetów w %d ms".formatted(totalTweets, endTime - startTime);
-        log.info(processedResult);
-        return processedResult;
+    /**
+     * Zwraca postęp ostatniego przebiegu przetwarzania
+     */
+    public Optional<ProcessingRunStatusDTO> getRunStatus() {
+        return checkpointService.getLatestRunStatus();
     }
 
     /**
@@ -92,56 +172,7 @@ public class TweetProcessingService {
     }
 
 
-    private void processUnprocessedTweetsInBatches(Set<Long> processedTweetIds, AtomicInteger totalProcessed, long totalTweets) {
-        int pageNumber = 0;
-        Page<Tweet> page;
-
-        log.info("Zaczynam przetwarzanie w batchach");
-        do {
-            page = tweetRepository.findAll(PageRequest.of(pageNumber, batchSize));
-//
-            List<Tweet> unprocessedTweets = page.getContent().stream()
-                    .filter(tweet -> !processedTweetIds.contains(tweet.getId()))
-                    .collect(Collectors.toList());
-//            List<Tweet> unprocessedTweets = tweetRepository.findById(6L).stream().toList();  // test pojecyczy
-            if (!unprocessedTweets.isEmpty()) {
-                log.info("Rozpoczynam batch: {}. Przetworzono {}/{}", pageNumber, totalProcessed.get(), totalTweets);
-                int batchProcessed = processTweetsBatch(unprocessedTweets);
-                totalProcessed.addAndGet(batchProcessed);
-
-                logProcessingProgress(totalProcessed.get());
-            }
-
-            pageNumber++;
-
-        } while (page.hasNext());
-    }
-
-    private int processTweetsBatch(List<Tweet> tweets) {
-        List<ProcessedTweet> processedTweets = tweets.stream()
-                .map(tweetProcessor::processTweet)
-                .filter(Objects::nonNull)
-                .filter(PROCESSED_TWEET_PREDICATE)
-                .collect(Collectors.toList());
-
-        if (!processedTweets.isEmpty()) {
-            processedTweetRepository.saveAll(processedTweets);
-        }
-
-        return processedTweets.size();
-    }
-
-    private Set<Long> getProcessedTweetIds() {
-        return processedTweetRepository.findAllProcessedTweetIds();
-    }
-
     private long getTotalTweetCount() {
         return tweetRepository.count();
     }
-
-    private void logProcessingProgress(int processed) {
-        if (processed % progressInterval == 0) {
-            log.info("Przetworzono {} tweetów", processed);
-        }
-    }
 }
@@ -0,0 +1,94 @@
+package pl.bgnat.master.xsnts.normalization.service.pipeline;
+
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Liczniki przepustowości poszczególnych etapów pipeline'u przetwarzania tweetów.
+ * Aktualizowane współbieżnie przez wątki czytający, robocze i zapisujący.
+ */
+public class PipelineMetrics {
+
+    public enum Stage {
+        READ,    // tweety pobrane z bazy
+        PROCESS, // tweety przetworzone przez PolishTweetProcessor (łącznie z odrzuconymi)
+        WRITE    // przetworzone tweety zapisane do bazy
+    }
+
+    @Getter
+    private final int workers;
+    private final long startNanos = System.nanoTime();
+    private final Map<Stage, StageCounter> counters = new EnumMap<>(Stage.class);
+    private final AtomicLong skipped = new AtomicLong();
+    @Getter
+    private volatile long watermark;
+
+    public PipelineMetrics(int workers) {
+        this.workers = workers;
+        for (Stage stage : Stage.values()) {
+            counters.put(stage, new StageCounter());
+        }
+    }
+
+    void record(Stage stage, long items, long busyNanos) {
+        StageCounter counter = counters.get(stage);
+        counter.items.addAndGet(items);
+        counter.busyNanos.addAndGet(busyNanos);
+    }
+
+    void recordSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    void setWatermark(long watermark) {
+        this.watermark = watermark;
+    }
+
+    public long getItems(Stage stage) {
+        return counters.get(stage).items.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Przepustowość etapu liczona względem całego czasu działania pipeline'u
+     * @return elementy na sekundę
+     */
+    public double getThroughput(Stage stage) {
+        long elapsedMillis = Math.max(1, getElapsedMillis());
+        return getItems(stage) * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Zajętość etapu - suma czasu pracy wątków etapu względem czasu działania pipeline'u.
+     * Wartość bliska liczbie wątków etapu oznacza wąskie gardło.
+     */
+    public double getUtilization(Stage stage) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        return (double) counters.get(stage).busyNanos.get() / elapsedNanos;
+    }
+
+    public String summary() {
+        StringBuilder sb = new StringBuilder("wątki robocze=").append(workers);
+        for (Stage stage : Stage.values()) {
+            sb.append(String.format(", %s: %d (%.1f/s, zajętość %.2f)",
+                    stage, getItems(stage), getThroughput(stage), getUtilization(stage)));
+        }
+        return sb.append(", odrzucone=").append(getSkipped())
+                .append(", watermark=").append(watermark).toString();
+    }
+
+    private static final class StageCounter {
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+    }
+}
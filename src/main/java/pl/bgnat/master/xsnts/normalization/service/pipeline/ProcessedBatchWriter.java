@@ -0,0 +1,20 @@
+package pl.bgnat.master.xsnts.normalization.service.pipeline;
+
+import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
+
+import java.util.List;
+
+/**
+ * Zapis paczki przetworzonych tweetów razem z checkpointem pipeline'u.
+ * Implementacja powinna zatwierdzić paczkę i checkpoint w jednej transakcji.
+ */
+@FunctionalInterface
+public interface ProcessedBatchWriter {
+
+    /**
+     * @param batch przetworzone tweety do zapisu (może być pusta przy końcowym checkpoincie)
+     * @param watermark każdy tweet o id <= watermark jest w tej paczce, zapisany wcześniej albo odrzucony
+     * @param skipped liczba tweetów odrzuconych od początku działania pipeline'u
+     */
+    void write(List<ProcessedTweet> batch, long watermark, long skipped);
+}
@@ -0,0 +1,20 @@
+package pl.bgnat.master.xsnts.normalization.service.pipeline;
+
+import pl.bgnat.master.xsnts.scrapper.model.Tweet;
+
+import java.util.List;
+
+/**
+ * Źródło kolejnych paczek tweetów dla pipeline'u przetwarzania.
+ * Wywoływane sekwencyjnie z wątku czytającego, tweety oddawane w kolejności rosnącego id
+ * (na tym opiera się wyznaczanie checkpointu).
+ */
+@FunctionalInterface
+public interface TweetBatchSource {
+
+    /**
+     * Zwraca kolejną paczkę tweetów do przetworzenia
+     * @return paczka tweetów, pusta lista oznacza koniec danych
+     */
+    List<Tweet> nextBatch();
+}
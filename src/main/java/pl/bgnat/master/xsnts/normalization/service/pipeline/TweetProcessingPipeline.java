@@ -0,0 +1,229 @@
+package pl.bgnat.master.xsnts.normalization.service.pipeline;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
+import pl.bgnat.master.xsnts.normalization.service.processing.PolishTweetProcessor;
+import pl.bgnat.master.xsnts.scrapper.model.Tweet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static pl.bgnat.master.xsnts.normalization.service.TweetProcessingService.PROCESSED_TWEET_PREDICATE;
+import static pl.bgnat.master.xsnts.normalization.service.pipeline.PipelineMetrics.Stage.*;
+
+/**
+ * Wielowątkowy pipeline przetwarzania tweetów: czytelnik → N wątków roboczych → zapis paczkami.
+ * <p>
+ * Etapy są połączone ograniczonymi kolejkami, więc wolniejszy etap blokuje szybszy (backpressure),
+ * a odczyt z bazy, praca CPU (detekcja języka, normalizacja, lematyzacja) i zapis nakładają się w czasie.
+ * Zapis wykonywany jest w wątku wywołującym, a każda paczka trafia do zapisu razem z checkpointem
+ * (watermark id tweetów), co pozwala zatwierdzać paczki osobno i wznowić przerwany przebieg.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TweetProcessingPipeline {
+
+    private static final ProcessedTweet END_OF_STREAM = new ProcessedTweet();
+    private static final long POLL_TIMEOUT_SECONDS = 1;
+
+    private final PolishTweetProcessor tweetProcessor;
+
+    @Value("${app.processing.workers:0}")
+    private int workers;
+
+    @Value("${app.processing.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.processing.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.processing.progress-interval:1000}")
+    private int progressInterval;
+
+    /**
+     * Przetwarza wszystkie tweety ze źródła i przekazuje wyniki paczkami do zapisu
+     * @param source źródło paczek tweetów (wywoływane z wątku czytającego)
+     * @param batchWriter zapis paczki przetworzonych tweetów z checkpointem (wywoływany z wątku wywołującego)
+     * @return liczniki etapów pipeline'u
+     */
+    public PipelineMetrics process(TweetBatchSource source, ProcessedBatchWriter batchWriter) {
+        int workerCount = resolveWorkerCount();
+        PipelineMetrics metrics = new PipelineMetrics(workerCount);
+        BlockingQueue<Tweet> input = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<ProcessedTweet> output = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger activeWorkers = new AtomicInteger(workerCount);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        WatermarkTracker tracker = new WatermarkTracker();
+
+        log.info("Uruchamiam pipeline: {} wątków roboczych, pojemność kolejek {}, paczka zapisu {}",
+                workerCount, queueCapacity, batchSize);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount + 1, pipelineThreadFactory());
+        try {
+            executor.submit(() -> read(source, input, workerCount, tracker, metrics, failure));
+            for (int i = 0; i < workerCount; i++) {
+                executor.submit(() -> work(input, output, activeWorkers, tracker, metrics, failure));
+            }
+            write(output, batchWriter, tracker, metrics, failure);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Throwable error = failure.get();
+        if (error != null) {
+            throw new IllegalStateException("Pipeline przetwarzania przerwany: " + error.getMessage(), error);
+        }
+
+        log.info("Pipeline zakończony w {} ms: {}", metrics.getElapsedMillis(), metrics.summary());
+        return metrics;
+    }
+
+    /**
+     * Etap 1 - pobiera paczki ze źródła i wrzuca tweety do kolejki wejściowej.
+     * Na końcu (także po błędzie) wysyła po jednej poison pill na każdy wątek roboczy.
+     */
+    private void read(TweetBatchSource source, BlockingQueue<Tweet> input, int workerCount, WatermarkTracker tracker,
+                      PipelineMetrics metrics, AtomicReference<Throwable> failure) {
+        try {
+            while (failure.get() == null) {
+                long start = System.nanoTime();
+                List<Tweet> batch = source.nextBatch();
+                metrics.record(READ, batch.size(), System.nanoTime() - start);
+
+                if (batch.isEmpty()) break;
+                for (Tweet tweet : batch) {
+                    tracker.started(tweet.getId());
+                    input.put(tweet);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Throwable e) {
+            log.error("Błąd odczytu tweetów w pipeline: {}", e.getMessage(), e);
+            failure.compareAndSet(null, e);
+        }
+
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                input.put(Tweet.POISON_PILL);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Etap 2 - przetwarza tweety (CPU). Ostatni kończący wątek zamyka kolejkę wyjściową.
+     */
+    private void work(BlockingQueue<Tweet> input, BlockingQueue<ProcessedTweet> output, AtomicInteger activeWorkers,
+                      WatermarkTracker tracker, PipelineMetrics metrics, AtomicReference<Throwable> failure) {
+        try {
+            while (true) {
+                Tweet tweet = input.take();
+                if (tweet == Tweet.POISON_PILL) break;
+
+                long start = System.nanoTime();
+                ProcessedTweet processedTweet = tweetProcessor.processTweet(tweet);
+                metrics.record(PROCESS, 1, System.nanoTime() - start);
+
+                if (processedTweet != null && PROCESSED_TWEET_PREDICATE.test(processedTweet)) {
+                    output.put(processedTweet);
+                } else {
+                    metrics.recordSkipped();
+                    tracker.finished(tweet.getId());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Throwable e) {
+            log.error("Błąd przetwarzania tweetów w pipeline: {}", e.getMessage(), e);
+            failure.compareAndSet(null, e);
+        }
+
+        if (activeWorkers.decrementAndGet() == 0) {
+            try {
+                output.put(END_OF_STREAM);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Etap 3 - zbiera przetworzone tweety w paczki i zapisuje je w wątku wywołującym.
+     */
+    private void write(BlockingQueue<ProcessedTweet> output, ProcessedBatchWriter batchWriter, WatermarkTracker tracker,
+                       PipelineMetrics metrics, AtomicReference<Throwable> failure) {
+        List<ProcessedTweet> batch = new ArrayList<>(batchSize);
+        try {
+            while (failure.get() == null) {
+                ProcessedTweet processedTweet = output.poll(POLL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                if (processedTweet == null) continue;
+                if (processedTweet == END_OF_STREAM) break;
+
+                batch.add(processedTweet);
+                if (batch.size() >= batchSize) {
+                    flush(batch, batchWriter, tracker, metrics);
+                }
+            }
+            if (failure.get() == null) {
+                // końcowy checkpoint zapisujemy zawsze - przesuwa watermark także za odrzuconymi tweetami
+                flush(batch, batchWriter, tracker, metrics);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (RuntimeException e) {
+            log.error("Błąd zapisu paczki w pipeline: {}", e.getMessage(), e);
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void flush(List<ProcessedTweet> batch, ProcessedBatchWriter batchWriter, WatermarkTracker tracker,
+                       PipelineMetrics metrics) {
+        for (ProcessedTweet processedTweet : batch) {
+            tracker.finished(processedTweet.getOriginalTweet().getId());
+        }
+        long watermark = tracker.watermark();
+
+        long writtenBefore = metrics.getItems(WRITE);
+        long start = System.nanoTime();
+        batchWriter.write(List.copyOf(batch), watermark, metrics.getSkipped());
+        metrics.record(WRITE, batch.size(), System.nanoTime() - start);
+        metrics.setWatermark(watermark);
+        batch.clear();
+
+        if (writtenBefore / progressInterval != metrics.getItems(WRITE) / progressInterval) {
+            log.info("Postęp pipeline: {}", metrics.summary());
+        }
+    }
+
+    private int resolveWorkerCount() {
+        // domyślnie zostawiamy rdzeń dla wątku czytającego i zapisującego
+        return workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+    }
+
+    private ThreadFactory pipelineThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            int index = counter.getAndIncrement();
+            Thread thread = new Thread(runnable, index == 0 ? "tweet-pipeline-reader" : "tweet-pipeline-worker-" + index);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
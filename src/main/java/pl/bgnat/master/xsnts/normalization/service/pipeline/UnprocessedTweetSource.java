@@ -0,0 +1,54 @@
+package pl.bgnat.master.xsnts.normalization.service.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import pl.bgnat.master.xsnts.scrapper.model.Tweet;
+import pl.bgnat.master.xsnts.scrapper.repository.TweetRepository;
+
+import java.util.List;
+
+/**
+ * Źródło nieprzetworzonych tweetów oparte o paginację kluczem (keyset) po tweet.id.
+ * <p>
+ * Każda paczka to zapytanie {@code id > ostatnie_id AND NOT EXISTS(processed_tweet) ORDER BY id LIMIT n},
+ * więc baza pomija już przetworzone wiersze, koszt pobrania paczki nie rośnie z numerem strony (brak OFFSET),
+ * a pamięć zależy tylko od rozmiaru paczki. Obiekt jest jednorazowy i wywoływany z jednego wątku.
+ */
+@Slf4j
+public class UnprocessedTweetSource implements TweetBatchSource {
+
+    private final TweetRepository tweetRepository;
+    private final int batchSize;
+
+    private long lastId;
+    private int batchNumber;
+
+    public UnprocessedTweetSource(TweetRepository tweetRepository, int batchSize) {
+        this(tweetRepository, batchSize, 0L);
+    }
+
+    public UnprocessedTweetSource(TweetRepository tweetRepository, int batchSize, long startAfterId) {
+        this.tweetRepository = tweetRepository;
+        this.batchSize = batchSize;
+        this.lastId = startAfterId;
+    }
+
+    @Override
+    public List<Tweet> nextBatch() {
+        List<Tweet> batch = tweetRepository.findUnprocessedAfterId(lastId, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+
+        lastId = batch.get(batch.size() - 1).getId();
+        log.debug("Pobrano batch {}: {} nieprzetworzonych tweetów (ostatnie id {})", batchNumber++, batch.size(), lastId);
+        return batch;
+    }
+
+    /**
+     * @return id ostatniego pobranego tweeta (0 przed pierwszą paczką)
+     */
+    public long getLastId() {
+        return lastId;
+    }
+}
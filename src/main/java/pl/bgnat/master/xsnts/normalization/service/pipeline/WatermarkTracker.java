@@ -0,0 +1,37 @@
+package pl.bgnat.master.xsnts.normalization.service.pipeline;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Śledzi tweety będące w trakcie przetwarzania i wyznacza próg (watermark),
+ * poniżej którego każdy tweet został już zapisany albo odrzucony.
+ * Zakłada, że źródło oddaje tweety w kolejności rosnącego id.
+ */
+final class WatermarkTracker {
+
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private volatile long maxRead;
+
+    /**
+     * Wywoływane przez wątek czytający przed wrzuceniem tweeta do kolejki
+     */
+    void started(long tweetId) {
+        inFlight.add(tweetId);
+        maxRead = tweetId;
+    }
+
+    void finished(long tweetId) {
+        inFlight.remove(tweetId);
+    }
+
+    long watermark() {
+        // najpierw odczyt maxRead - wszystkie id <= maxRead są już w zbiorze albo z niego usunięte
+        long read = maxRead;
+        try {
+            return Math.min(read, inFlight.first() - 1);
+        } catch (NoSuchElementException e) {
+            return read;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package pl.bgnat.master.xsnts.normalization.service.processing;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
+import pl.bgnat.master.xsnts.normalization.repository.ProcessedTweetRepository;
+import pl.bgnat.master.xsnts.sentiment.repository.SentimentResultRepository;
+import pl.bgnat.master.xsnts.scrapper.model.Tweet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static pl.bgnat.master.xsnts.normalization.service.TweetProcessingService.PROCESSED_TWEET_PREDICATE;
+
+/**
+ * Ponowne przetwarzanie tweetów, których treść zmieniła się po przetworzeniu
+ * (tweet.content_hash różny od processed_tweet.source_content_hash).
+ * <p>
+ * Istniejący wiersz processed_tweet jest aktualizowany w miejscu (zachowuje id), a gdy nowa treść
+ * nie spełnia już warunków (nie jest po polsku, za mało tokenów) - usuwany. Wyniki sentymentu
+ * dla zmienionych tweetów są nieaktualne, więc są usuwane i zostaną policzone ponownie przy kolejnej analizie.
+ * Hashe wierszy sprzed ich wprowadzenia uzupełnia {@link pl.bgnat.master.xsnts.normalization.service.NormalizationSchemaMigration};
+ * source_content_hash = NULL zostaje tylko przy tweetach zaktualizowanych po przetworzeniu i takie wiersze są tu
+ * przetwarzane ponownie.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChangedTweetReprocessor {
+
+    private final ProcessedTweetRepository processedTweetRepository;
+    private final SentimentResultRepository sentimentResultRepository;
+    private final PolishTweetProcessor tweetProcessor;
+    private final ContentAnalysisCache contentAnalysisCache;
+    private final TokenVocabulary tokenVocabulary;
+
+    public long countChanged() {
+        return processedTweetRepository.countChanged();
+    }
+
+    /**
+     * Przetwarza ponownie jedną paczkę zmienionych tweetów w osobnej transakcji
+     * @param lastId id ostatniego processed_tweet z poprzedniej paczki (0 na starcie)
+     * @param batchSize rozmiar paczki
+     * @return wynik paczki; {@link BatchResult#isEmpty()} oznacza brak kolejnych zmian
+     */
+    @Transactional
+    public BatchResult reprocessBatch(long lastId, int batchSize) {
+        List<ProcessedTweet> changed = processedTweetRepository.findChangedAfterId(lastId, PageRequest.of(0, batchSize));
+        if (changed.isEmpty()) {
+            return new BatchResult(0, 0, lastId);
+        }
+
+        contentAnalysisCache.preload(changed.stream().map(ProcessedTweet::getOriginalTweet).toList());
+
+        List<Long> changedIds = new ArrayList<>(changed.size());
+        List<Long> removedIds = new ArrayList<>();
+        for (ProcessedTweet existing : changed) {
+            changedIds.add(existing.getId());
+
+            Tweet tweet = existing.getOriginalTweet();
+            ProcessedTweet fresh = tweetProcessor.processTweet(tweet);
+            if (fresh == null || !PROCESSED_TWEET_PREDICATE.test(fresh)) {
+                removedIds.add(existing.getId());
+                continue;
+            }
+            existing.setSourceContentHash(fresh.getSourceContentHash());
+            existing.setNormalizedContent(fresh.getNormalizedContent());
+            existing.setTokens(fresh.getTokens());
+            existing.setTokensLemmatized(fresh.getTokensLemmatized());
+            existing.setTokenIds(fresh.getTokenIds());
+            existing.setLemmaIds(fresh.getLemmaIds());
+            existing.setTokenCount(fresh.getTokenCount());
+            existing.setProcessedDate(fresh.getProcessedDate());
+        }
+
+        tokenVocabulary.flushPending();
+        contentAnalysisCache.flushPending();
+        int deletedSentiments = sentimentResultRepository.deleteAllByProcessedTweetIds(changedIds);
+        if (!removedIds.isEmpty()) {
+            processedTweetRepository.flush();
+            processedTweetRepository.deleteAllByIds(removedIds);
+        }
+
+        long newLastId = changedIds.get(changedIds.size() - 1);
+        log.debug("Paczka zmienionych tweetów do id {}: zaktualizowano {}, usunięto {}, unieważniono {} wyników sentymentu",
+                newLastId, changed.size() - removedIds.size(), removedIds.size(), deletedSentiments);
+        return new BatchResult(changed.size() - removedIds.size(), removedIds.size(), newLastId);
+    }
+
+    public record BatchResult(int updated, int removed, long lastId) {
+
+        public boolean isEmpty() {
+            return updated + removed == 0;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package pl.bgnat.master.xsnts.normalization.service.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.bgnat.master.xsnts.normalization.model.ContentAnalysis;
+import pl.bgnat.master.xsnts.normalization.repository.ContentAnalysisRepository;
+import pl.bgnat.master.xsnts.normalization.utils.ConcurrentLruCache;
+import pl.bgnat.master.xsnts.scrapper.model.Tweet;
+import pl.bgnat.master.xsnts.scrapper.utils.ContentHasher;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.springframework.util.StringUtils.hasLength;
+import static pl.bgnat.master.xsnts.normalization.repository.ContentAnalysisRepository.QUERY_UPSERT;
+
+/**
+ * Cache wyników analizy treści (język + znormalizowany tekst) kluczowany skrótem treści.
+ * <p>
+ * Dwa poziomy: ograniczony cache w pamięci współdzielony przez wątki robocze oraz tabela content_analysis_cache.
+ * Wątek czytający pipeline'u wstępnie ładuje wpisy dla całej paczki jednym zapytaniem ({@link #preload}),
+ * nowe wyniki trafiają do bufora i są zapisywane upsertem wsadowym w transakcji paczki ({@link #flushPending}).
+ */
+@Slf4j
+@Component
+public class ContentAnalysisCache {
+
+    private final ContentAnalysisRepository contentAnalysisRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentLruCache<String, ContentAnalysis> memoryCache;
+    private final Map<String, ContentAnalysis> pending = new ConcurrentHashMap<>();
+    private final boolean enabled;
+
+    public ContentAnalysisCache(ContentAnalysisRepository contentAnalysisRepository,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${app.processing.content-cache-enabled:true}") boolean enabled,
+                                @Value("${app.processing.content-cache-size:100000}") int memorySize) {
+        this.contentAnalysisRepository = contentAnalysisRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.memoryCache = new ConcurrentLruCache<>(enabled ? memorySize : 0);
+        log.info("ContentAnalysisCache zainicjalizowany. Włączony: {}, rozmiar w pamięci: {}", enabled, memoryCache.getMaxSize());
+    }
+
+    /**
+     * Ładuje do pamięci zapisane wyniki dla treści z paczki tweetów (jedno zapytanie na paczkę)
+     */
+    public void preload(Collection<Tweet> tweets) {
+        if (!enabled || tweets.isEmpty()) return;
+
+        Set<String> hashes = tweets.stream()
+                .map(Tweet::getContent)
+                .filter(content -> hasLength(content))
+                .map(ContentHasher::sha256)
+                .filter(hash -> !pending.containsKey(hash))
+                .collect(Collectors.toSet());
+        if (hashes.isEmpty()) return;
+
+        List<ContentAnalysis> stored = contentAnalysisRepository.findAllById(hashes);
+        stored.forEach(analysis -> memoryCache.put(analysis.getContentHash(), analysis));
+        log.debug("Wczytano {} z {} wyników analizy treści dla paczki", stored.size(), hashes.size());
+    }
+
+    /**
+     * @return zapisany wynik analizy treści albo null
+     */
+    public ContentAnalysis get(String contentHash) {
+        if (!enabled) return null;
+
+        ContentAnalysis analysis = memoryCache.get(contentHash);
+        return analysis != null ? analysis : pending.get(contentHash);
+    }
+
+    /**
+     * Zapamiętuje nowy wynik - trafia do pamięci i do bufora zapisu
+     */
+    public void put(ContentAnalysis analysis) {
+        if (!enabled) return;
+
+        memoryCache.put(analysis.getContentHash(), analysis);
+        pending.put(analysis.getContentHash(), analysis);
+    }
+
+    /**
+     * Zapisuje zbuforowane wyniki upsertem wsadowym.
+     * Wywoływane w transakcji zapisu paczki, więc wyniki są zatwierdzane razem z przetworzonymi tweetami;
+     * po wycofaniu transakcji wpisy wracają do bufora (cache w pamięci nadal je zna, więc nie zostałyby policzone ponownie).
+     */
+    public int flushPending() {
+        if (pending.isEmpty()) return 0;
+
+        List<ContentAnalysis> toSave = new ArrayList<>(pending.size());
+        for (Map.Entry<String, ContentAnalysis> entry : pending.entrySet()) {
+            // wpis podmieniony w międzyczasie przez inny wątek zostaje w buforze do następnego zapisu
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                toSave.add(entry.getValue());
+            }
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        // nowszy wynik dla tej samej treści ma pierwszeństwo
+                        toSave.forEach(analysis -> pending.putIfAbsent(analysis.getContentHash(), analysis));
+                    }
+                }
+            });
+        }
+
+        jdbcTemplate.batchUpdate(QUERY_UPSERT, toSave, toSave.size(), (ps, analysis) -> {
+            ps.setString(1, analysis.getContentHash());
+            ps.setString(2, analysis.getLanguage().name());
+            ps.setObject(3, analysis.getConfidence());
+            ps.setString(4, analysis.getDetectionMethod().name());
+            ps.setString(5, analysis.getNormalizedContent());
+            ps.setObject(6, analysis.getNormalizerVersion());
+            ps.setTimestamp(7, Timestamp.valueOf(analysis.getCreatedDate()));
+        });
+        return toSave.size();
+    }
+
+    public ConcurrentLruCache.Stats getStats() {
+        return memoryCache.getStats();
+    }
+}
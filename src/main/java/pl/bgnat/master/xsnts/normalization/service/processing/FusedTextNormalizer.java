@@ -0,0 +1,409 @@
+package pl.bgnat.master.xsnts.normalization.service.processing;
+
+import com.ibm.icu.text.Normalizer2;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pl.bgnat.master.xsnts.normalization.dto.NormalizerEngineLabel;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static org.springframework.util.StringUtils.hasLength;
+import static pl.bgnat.master.xsnts.normalization.service.processing.TextNormalizer.USER_PLACEHOLDER;
+
+/**
+ * Jednoprzebiegowy silnik normalizacji tekstu tweetów.
+ * Zwraca wynik identyczny z {@link TextNormalizer}, ale zamiast ośmiu przebiegów
+ * {@code replaceAll} (każdy alokujący nowy String) skanuje tekst znak po znaku
+ * do buforów wielokrotnego użytku (jeden zestaw na wątek).
+ * <p>
+ * Kolejność kroków jest zachowana, dlatego skan dzieli się na dwie fazy rozdzielone NFKC:
+ * 1. faza strukturalna: URL-e, wzmianki, liczby (na oryginalnych znakach),
+ * 2. normalizacja Unicode NFKC - pomijana, gdy bufor jest już w postaci NFKC (zdecydowana większość tweetów),
+ * 3. faza leksykalna: małe litery, interpunkcja, hasztagi, białe znaki i trim.
+ */
+@Slf4j
+@Component
+public class FusedTextNormalizer implements TextNormalizerEngine {
+    private static final Normalizer2 NFKC = Normalizer2.getNFKCInstance();
+    private static final int INITIAL_BUFFER_CAPACITY = 512;
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 16 * 1024;
+    private static final char CAPITAL_SIGMA = 'Σ';
+    private static final char CAPITAL_I_WITH_DOT = 'İ';
+
+    /**
+     * {@code \b} w java.util.regex do JDK 18 traktuje litery/cyfry Unicode jako znaki słowa,
+     * od JDK 19 wyłącznie ASCII. Sprawdzamy raz, aby granice liczb były zgodne z TextNormalizer na tej samej JVM.
+     */
+    private static final boolean UNICODE_WORD_BOUNDARY = Pattern.compile("\\b").matcher("ą").lookingAt();
+
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    @Override
+    public NormalizerEngineLabel getEngineLabel() {
+        return NormalizerEngineLabel.FUSED;
+    }
+
+    /**
+     * Wykonuje pełen proces normalizacji tekstu.
+     */
+    @Override
+    public String normalize(String text) {
+        validateInput(text);
+
+        try {
+            return normalizeText(text);
+
+        } catch (Exception e) {
+            log.error("Błąd podczas przetwarzania tekstu: {}", e.getMessage(), e);
+            return "";
+        }
+    }
+
+    private String normalizeText(String text) {
+        Buffers buffers = this.buffers.get();
+
+        // Faza 1: URL-e, wzmianki, liczby
+        StringBuilder structural = buffers.structural();
+        boolean asciiOnly = replaceStructuralTokens(text, structural);
+
+        // Faza 2: NFKC tylko jeśli tekst nie jest już znormalizowany (ASCII zawsze jest)
+        CharSequence unicode = structural;
+        if (!asciiOnly && !NFKC.isNormalized(structural)) {
+            unicode = NFKC.normalize(structural, buffers.unicode());
+        }
+
+        // Faza 3: małe litery, interpunkcja, hasztagi, białe znaki
+        CharSequence lexical = unicode;
+        boolean lowerCased = requiresContextualLowerCase(unicode);
+        if (lowerCased) {
+            // sigma końcowa i locale tr/az/lt zależą od kontekstu - zostawiamy je String.toLowerCase()
+            lexical = unicode.toString().toLowerCase();
+        }
+
+        StringBuilder output = buffers.output();
+        new LexicalScanner(lexical, lowerCased, output).scan();
+        return output.toString();
+    }
+
+    /* ======================================================================
+     *  Faza 1 - URL-e, wzmianki, liczby
+     * ====================================================================== */
+
+    /**
+     * Zastępuje URL-e spacją, wzmianki placeholderem i liczby (poza 4-cyfrowymi) spacją.
+     * Priorytety odpowiadają kolejności przebiegów w TextNormalizer: URL wygrywa ze wzmianką,
+     * wzmianka z liczbą.
+     *
+     * @return true jeśli w wyniku są wyłącznie znaki ASCII
+     */
+    private boolean replaceStructuralTokens(String text, StringBuilder out) {
+        boolean asciiOnly = true;
+        int length = text.length();
+        int i = 0;
+
+        while (i < length) {
+            int urlEnd = urlEnd(text, i);
+            if (urlEnd >= 0) {
+                out.append(' ');
+                i = urlEnd;
+                continue;
+            }
+
+            char c = text.charAt(i);
+            if (c == '@') {
+                int mentionEnd = mentionEnd(text, i);
+                if (mentionEnd > i) {
+                    out.append(USER_PLACEHOLDER);
+                    i = mentionEnd;
+                    continue;
+                }
+            } else if (isAsciiDigit(c)) {
+                int runEnd = i + 1;
+                while (runEnd < length && isAsciiDigit(text.charAt(runEnd))) {
+                    runEnd++;
+                }
+                // \b\d{1,3}\b oraz \b\d{5,}\b - liczby 4-cyfrowe (daty) zostają
+                if (runEnd - i != 4 && isBoundaryBeforeDigits(out) && isBoundaryAfterDigits(text, runEnd)) {
+                    out.append(' ');
+                } else {
+                    out.append(text, i, runEnd);
+                }
+                i = runEnd;
+                continue;
+            }
+
+            if (c >= 0x80) {
+                asciiOnly = false;
+            }
+            out.append(c);
+            i++;
+        }
+        return asciiOnly;
+    }
+
+    /**
+     * Odpowiednik {@code https?://\S+|www\.\S+}.
+     *
+     * @return indeks końca URL-a lub -1 jeśli URL nie zaczyna się na pozycji
+     */
+    private static int urlEnd(String text, int start) {
+        char first = text.charAt(start);
+        int prefixEnd;
+        if (first == 'h' && text.startsWith("http://", start)) {
+            prefixEnd = start + 7;
+        } else if (first == 'h' && text.startsWith("https://", start)) {
+            prefixEnd = start + 8;
+        } else if (first == 'w' && text.startsWith("www.", start)) {
+            prefixEnd = start + 4;
+        } else {
+            return -1;
+        }
+
+        int end = prefixEnd;
+        while (end < text.length() && !isRegexWhitespace(text.charAt(end))) {
+            end++;
+        }
+        return end > prefixEnd ? end : -1;
+    }
+
+    /**
+     * Odpowiednik {@code @\w+} liczonego na tekście po usunięciu URL-i.
+     *
+     * @return indeks końca wzmianki lub start jeśli wzmianki brak
+     */
+    private static int mentionEnd(String text, int start) {
+        int end = start + 1;
+        while (end < text.length() && isAsciiWordChar(text.charAt(end)) && urlEnd(text, end) < 0) {
+            end++;
+        }
+        return end > start + 1 ? end : start;
+    }
+
+    /**
+     * Lewa strona {@code \b} przed ciągiem cyfr - znak poprzedzający w tekście po podmianie URL-i i wzmianek.
+     */
+    private static boolean isBoundaryBeforeDigits(StringBuilder out) {
+        int length = out.length();
+        if (length == 0) {
+            return true;
+        }
+        int before = Character.codePointBefore(out, length);
+        boolean wordBefore = isBoundaryWordChar(before)
+                || (Character.getType(before) == Character.NON_SPACING_MARK && hasBaseCharacter(out, length - 1));
+        return !wordBefore;
+    }
+
+    /**
+     * Prawa strona {@code \b} za ciągiem cyfr. URL i wzmianka zaczynające się tuż za liczbą
+     * są w tym miejscu już spacją.
+     */
+    private static boolean isBoundaryAfterDigits(String text, int index) {
+        if (index >= text.length() || text.charAt(index) == '@' || urlEnd(text, index) >= 0) {
+            return true;
+        }
+        int after = Character.codePointAt(text, index);
+        // znak łączący za cyfrą ma cyfrę jako znak bazowy, więc zawsze jest częścią słowa
+        return !isBoundaryWordChar(after) && Character.getType(after) != Character.NON_SPACING_MARK;
+    }
+
+    private static boolean hasBaseCharacter(CharSequence text, int index) {
+        for (int i = index; i >= 0; i--) {
+            int cp = Character.codePointAt(text, i);
+            if (Character.isLetterOrDigit(cp)) {
+                return true;
+            }
+            if (Character.getType(cp) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBoundaryWordChar(int cp) {
+        if (cp == '_') {
+            return true;
+        }
+        return UNICODE_WORD_BOUNDARY ? Character.isLetterOrDigit(cp) : isAsciiLetterOrDigit(cp);
+    }
+
+    /* ======================================================================
+     *  Faza 3 - małe litery, interpunkcja, hasztagi, białe znaki
+     * ====================================================================== */
+
+    /**
+     * String.toLowerCase() zależy od kontekstu tylko dla wielkiej sigmy (forma końcowa)
+     * i locale tureckiego/azerskiego/litewskiego - wtedy wynik liczymy tak samo jak TextNormalizer.
+     */
+    private static boolean requiresContextualLowerCase(CharSequence text) {
+        String language = Locale.getDefault().getLanguage();
+        if ("tr".equals(language) || "az".equals(language) || "lt".equals(language)) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == CAPITAL_SIGMA) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Skaner fazy leksykalnej. Stan {@code tokenStart} odpowiada {@code (?<=\s|^)} liczonemu
+     * na tekście po usunięciu interpunkcji, {@code pendingSpace} realizuje {@code \s+ → " "} oraz trim().
+     */
+    private static final class LexicalScanner {
+        private final CharSequence text;
+        private final boolean lowerCased;
+        private final StringBuilder out;
+        private boolean tokenStart = true;
+        private boolean pendingSpace = false;
+
+        LexicalScanner(CharSequence text, boolean lowerCased, StringBuilder out) {
+            this.text = text;
+            this.lowerCased = lowerCased;
+            this.out = out;
+        }
+
+        void scan() {
+            int length = text.length();
+            int i = 0;
+
+            while (i < length) {
+                int cp = Character.codePointAt(text, i);
+
+                if (cp == '#' && tokenStart) {
+                    i = scanHashRun(i);
+                    continue;
+                }
+                i += Character.charCount(cp);
+
+                if (!lowerCased && cp == CAPITAL_I_WITH_DOT) {
+                    // "İ".toLowerCase() == "i̇", a kropka łącząca jest interpunkcją
+                    emit('i');
+                    emit(' ');
+                    continue;
+                }
+                emit(mapCodePoint(lowerCased ? cp : Character.toLowerCase(cp)));
+            }
+        }
+
+        /**
+         * Ciąg # na początku tokenu: przed spacją/końcem znika (osierocony),
+         * ≥2 # przed literą/cyfrą/_ redukuje się do jednego, w pozostałych przypadkach zostaje bez zmian.
+         */
+        private int scanHashRun(int start) {
+            int end = start + 1;
+            while (end < text.length() && text.charAt(end) == '#') {
+                end++;
+            }
+
+            int next = end < text.length() ? lexicalCodePointAt(end) : -1;
+            if (next == -1 || isRegexWhitespace(next)) {
+                emit(' ');
+            } else if (end - start >= 2 && isHashtagBodyChar(next)) {
+                emit('#');
+            } else {
+                for (int i = start; i < end; i++) {
+                    emit('#');
+                }
+            }
+            return end;
+        }
+
+        /** Pierwszy znak po zamianie na małe litery i usunięciu interpunkcji. */
+        private int lexicalCodePointAt(int index) {
+            int cp = Character.codePointAt(text, index);
+            if (!lowerCased) {
+                cp = cp == CAPITAL_I_WITH_DOT ? 'i' : Character.toLowerCase(cp);
+            }
+            return mapCodePoint(cp);
+        }
+
+        private void emit(int cp) {
+            if (isRegexWhitespace(cp)) {
+                pendingSpace = true;
+                tokenStart = true;
+                return;
+            }
+            if (pendingSpace && out.length() > 0) {
+                out.append(' ');
+            }
+            pendingSpace = false;
+            tokenStart = false;
+            out.appendCodePoint(cp);
+        }
+    }
+
+    /** Odpowiednik {@code [^\p{L}\p{N}\s#@_] → " "}. */
+    private static int mapCodePoint(int cp) {
+        if (Character.isLetter(cp) || isNumber(cp) || isRegexWhitespace(cp) || cp == '#' || cp == '@' || cp == '_') {
+            return cp;
+        }
+        return ' ';
+    }
+
+    private static boolean isHashtagBodyChar(int cp) {
+        return Character.isLetter(cp) || isNumber(cp) || cp == '_';
+    }
+
+    private static boolean isNumber(int cp) {
+        int type = Character.getType(cp);
+        return type == Character.DECIMAL_DIGIT_NUMBER
+                || type == Character.LETTER_NUMBER
+                || type == Character.OTHER_NUMBER;
+    }
+
+    /** {@code \s} bez flagi UNICODE_CHARACTER_CLASS: [ \t\n\x0B\f\r]. */
+    private static boolean isRegexWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAsciiLetterOrDigit(int c) {
+        return isAsciiDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiWordChar(int c) {
+        return isAsciiLetterOrDigit(c) || c == '_';
+    }
+
+    private void validateInput(String text) {
+        if (!hasLength(text)) {
+            throw new IllegalArgumentException("Tekst do przetworzenia nie może być null");
+        }
+    }
+
+    /**
+     * Bufory wielokrotnego użytku dla jednego wątku. Zbyt duże bufory są zwalniane,
+     * żeby pojedynczy długi tekst nie trzymał pamięci do końca życia wątku.
+     */
+    private static final class Buffers {
+        private StringBuilder structural = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+        private StringBuilder unicode = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+        private StringBuilder output = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+
+        StringBuilder structural() {
+            return structural = reuse(structural);
+        }
+
+        StringBuilder unicode() {
+            return unicode = reuse(unicode);
+        }
+
+        StringBuilder output() {
+            return output = reuse(output);
+        }
+
+        private static StringBuilder reuse(StringBuilder buffer) {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+                return new StringBuilder(INITIAL_BUFFER_CAPACITY);
+            }
+            buffer.setLength(0);
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package pl.bgnat.master.xsnts.normalization.service.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.bgnat.master.xsnts.normalization.utils.ConcurrentLruCache;
+import pl.bgnat.master.xsnts.normalization.utils.TextStemmerPL;
+
+/**
+ * Ograniczony, współbieżny cache token → lemat przed {@link TextStemmerPL}.
+ * <p>
+ * Słownictwo tweetów ma rozkład Zipfa, więc większość wywołań PolishStemmer.lookup się powtarza.
+ * Cache jest współdzielony przez wątki robocze pipeline'u, a łączny rozmiar nie przekracza skonfigurowanego limitu.
+ * Lematyzacja odbywa się poza blokadą - równoległe chybienie tego samego tokenu policzy go dwukrotnie, co jest nieszkodliwe.
+ */
+@Slf4j
+@Component
+public class LemmaCache {
+
+    private final ConcurrentLruCache<String, String> cache;
+
+    public LemmaCache(@Value("${app.processing.lemma-cache-size:200000}") int maxSize) {
+        this.cache = new ConcurrentLruCache<>(maxSize);
+        log.info("LemmaCache zainicjalizowany. Maksymalny rozmiar: {}", cache.getMaxSize());
+    }
+
+    /**
+     * Zwraca lemat tokenu, korzystając z cache
+     * @param token token po normalizacji
+     * @return lemat (dla hashtagów z zachowanym #)
+     */
+    public String lemmatize(String token) {
+        String lemma = cache.get(token);
+        if (lemma == null) {
+            lemma = TextStemmerPL.lemmatize(token);
+            cache.put(token, lemma);
+        }
+        return lemma;
+    }
+
+    public ConcurrentLruCache.Stats getStats() {
+        return cache.getStats();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -3,15 +3,23 @@ package pl.bgnat.master.xsnts.normalization.service.processing;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import pl.bgnat.master.xsnts.normalization.dto.LanguageDetection;
+import pl.bgnat.master.xsnts.normalization.dto.LanguageDetectionMethodLabel;
+import pl.bgnat.master.xsnts.normalization.dto.NormalizerEngineLabel;
+import pl.bgnat.master.xsnts.normalization.model.ContentAnalysis;
 import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
 import pl.bgnat.master.xsnts.scrapper.model.Tweet;
+import pl.bgnat.master.xsnts.scrapper.utils.ContentHasher;
 import pl.bgnat.master.xsnts.normalization.service.LanguageDetectionService;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 
 import static org.springframework.util.StringUtils.*;
+import static pl.bgnat.master.xsnts.normalization.service.processing.TextNormalizerEngine.NORMALIZATION_VERSION;
 
 /**
  * Komponent odpowiedzialny za przetwarzanie pojedynczych tweetów
@@ -22,10 +30,19 @@ import static org.springframework.util.StringUtils.*;
 public class PolishTweetProcessor {
 
     private final LanguageDetectionService languageDetectionService;
-    private final TextNormalizer textNormalizer;
+    private final ContentAnalysisCache contentAnalysisCache;
+    private final TextNormalizerFactory textNormalizerFactory;
     private final TextTokenizer textTokenizer;
+    private final TokenVocabulary tokenVocabulary;
     private final ObjectMapper objectMapper;
 
+    @Value("${app.processing.normalizer-engine:FUSED}")
+    private NormalizerEngineLabel normalizerEngine;
+
+    // kolumny JSON są widokiem zgodności (eksport CSV, starsze narzędzia) - analizy czytają token_ids / lemma_ids
+    @Value("${app.processing.store-json-tokens:true}")
+    private boolean storeJsonTokens;
+
     /**
      * Przetwarza tweet bez zapisywania do bazy danych (zapisuje po powrocie cały batch)
      * @param tweet tweet do przetworzenia
@@ -37,21 +54,39 @@ public class PolishTweetProcessor {
             return null;
         }
 
-        if(!languageDetectionService.isPolish(tweet.getContent().trim())) {
+        String contentHash = ContentHasher.sha256(tweet.getContent());
+        ContentAnalysis analysis = contentAnalysisCache.get(contentHash);
+        if (analysis == null) {
+            analysis = detectLanguage(contentHash, tweet.getContent());
+        }
+
+        if(!analysis.isPolish()) {
             log.debug("Tweet {} nie jest po polsku", tweet.getId());
             return null;
         }
 
         try {
-            String normalizedText = textNormalizer.normalize(tweet.getContent());
-            List<String> tokens = textTokenizer.tokenize(normalizedText);
-            List<String> lemmatizedTokens = textTokenizer.lemmatizeTokens(tokens);
+            String normalizedText = analysis.getNormalizedContent();
+            if (normalizedText == null || !Objects.equals(analysis.getNormalizerVersion(), NORMALIZATION_VERSION)) {
+                normalizedText = textNormalizerFactory.choose(normalizerEngine).normalize(tweet.getContent());
+                contentAnalysisCache.put(analysis.toBuilder()
+                        .normalizedContent(normalizedText)
+                        .normalizerVersion(NORMALIZATION_VERSION)
+                        .build());
+            }
+
+            TextTokenizer.TokenizedText tokenized = textTokenizer.tokenizeAndLemmatize(normalizedText);
+            List<String> tokens = tokenized.tokens();
+            List<String> lemmatizedTokens = tokenized.lemmas();
 
             return ProcessedTweet.builder()
                     .originalTweet(tweet)
+                    .sourceContentHash(contentHash)
                     .normalizedContent(normalizedText)
-                    .tokens(convertTokensToJson(tokens))
-                    .tokensLemmatized(convertTokensToJson(lemmatizedTokens))
+                    .tokens(storeJsonTokens ? convertTokensToJson(tokens) : null)
+                    .tokensLemmatized(storeJsonTokens ? convertTokensToJson(lemmatizedTokens) : null)
+                    .tokenIds(tokenVocabulary.encode(tokens))
+                    .lemmaIds(tokenVocabulary.encode(lemmatizedTokens))
                     .tokenCount(tokens.size())
                     .processedDate(LocalDateTime.now())
                     .build();
@@ -62,6 +97,26 @@ public class PolishTweetProcessor {
         }
     }
 
+    /**
+     * Wykrywa język treści i zapamiętuje wynik w cache (poza tekstami polskimi,
+     * które trafią do cache razem ze znormalizowaną treścią, oraz błędami detekcji)
+     */
+    private ContentAnalysis detectLanguage(String contentHash, String content) {
+        LanguageDetection detection = languageDetectionService.detect(content.trim());
+        ContentAnalysis analysis = ContentAnalysis.builder()
+                .contentHash(contentHash)
+                .language(detection.language())
+                .confidence(detection.confidence())
+                .detectionMethod(detection.method())
+                .createdDate(LocalDateTime.now())
+                .build();
+
+        if (!detection.isPolish() && detection.method() != LanguageDetectionMethodLabel.ERROR) {
+            contentAnalysisCache.put(analysis);
+        }
+        return analysis;
+    }
+
     private String convertTokensToJson(List<String> tokens) {
         try {
             return objectMapper.writeValueAsString(tokens);
@@ -0,0 +1,146 @@
+package pl.bgnat.master.xsnts.normalization.service.processing;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bgnat.master.xsnts.normalization.dto.ProcessingRunStatusDTO;
+import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
+import pl.bgnat.master.xsnts.normalization.model.ProcessingRun;
+import pl.bgnat.master.xsnts.normalization.repository.ProcessedTweetRepository;
+import pl.bgnat.master.xsnts.normalization.repository.ProcessingRunRepository;
+import pl.bgnat.master.xsnts.scrapper.repository.TweetRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static pl.bgnat.master.xsnts.normalization.dto.ProcessingRunStatusLabel.*;
+
+/**
+ * Serwis zarządzający przebiegami przetwarzania tweetów i ich checkpointami.
+ * Każda paczka zapisywana jest w osobnej transakcji razem z przesunięciem watermarku,
+ * więc po awarii kolejne uruchomienie wznawia przebieg od ostatniej zatwierdzonej paczki.
+ * W tej samej transakcji zapisywane są nowe tokeny {@link TokenVocabulary} i wpisy {@link ContentAnalysisCache}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProcessingCheckpointService {
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 2000;
+
+    private final ProcessingRunRepository processingRunRepository;
+    private final ProcessedTweetRepository processedTweetRepository;
+    private final TweetRepository tweetRepository;
+    private final ContentAnalysisCache contentAnalysisCache;
+    private final TokenVocabulary tokenVocabulary;
+
+    /**
+     * Przebiegi, które w bazie mają status RUNNING po starcie aplikacji, zostały przerwane
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void markInterruptedRuns() {
+        int interrupted = processingRunRepository.updateStatus(RUNNING, INTERRUPTED, LocalDateTime.now());
+        if (interrupted > 0) {
+            log.warn("Oznaczono {} przerwanych przebiegów przetwarzania - zostaną wznowione przy następnym uruchomieniu", interrupted);
+        }
+    }
+
+    /**
+     * Wznawia ostatni niezakończony przebieg albo rozpoczyna nowy
+     * @return przebieg w statusie RUNNING
+     */
+    @Transactional
+    public ProcessingRun startOrResume() {
+        LocalDateTime now = LocalDateTime.now();
+        ProcessingRun run = processingRunRepository.findTopByStatusNotOrderByStartedAtDesc(COMPLETED)
+                .map(unfinished -> {
+                    log.info("Wznawiam przebieg {} ({}) od tweeta o id > {}",
+                            unfinished.getId(), unfinished.getStatus(), unfinished.getLastTweetId());
+                    unfinished.setResumeCount(unfinished.getResumeCount() + 1);
+                    unfinished.setErrorMessage(null);
+                    return unfinished;
+                })
+                .orElseGet(() -> ProcessingRun.builder()
+                        .startedAt(now)
+                        .build());
+
+        long remaining = tweetRepository.countUnprocessedAfterId(run.getLastTweetId());
+        run.setTotalToProcess(run.getProcessedCount() + run.getSkippedCount() + remaining);
+        run.setStatus(RUNNING);
+        run.setUpdatedAt(now);
+        return processingRunRepository.save(run);
+    }
+
+    /**
+     * Zapisuje paczkę przetworzonych tweetów i checkpoint w jednej transakcji
+     * @param skippedCount łączna liczba odrzuconych tweetów w przebiegu
+     */
+    @Transactional
+    public void commitBatch(Long runId, List<ProcessedTweet> batch, long watermark, long skippedCount) {
+        tokenVocabulary.flushPending();
+        processedTweetRepository.saveAll(batch);
+        contentAnalysisCache.flushPending();
+
+        ProcessingRun run = getRun(runId);
+        run.setProcessedCount(run.getProcessedCount() + batch.size());
+        run.setSkippedCount(skippedCount);
+        run.setLastTweetId(Math.max(run.getLastTweetId(), watermark));
+        run.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Transactional
+    public void complete(Long runId) {
+        ProcessingRun run = getRun(runId);
+        LocalDateTime now = LocalDateTime.now();
+        run.setStatus(COMPLETED);
+        run.setUpdatedAt(now);
+        run.setFinishedAt(now);
+    }
+
+    @Transactional
+    public void fail(Long runId, String errorMessage) {
+        ProcessingRun run = getRun(runId);
+        run.setStatus(FAILED);
+        run.setUpdatedAt(LocalDateTime.now());
+        run.setErrorMessage(errorMessage == null || errorMessage.length() <= MAX_ERROR_MESSAGE_LENGTH
+                ? errorMessage
+                : errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProcessingRunStatusDTO> getLatestRunStatus() {
+        return processingRunRepository.findTopByOrderByStartedAtDesc()
+                .map(this::toStatus);
+    }
+
+    private ProcessingRunStatusDTO toStatus(ProcessingRun run) {
+        long done = run.getProcessedCount() + run.getSkippedCount();
+        Long total = run.getTotalToProcess();
+        double progress = total == null || total == 0 ? 100.0 : Math.min(100.0, (double) done / total * 100);
+
+        return ProcessingRunStatusDTO.builder()
+                .runId(run.getId())
+                .status(run.getStatus())
+                .lastTweetId(run.getLastTweetId())
+                .processedCount(run.getProcessedCount())
+                .skippedCount(run.getSkippedCount())
+                .totalToProcess(total)
+                .progress(Math.round(progress * 100.0) / 100.0)
+                .resumeCount(run.getResumeCount())
+                .startedAt(run.getStartedAt())
+                .updatedAt(run.getUpdatedAt())
+                .finishedAt(run.getFinishedAt())
+                .errorMessage(run.getErrorMessage())
+                .build();
+    }
+
+    private ProcessingRun getRun(Long runId) {
+        return processingRunRepository.findById(runId)
+                .orElseThrow(() -> new IllegalStateException("Nie znaleziono przebiegu przetwarzania: " + runId));
+    }
+}
@@ -4,6 +4,7 @@ import com.ibm.icu.text.Transliterator;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import pl.bgnat.master.xsnts.normalization.dto.NormalizerEngineLabel;
 
 import java.util.regex.Pattern;
 
@@ -18,8 +19,8 @@ import static pl.bgnat.master.xsnts.normalization.utils.PatternMatcher.*;
 @Slf4j
 @Component
 @AllArgsConstructor
-public class TextNormalizer {
-    private static final String USER_PLACEHOLDER = " @ANONYMIZED ";
+public class TextNormalizer implements TextNormalizerEngine {
+    static final String USER_PLACEHOLDER = " @ANONYMIZED ";
     private static final String NUMBER_PLACEHOLDER = " ";
     private static final Transliterator UNICODE_NORMALIZER = Transliterator.getInstance("NFKC");
 
@@ -32,9 +33,15 @@ public class TextNormalizer {
     private final Pattern multiHashPattern  = createMultiHashPattern();
     private final Pattern orphanHashPattern = createOrphanHashPattern();
 
+    @Override
+    public NormalizerEngineLabel getEngineLabel() {
+        return NormalizerEngineLabel.REGEX;
+    }
+
     /**
      * Wykonuje pełen proces normalizacji i tokenizacji tekstu.
      */
+    @Override
     public String normalize(String text) {
         validateInput(text);
 
@@ -0,0 +1,30 @@
+package pl.bgnat.master.xsnts.normalization.service.processing;
+
+import pl.bgnat.master.xsnts.normalization.dto.NormalizerEngineLabel;
+
+/**
+ * Interfejs silnika normalizacji tekstu tweetów.
+ * Wszystkie implementacje muszą zwracać identyczny wynik dla tego samego wejścia,
+ * różnią się wyłącznie sposobem wykonania.
+ */
+public interface TextNormalizerEngine {
+
+    /**
+     * Wersja reguł normalizacji - zwiększyć przy każdej zmianie wyniku normalizacji,
+     * aby unieważnić znormalizowane treści zapisane w content_analysis_cache
+     */
+    int NORMALIZATION_VERSION = 1;
+
+    /**
+     * Normalizuje tekst tweeta
+     * @param text tekst do normalizacji (niepusty)
+     * @return znormalizowany tekst
+     */
+    String normalize(String text);
+
+    /**
+     * Zwraca etykietę silnika
+     * @return etykieta silnika
+     */
+    NormalizerEngineLabel getEngineLabel();
+}
@@ -0,0 +1,20 @@
+package pl.bgnat.master.xsnts.normalization.service.processing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import pl.bgnat.master.xsnts.normalization.dto.NormalizerEngineLabel;
+
+@Component
+@RequiredArgsConstructor
+public class TextNormalizerFactory {
+
+    private final TextNormalizer regexNormalizer;
+    private final FusedTextNormalizer fusedNormalizer;
+
+    public TextNormalizerEngine choose(NormalizerEngineLabel engine) {
+        return switch (engine) {
+            case REGEX -> regexNormalizer;
+            case FUSED -> fusedNormalizer;
+        };
+    }
+}
@@ -2,7 +2,6 @@ package pl.bgnat.master.xsnts.normalization.service.processing;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import pl.bgnat.master.xsnts.normalization.utils.TextStemmerPL;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,12 +15,21 @@ import static pl.bgnat.master.xsnts.normalization.utils.StopWordsManager.loadSto
 @Slf4j
 @Component
 public class TextTokenizer {
+    private static final int INITIAL_BUFFER_SIZE = 64;
+
     private final Set<String> stopWords;
+    private final LemmaCache lemmaCache;
+
+    // bufory robocze jednoprzebiegowej tokenizacji, osobne dla każdego wątku pipeline'u
+    private final ThreadLocal<ScanBuffers> scanBuffers = ThreadLocal.withInitial(ScanBuffers::new);
 
-    public TextTokenizer() {
+    public TextTokenizer(LemmaCache lemmaCache) {
         log.info("Inicjalizacja TextTokenizer - rozpoczynam ładowanie wzorców i słów stop");
 
-        this.stopWords = loadStopWords();
+        this.stopWords = loadStopWords().stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toUnmodifiableSet());
+        this.lemmaCache = lemmaCache;
 
         log.info("TextTokenizer zainicjalizowany. Załadowano {} słów stop", stopWords.size());
     }
@@ -54,8 +62,69 @@ public class TextTokenizer {
         return tokens;
     }
 
+    /**
+     * Lematyzuje tokeny przez współdzielony {@link LemmaCache}
+     */
     public List<String> lemmatizeTokens(List<String> tokens) {
-        return tokens.stream().map(TextStemmerPL::lemmatize).toList();
+        return tokens.stream().map(lemmaCache::lemmatize).toList();
+    }
+
+    /**
+     * Tokenizuje i lematyzuje znormalizowany tekst w jednym przebiegu - wynik równy
+     * {@code tokenize(text)} i {@code lemmatizeTokens(tokenize(text))}, ale bez split/regex,
+     * strumieni i drugiego przejścia po liście.
+     * Tekst po normalizacji jest już małymi literami, więc token zamieniany jest na małe litery
+     * (na potrzeby sprawdzenia słów stop) tylko wtedy, gdy podczas skanowania trafiono na wielką literę.
+     *
+     * @param normalizedText znormalizowany tekst do tokenizacji
+     * @return tokeny i ich lematy (listy o tej samej długości)
+     */
+    public TokenizedText tokenizeAndLemmatize(String normalizedText) {
+        if (!hasLength(normalizedText)) {
+            return TokenizedText.EMPTY;
+        }
+
+        ScanBuffers buffers = scanBuffers.get();
+        int count = 0;
+        int length = normalizedText.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isSeparator(normalizedText.charAt(i))) i++;
+            if (i == length) break;
+
+            int start = i;
+            boolean needsLowerCase = false;
+            while (i < length) {
+                char c = normalizedText.charAt(i);
+                if (isSeparator(c)) break;
+                needsLowerCase |= Character.isSurrogate(c) || Character.toLowerCase(c) != c;
+                i++;
+            }
+
+            String token = normalizedText.substring(start, i);
+            if (stopWords.contains(needsLowerCase ? token.toLowerCase() : token)) continue;
+
+            buffers.ensureCapacity(count + 1);
+            buffers.tokens[count] = token;
+            buffers.lemmas[count] = lemmaCache.lemmatize(token);
+            count++;
+        }
+
+        if (count == 0) {
+            return TokenizedText.EMPTY;
+        }
+        TokenizedText result = new TokenizedText(
+                Arrays.asList(Arrays.copyOf(buffers.tokens, count)),
+                Arrays.asList(Arrays.copyOf(buffers.lemmas, count)));
+        buffers.clear(count);
+        return result;
+    }
+
+    /**
+     * Separatory zgodne z {@code split("\\s+")}: [ \t\n\x0B\f\r]
+     */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     private boolean isValidToken(String token) {
@@ -65,4 +134,29 @@ public class TextTokenizer {
     private boolean isNotStopWord(String token) {
         return !stopWords.contains(token.toLowerCase());
     }
+
+    /**
+     * Tokeny tekstu i odpowiadające im lematy
+     */
+    public record TokenizedText(List<String> tokens, List<String> lemmas) {
+        public static final TokenizedText EMPTY = new TokenizedText(List.of(), List.of());
+    }
+
+    private static final class ScanBuffers {
+        private String[] tokens = new String[INITIAL_BUFFER_SIZE];
+        private String[] lemmas = new String[INITIAL_BUFFER_SIZE];
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > tokens.length) {
+                tokens = Arrays.copyOf(tokens, tokens.length * 2);
+                lemmas = Arrays.copyOf(lemmas, lemmas.length * 2);
+            }
+        }
+
+        // nie przetrzymujemy referencji do tokenów poprzedniego tweeta
+        private void clear(int count) {
+            Arrays.fill(tokens, 0, count, null);
+            Arrays.fill(lemmas, 0, count, null);
+        }
+    }
 }
@@ -0,0 +1,224 @@
+package pl.bgnat.master.xsnts.normalization.service.processing;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.bgnat.master.xsnts.normalization.dto.TokenStrategyLabel;
+import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
+import pl.bgnat.master.xsnts.normalization.model.VocabularyToken;
+import pl.bgnat.master.xsnts.normalization.repository.VocabularyTokenRepository;
+import pl.bgnat.master.xsnts.normalization.utils.VarIntCodec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.util.StringUtils.hasLength;
+import static pl.bgnat.master.xsnts.normalization.repository.VocabularyTokenRepository.QUERY_INSERT_IGNORE;
+
+/**
+ * Wspólny słownik tokenów oraz koder/dekoder kolumn token_ids i lemma_ids.
+ * <p>
+ * Przetwarzanie zapisuje tokeny jako tablicę identyfikatorów (varint w bytea), a analizy
+ * (pooling, sentyment, topic modeling) odczytują je przez {@link #tokensOf} bez parsowania JSON -
+ * zdekodowane tokeny to te same instancje String co w słowniku.
+ * Dla rekordów sprzed wprowadzenia kolumn z identyfikatorami {@link #tokensOf} czyta kolumny JSON.
+ * <p>
+ * Słownik ładowany jest z tabeli token_vocabulary przy pierwszym użyciu. Nowe tokeny dostają kolejne identyfikatory
+ * w pamięci i są zapisywane w transakcji paczki ({@link #flushPending}); po wycofaniu transakcji wracają do bufora.
+ */
+@Slf4j
+@Component
+public class TokenVocabulary {
+
+    private static final TypeReference<List<String>> TOKEN_LIST = new TypeReference<>() {};
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final VocabularyTokenRepository vocabularyTokenRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Integer> idsByToken = new ConcurrentHashMap<>(INITIAL_CAPACITY);
+    private final Map<Integer, String> pending = new ConcurrentHashMap<>();
+    private volatile String[] tokensById = new String[INITIAL_CAPACITY];
+    private volatile boolean loaded;
+    private int maxId;
+
+    public TokenVocabulary(VocabularyTokenRepository vocabularyTokenRepository,
+                           JdbcTemplate jdbcTemplate,
+                           ObjectMapper objectMapper) {
+        this.vocabularyTokenRepository = vocabularyTokenRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Koduje tokeny do kolumny token_ids / lemma_ids, nadając identyfikatory nowym tokenom
+     */
+    public byte[] encode(List<String> tokens) {
+        ensureLoaded();
+        int[] ids = new int[tokens.size()];
+        for (int i = 0; i < ids.length; i++) {
+            String token = tokens.get(i);
+            Integer id = idsByToken.get(token);
+            ids[i] = id != null ? id : assignId(token);
+        }
+        return VarIntCodec.encode(ids);
+    }
+
+    /**
+     * Dekoduje kolumnę token_ids / lemma_ids
+     */
+    public List<String> decode(byte[] encoded) {
+        ensureLoaded();
+        int[] ids = VarIntCodec.decode(encoded);
+        String[] tokens = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            tokens[i] = tokenOf(ids[i]);
+        }
+        return Arrays.asList(tokens);
+    }
+
+    /**
+     * Zwraca tokeny przetworzonego tweeta wg strategii - z kolumny identyfikatorów, a gdy jej brak z JSON
+     * @return lista tokenów (pusta, gdy tweet nie ma tokenów lub JSON jest niepoprawny)
+     */
+    public List<String> tokensOf(ProcessedTweet tweet, TokenStrategyLabel strategy) {
+        return strategy == TokenStrategyLabel.LEMMATIZED
+                ? tokensOf(tweet.getLemmaIds(), tweet.getTokensLemmatized(), tweet.getId())
+                : tokensOf(tweet.getTokenIds(), tweet.getTokens(), tweet.getId());
+    }
+
+    /**
+     * Zwraca tokeny z pary kolumn (identyfikatory, JSON) - np. z projekcji bez encji ProcessedTweet
+     * @param processedTweetId id rekordu (tylko do logowania)
+     */
+    public List<String> tokensOf(byte[] ids, String json, Long processedTweetId) {
+        if (ids != null) {
+            return decode(ids);
+        }
+        if (!hasLength(json)) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json, TOKEN_LIST);
+        } catch (Exception e) {
+            log.warn("Błąd parsowania tokenów JSON tweeta {}: {}", processedTweetId, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Zwraca tokeny w formacie kolumn JSON (dla eksportu) - zapisany JSON albo zdekodowane identyfikatory
+     */
+    public String tokensAsJson(ProcessedTweet tweet, TokenStrategyLabel strategy) {
+        String json = strategy == TokenStrategyLabel.LEMMATIZED ? tweet.getTokensLemmatized() : tweet.getTokens();
+        if (json != null) {
+            return json;
+        }
+        try {
+            return objectMapper.writeValueAsString(tokensOf(tweet, strategy));
+        } catch (Exception e) {
+            log.warn("Błąd konwersji tokenów tweeta {} do JSON: {}", tweet.getId(), e.getMessage());
+            return "[]";
+        }
+    }
+
+    /**
+     * Zapisuje nowe tokeny słownika. Wywoływane w transakcji zapisu paczki przetworzonych tweetów.
+     */
+    public int flushPending() {
+        if (pending.isEmpty()) return 0;
+
+        List<VocabularyToken> toSave = new ArrayList<>(pending.size());
+        for (Map.Entry<Integer, String> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                toSave.add(new VocabularyToken(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        jdbcTemplate.batchUpdate(QUERY_INSERT_IGNORE, toSave, toSave.size(), (ps, token) -> {
+            ps.setInt(1, token.getId());
+            ps.setString(2, token.getToken());
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        // tweety z tymi identyfikatorami też nie zostały zapisane, ale słownik w pamięci je zna
+                        toSave.forEach(token -> pending.put(token.getId(), token.getToken()));
+                    }
+                }
+            });
+        }
+        return toSave.size();
+    }
+
+    public int size() {
+        ensureLoaded();
+        return idsByToken.size();
+    }
+
+    private String tokenOf(int id) {
+        String[] tokens = tokensById;
+        String token = id < tokens.length ? tokens[id] : null;
+        if (token != null) {
+            return token;
+        }
+
+        synchronized (this) {
+            tokens = tokensById;
+            token = id < tokens.length ? tokens[id] : null;
+        }
+        if (token == null) {
+            throw new IllegalStateException("Brak tokenu o identyfikatorze " + id + " w słowniku");
+        }
+        return token;
+    }
+
+    private synchronized int assignId(String token) {
+        Integer existing = idsByToken.get(token);
+        if (existing != null) {
+            return existing;
+        }
+
+        int id = ++maxId;
+        store(id, token);
+        pending.put(id, token);
+        return id;
+    }
+
+    private void store(int id, String token) {
+        String[] tokens = tokensById;
+        if (id >= tokens.length) {
+            tokens = Arrays.copyOf(tokens, Math.max(id + 1, tokens.length * 2));
+        }
+        tokens[id] = token;
+        tokensById = tokens;
+        idsByToken.put(token, id);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+
+        synchronized (this) {
+            if (loaded) return;
+
+            long start = System.currentTimeMillis();
+            for (VocabularyToken vocabularyToken : vocabularyTokenRepository.findAll()) {
+                store(vocabularyToken.getId(), vocabularyToken.getToken());
+                maxId = Math.max(maxId, vocabularyToken.getId());
+            }
+            loaded = true;
+            log.info("Wczytano słownik tokenów: {} tokenów w {} ms", idsByToken.size(), System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package pl.bgnat.master.xsnts.normalization.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ograniczony, współbieżny cache LRU z licznikami trafień, chybień i usunięć.
+ * <p>
+ * Podzielony na segmenty (każdy to LinkedHashMap w porządku dostępu z własną blokadą),
+ * dzięki czemu wątki rzadko na siebie czekają. Pojemności segmentów sumują się dokładnie do limitu (reszta z dzielenia
+ * trafia do pierwszych segmentów), a przy małym limicie segmentów jest mniej (potęga 2 nie większa niż limit),
+ * więc żaden nie ma pojemności 0 ani nie zawyża łącznego rozmiaru.
+ * Pojemność 0 wyłącza cache - get zawsze zwraca null, put nic nie zapisuje.
+ */
+public class ConcurrentLruCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 64;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLruCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        // liczba segmentów musi być potęgą 2 (wybór segmentu maską hasha)
+        int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, this.maxSize)));
+        int segmentCapacity = this.maxSize / segmentCount;
+        int remainder = this.maxSize % segmentCount;
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity + (i < remainder ? 1 : 0));
+        }
+    }
+
+    /**
+     * @return wartość z cache albo null (liczone jako chybienie)
+     */
+    public V get(K key) {
+        V value = maxSize == 0 ? null : segmentFor(key).get(key);
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    public void put(K key, V value) {
+        if (maxSize == 0) return;
+        if (segmentFor(key).put(key, value)) {
+            evictions.increment();
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public Stats getStats() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, maxSize);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & segmentMask];
+    }
+
+    public record Stats(long hits, long misses, long evictions, long size, long maxSize) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("trafienia=%d, chybienia=%d (trafialność %.1f%%), usunięte=%d, rozmiar=%d/%d",
+                    hits, misses, hitRate() * 100, evictions, size, maxSize);
+        }
+    }
+
+    /**
+     * Segment LRU - LinkedHashMap w porządku dostępu, chroniony własną blokadą
+     */
+    private static final class Segment<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<K, V> entries;
+        private boolean evicted;
+
+        private Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    evicted = size() > capacity;
+                    return evicted;
+                }
+            };
+        }
+
+        private V get(K key) {
+            lock.lock();
+            try {
+                return entries.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return true, jeśli wstawienie usunęło najdawniej używany wpis
+         */
+        private boolean put(K key, V value) {
+            lock.lock();
+            try {
+                evicted = false;
+                entries.put(key, value);
+                return evicted;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void clear() {
+            lock.lock();
+            try {
+                entries.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
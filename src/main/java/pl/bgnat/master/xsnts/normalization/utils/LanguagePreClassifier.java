@@ -0,0 +1,167 @@
+package pl.bgnat.master.xsnts.normalization.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Tani, jednoprzebiegowy klasyfikator wstępny przed Lingua.
+ * <p>
+ * Rozstrzyga wyłącznie oczywiste przypadki:
+ * <ul>
+ *     <li>przewaga liter spoza alfabetu łacińskiego (cyrylica, arabski, CJK...) - NIE polski,</li>
+ *     <li>wysoki udział polskich słów funkcyjnych i słów z polskimi znakami diakrytycznymi - polski,</li>
+ *     <li>wysoki udział angielskich słów funkcyjnych przy braku polskich sygnałów - NIE polski.</li>
+ * </ul>
+ * Pozostałe teksty (krótkie, mieszane, bez sygnałów) zwracają {@link Verdict#UNKNOWN} i trafiają do Lingua.
+ * Adresy URL, wzmianki i hashtagi są pomijane - nie niosą informacji o języku tweeta.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LanguagePreClassifier {
+
+    public enum Verdict {
+        POLISH,
+        NOT_POLISH,
+        UNKNOWN
+    }
+
+    private static final int MIN_WORDS = 3;
+    private static final double NON_LATIN_RATIO = 0.5;
+    private static final double POLISH_SIGNAL_RATIO = 0.4;
+    private static final double POLISH_ONLY_SIGNAL_RATIO = 0.3;
+    private static final double ENGLISH_SIGNAL_RATIO = 0.3;
+    private static final int MIN_ENGLISH_WORDS = 4;
+
+    // słowa funkcyjne charakterystyczne dla polskiego (bez form wspólnych z angielskim/romańskimi jak "to", "do", "we", "tu")
+    private static final Set<String> POLISH_MARKERS = Set.of(
+            "się", "nie", "że", "jest", "jak", "ale", "czy", "już", "tylko", "przez", "dla", "jego", "jej",
+            "mnie", "tego", "tej", "też", "oraz", "więc", "gdzie", "kiedy", "bardzo", "może", "będzie", "są",
+            "był", "była", "było", "byli", "jestem", "jesteś", "który", "która", "które", "których", "tym",
+            "tak", "wszystko", "nawet", "teraz", "jeszcze", "tutaj", "w", "z", "ze", "od", "po", "za", "pod",
+            "nad", "i", "co", "ich", "mi", "mu", "ją", "sobie", "jeśli", "bo", "gdy", "aby", "żeby", "niż",
+            "lub", "albo", "czyli", "mam", "można", "trzeba", "ktoś", "coś", "nic", "nikt", "dzisiaj", "dziś",
+            "wczoraj", "jutro", "chyba"
+    );
+
+    private static final Set<String> ENGLISH_MARKERS = Set.of(
+            "the", "and", "is", "are", "was", "were", "of", "to", "you", "this", "that", "with", "for", "have",
+            "has", "it", "in", "on", "be", "will", "would", "not", "but", "they", "we", "he", "she", "his", "her",
+            "my", "your", "our", "what", "who", "when", "where", "why", "how", "just", "from", "about", "there",
+            "their", "been", "can", "all", "if", "do", "does", "did", "an", "at", "by", "so", "i", "me", "its"
+    );
+
+    /**
+     * Klasyfikuje tekst tweeta (treść oryginalna, przed normalizacją)
+     * @param text treść tweeta
+     * @return werdykt; UNKNOWN oznacza konieczność pełnej detekcji
+     */
+    public static Verdict classify(String text) {
+        Counters counters = new Counters();
+        StringBuilder word = new StringBuilder(24);
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            // początek tokenu oddzielonego białymi znakami
+            while (i < length && Character.isWhitespace(text.charAt(i))) i++;
+            int tokenStart = i;
+            while (i < length && !Character.isWhitespace(text.charAt(i))) i++;
+            if (tokenStart == i || isSkippedToken(text, tokenStart)) continue;
+
+            scanToken(text, tokenStart, i, word, counters);
+        }
+
+        return decide(counters);
+    }
+
+    private static boolean isSkippedToken(String text, int start) {
+        char first = text.charAt(start);
+        return first == '@' || first == '#'
+                || text.startsWith("http", start)
+                || text.startsWith("www.", start);
+    }
+
+    /**
+     * Dzieli token na słowa (ciągi liter), liczy litery wg pisma i trafienia w słowa funkcyjne
+     */
+    private static void scanToken(String text, int start, int end, StringBuilder word, Counters counters) {
+        word.setLength(0);
+        boolean hasDiacritic = false;
+
+        int i = start;
+        while (i <= end) {
+            int cp = i < end ? text.codePointAt(i) : ' ';
+            if (i < end && Character.isLetter(cp)) {
+                if (Character.UnicodeScript.of(cp) == Character.UnicodeScript.LATIN) {
+                    counters.latinLetters++;
+                    int lower = Character.toLowerCase(cp);
+                    hasDiacritic |= isPolishDiacritic(lower);
+                    word.appendCodePoint(lower);
+                } else {
+                    counters.otherLetters++;
+                }
+            } else if (!word.isEmpty()) {
+                countWord(word.toString(), hasDiacritic, counters);
+                word.setLength(0);
+                hasDiacritic = false;
+            }
+            i += i < end ? Character.charCount(cp) : 1;
+        }
+    }
+
+    private static void countWord(String word, boolean hasDiacritic, Counters counters) {
+        counters.words++;
+        if (POLISH_MARKERS.contains(word)) {
+            counters.polishMarkers++;
+        } else if (hasDiacritic) {
+            counters.diacriticWords++;
+        }
+        if (ENGLISH_MARKERS.contains(word)) {
+            counters.englishMarkers++;
+        }
+    }
+
+    private static Verdict decide(Counters c) {
+        int letters = c.latinLetters + c.otherLetters;
+        if (letters == 0) {
+            return Verdict.UNKNOWN;
+        }
+        if ((double) c.otherLetters / letters >= NON_LATIN_RATIO) {
+            return Verdict.NOT_POLISH;
+        }
+        if (c.words < MIN_WORDS) {
+            return Verdict.UNKNOWN;
+        }
+
+        int polishSignals = c.polishMarkers + c.diacriticWords;
+        double polishRatio = (double) polishSignals / c.words;
+        if (polishRatio >= POLISH_SIGNAL_RATIO && polishSignals >= 2 * c.englishMarkers) {
+            return Verdict.POLISH;
+        }
+        if (polishRatio >= POLISH_ONLY_SIGNAL_RATIO && polishSignals >= 2 && c.englishMarkers == 0) {
+            return Verdict.POLISH;
+        }
+        if (c.words >= MIN_ENGLISH_WORDS && polishSignals == 0
+                && (double) c.englishMarkers / c.words >= ENGLISH_SIGNAL_RATIO) {
+            return Verdict.NOT_POLISH;
+        }
+        return Verdict.UNKNOWN;
+    }
+
+    private static boolean isPolishDiacritic(int cp) {
+        return switch (cp) {
+            case 'ą', 'ć', 'ę', 'ł', 'ń', 'ś', 'ź', 'ż' -> true;
+            default -> false;
+        };
+    }
+
+    private static final class Counters {
+        private int latinLetters;
+        private int otherLetters;
+        private int words;
+        private int polishMarkers;
+        private int diacriticWords;
+        private int englishMarkers;
+    }
+}
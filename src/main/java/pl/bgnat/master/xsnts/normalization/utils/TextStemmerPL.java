@@ -6,18 +6,21 @@ import morfologik.stemming.WordData;
 import morfologik.stemming.polish.PolishStemmer;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class TextStemmerPL {
 
     private static final ThreadLocal<PolishStemmer> TL_STEMMER = ThreadLocal.withInitial(PolishStemmer::new);
+    private static final Pattern DIGIT_PATTERN = Pattern.compile("\\d");
+    private static final Pattern CAMEL_CASE_PATTERN = Pattern.compile("[a-z][A-Z]");
 
     public static String lemmatize(String token) {
         if (token.startsWith("#")) {
             String hashtag = token.substring(1);
 
             // Jeśli hashtag zawiera cyfry lub jest dłuższy niż jedno słowo, zostawiamy bez zmian
-            if (hashtag.matches(".*\\d.*") || hashtag.contains("_") || isCamelCase(hashtag)) {
+            if (DIGIT_PATTERN.matcher(hashtag).find() || hashtag.contains("_") || isCamelCase(hashtag)) {
                 return token;
             }
 
@@ -32,7 +35,7 @@ public final class TextStemmerPL {
     }
 
     private static boolean isCamelCase(String s) {
-        return s.matches(".*[a-z][A-Z].*");
+        return CAMEL_CASE_PATTERN.matcher(s).find();
     }
 
 }
@@ -0,0 +1,61 @@
+package pl.bgnat.master.xsnts.normalization.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * Kodowanie tablicy nieujemnych identyfikatorów tokenów jako varint (LEB128, 7 bitów na bajt).
+ * Identyfikatory częstych tokenów są małe, więc większość zajmuje 1-2 bajty zamiast ~8-10 znaków w JSON.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class VarIntCodec {
+
+    private static final int MAX_VARINT_BYTES = 5;
+
+    public static byte[] encode(int[] values) {
+        byte[] buffer = new byte[values.length * MAX_VARINT_BYTES];
+        int position = 0;
+        for (int value : values) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Ujemny identyfikator tokenu: " + value);
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    public static int[] decode(byte[] encoded) {
+        int[] values = new int[count(encoded)];
+        int index = 0;
+        int value = 0;
+        int shift = 0;
+        for (byte b : encoded) {
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                values[index++] = value;
+                value = 0;
+                shift = 0;
+            } else {
+                shift += 7;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Liczba zakodowanych wartości - liczba bajtów bez bitu kontynuacji
+     */
+    public static int count(byte[] encoded) {
+        int count = 0;
+        for (byte b : encoded) {
+            if ((b & 0x80) == 0) count++;
+        }
+        return count;
+    }
+}
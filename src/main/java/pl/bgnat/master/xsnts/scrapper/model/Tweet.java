@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import pl.bgnat.master.xsnts.scrapper.utils.ContentHasher;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -41,6 +42,8 @@ public class Tweet {
     private String username;        // @nazwa_uzytkownika
     @Column(name = "content", length = 4000)
     private String content;
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;     // SHA-256 treści, porównywany z processed_tweet.source_content_hash
     @Column(name = "link", nullable = false, unique = true)
     private String link;
 
@@ -65,6 +68,12 @@ public class Tweet {
     @Column(name = "needs_refresh", nullable = false)
     private boolean needsRefresh = true;
 
+    @PrePersist
+    @PreUpdate
+    void updateContentHash() {
+        contentHash = content == null ? null : ContentHasher.sha256(content);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
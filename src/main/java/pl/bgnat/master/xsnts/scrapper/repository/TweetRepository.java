@@ -31,6 +31,34 @@ public interface TweetRepository extends JpaRepository<Tweet, Long> {
         """)
     List<Long> findOldestTweetIds(Pageable pageable);
 
+    @Query("""
+        SELECT t
+        FROM Tweet t
+        WHERE t.id > :lastId
+          AND NOT EXISTS (
+                SELECT 1
+                FROM ProcessedTweet pt
+                WHERE pt.originalTweet.id = t.id
+          )
+        ORDER BY t.id ASC
+        """)
+    List<Tweet> findUnprocessedAfterId(
+            @Param("lastId") long lastId,
+            Pageable pageable
+    );
+
+    @Query("""
+        SELECT COUNT(t)
+        FROM Tweet t
+        WHERE t.id > :lastId
+          AND NOT EXISTS (
+                SELECT 1
+                FROM ProcessedTweet pt
+                WHERE pt.originalTweet.id = t.id
+          )
+        """)
+    long countUnprocessedAfterId(@Param("lastId") long lastId);
+
     boolean existsByLink(String link);
 
     List<Tweet> findByLinkIn(Set<String> links);
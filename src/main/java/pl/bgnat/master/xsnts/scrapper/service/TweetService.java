@@ -98,7 +98,7 @@ public class TweetService {
         existingTweet.setCommentCount(newData.getCommentCount());
         existingTweet.setViews(newData.getViews());
         existingTweet.setMediaLinks(newData.getMediaLinks());
-        existingTweet.setContent(newData.getContent()); // Aktualizuj treść na wypadek edycji
+        existingTweet.setContent(newData.getContent()); // Aktualizuj treść na wypadek edycji (zmiana content_hash oznacza tweet do /reprocess-changed)
         existingTweet.setUpdateDate(LocalDateTime.now());
         existingTweet.setNeedsRefresh(false); // Oznacz jako odświeżony
     }
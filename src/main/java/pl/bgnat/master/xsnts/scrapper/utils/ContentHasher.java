@@ -0,0 +1,33 @@
+package pl.bgnat.master.xsnts.scrapper.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Skrót SHA-256 treści tweeta (hex, 64 znaki) - {@code Tweet.contentHash}, klucz cache wyników analizy treści
+ * i nazwy plików snapshotów korpusu.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ContentHasher {
+
+    public static final int HASH_LENGTH = 64;
+
+    private static final ThreadLocal<MessageDigest> TL_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Brak algorytmu SHA-256", e);
+        }
+    });
+
+    public static String sha256(String content) {
+        MessageDigest digest = TL_DIGEST.get();
+        digest.reset();
+        return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
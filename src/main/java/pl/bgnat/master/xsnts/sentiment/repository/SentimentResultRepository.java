@@ -10,6 +10,7 @@ import pl.bgnat.master.xsnts.normalization.dto.TokenStrategyLabel;
 import pl.bgnat.master.xsnts.sentiment.dto.SentimentStrategyLabel;
 import pl.bgnat.master.xsnts.sentiment.model.SentimentResult;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -22,6 +23,7 @@ public interface SentimentResultRepository extends JpaRepository<SentimentResult
             JOIN FETCH p.originalTweet t
             """;
     String QUERY_SELECT_ALL_PROCESSED_BY_TWEET_ID_IN_LIST = "SELECT sr FROM SentimentResult sr WHERE sr.processedTweet.originalTweet.id IN :tweetIds";
+    String QUERY_DELETE_BY_PROCESSED_TWEET_IDS = "DELETE FROM SentimentResult sr WHERE sr.processedTweet.id IN :processedTweetIds";
 
     @Query(QUERY_SELECT_SENTIMENT_RESULTS)
     List<SentimentResult> findAllWithDependencies();
@@ -29,6 +31,10 @@ public interface SentimentResultRepository extends JpaRepository<SentimentResult
     @Query(QUERY_SELECT_ALL_PROCESSED_BY_TWEET_ID_IN_LIST)
     List<SentimentResult> findAllByProcessedTweetIdIn(@Param("tweetIds") Set<Long> tweetIds);
 
+    @Modifying
+    @Query(QUERY_DELETE_BY_PROCESSED_TWEET_IDS)
+    int deleteAllByProcessedTweetIds(@Param("processedTweetIds") Collection<Long> processedTweetIds);
+
     List<SentimentResult> findAllByProcessedTweetIdInAndTokenStrategyAndSentimentModelStrategy(Set<Long> longs, TokenStrategyLabel tokenStrategyLabel, SentimentStrategyLabel sentimentStrategyLabel);
 
     @Query("SELECT s FROM SentimentResult s " +
@@ -1,7 +1,5 @@
 package pl.bgnat.master.xsnts.sentiment.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,13 +8,13 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
 import pl.bgnat.master.xsnts.normalization.repository.ProcessedTweetRepository;
+import pl.bgnat.master.xsnts.normalization.service.processing.TokenVocabulary;
 import pl.bgnat.master.xsnts.sentiment.dto.SentimentRequest;
 import pl.bgnat.master.xsnts.sentiment.model.SentimentResult;
 import pl.bgnat.master.xsnts.sentiment.repository.SentimentResultRepository;
 import pl.bgnat.master.xsnts.sentiment.service.factory.LexiconCalculator;
 import pl.bgnat.master.xsnts.sentiment.service.factory.SentimentCalculator;
 import pl.bgnat.master.xsnts.sentiment.service.factory.SentimentCalculatorFactory;
-import pl.bgnat.master.xsnts.sentiment.service.components.TokenExtractor;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -37,14 +35,13 @@ public class SentimentAnalysisService {
     private final ProcessedTweetRepository processedTweetRepository;
     private final SentimentResultRepository sentimentResultRepository;
     private final SentimentCalculatorFactory sentimentCalculatorFactory;
-    private final ObjectMapper objectMapper;
+    private final TokenVocabulary tokenVocabulary;
 
 
     @Transactional
     public int analyzeAll(SentimentRequest request) {
 
         SentimentCalculator calculator = sentimentCalculatorFactory.choose(request.sentimentModelStrategy());
-        TokenExtractor extractor = TokenExtractor.of(request.tokenStrategy());
 
         long total = processedTweetRepository.countWithoutSentiment(
                 request.tokenStrategy(),
@@ -65,7 +62,7 @@ public class SentimentAnalysisService {
             List<SentimentResult> buffer = new ArrayList<>(flushBatch);
 
             for (ProcessedTweet tweet : page) {
-                buildResult(tweet, extractor, calculator, request).ifPresent(buffer::add);
+                buildResult(tweet, calculator, request).ifPresent(buffer::add);
 
                 if (buffer.size() == flushBatch) {
                     sentimentResultRepository.saveAll(buffer);
@@ -90,13 +87,10 @@ public class SentimentAnalysisService {
     }
 
     private Optional<SentimentResult> buildResult(ProcessedTweet tweet,
-                                                  TokenExtractor extractor,
                                                   SentimentCalculator calculator,
                                                   SentimentRequest request) {
         try {
-            List<String> tokens = objectMapper.readValue(extractor.extract(tweet),
-                    new TypeReference<>() {
-                    });
+            List<String> tokens = tokenVocabulary.tokensOf(tweet, request.tokenStrategy());
 
             var score = calculator.evaluate(tokens);
 
@@ -2,14 +2,22 @@ package pl.bgnat.master.xsnts.topicmodeling.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicInferenceRequest;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicInferenceResponse;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicInferenceStats;
 import pl.bgnat.master.xsnts.topicmodeling.dto.TopicModelingRequest;
 import pl.bgnat.master.xsnts.topicmodeling.dto.TopicModelingResponse;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TrainingJobStatus;
 import pl.bgnat.master.xsnts.topicmodeling.service.MalletTopicModelingService;
+import pl.bgnat.master.xsnts.topicmodeling.service.TopicInferenceService;
+import pl.bgnat.master.xsnts.topicmodeling.service.TopicTrainingJobService;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 import static java.time.format.DateTimeFormatter.*;
 
@@ -23,12 +31,15 @@ import static java.time.format.DateTimeFormatter.*;
 public class TopicModelingController {
 
     private final MalletTopicModelingService topicModelingService;
+    private final TopicInferenceService topicInferenceService;
+    private final TopicTrainingJobService topicTrainingJobService;
 
     /**
-     * Uruchamia nowy proces topic modeling
+     * Zgłasza nowy proces topic modeling jako zadanie i od razu zwraca jego identyfikator (202 Accepted);
+     * postęp i wynik dostępne są pod /lda/jobs/{jobId}
      */
     @PostMapping("/lda/train")
-    public ResponseEntity<TopicModelingResponse> trainModel(@RequestBody TopicModelingRequest request) {
+    public ResponseEntity<TrainingJobStatus> trainModel(@RequestBody TopicModelingRequest request) {
         log.info("Otrzymano żądanie trenowania modelu: {} tematów", request.getNumberOfTopics());
 
         try {
@@ -36,19 +47,54 @@ public class TopicModelingController {
                 return ResponseEntity.badRequest().build();
             }
 
+            if (request.getTopicsGrid() != null && request.getTopicsGrid().stream().anyMatch(k -> k == null || k < 2)) {
+                return ResponseEntity.badRequest().build();
+            }
+
             if (request.getPoolingStrategy() == null) {
                 request.setPoolingStrategy("hashtag");
             }
 
-            TopicModelingResponse response = topicModelingService.performTopicModeling(request);
-            return ResponseEntity.ok(response);
+            TrainingJobStatus job = topicTrainingJobService.submit(request);
+            return ResponseEntity.accepted().body(job);
 
+        } catch (RejectedExecutionException e) {
+            log.warn("Odrzucono zadanie treningu: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
         } catch (Exception e) {
             log.error("Błąd podczas trenowania modelu: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * Lista zadań treningu (oczekujące, trwające i ostatnie zakończone)
+     */
+    @GetMapping("/lda/jobs")
+    public ResponseEntity<List<TrainingJobStatus>> getTrainingJobs() {
+        return ResponseEntity.ok(topicTrainingJobService.getJobs());
+    }
+
+    /**
+     * Stan zadania treningu: status, bieżący etap, iteracje i log-likelihood kandydatów K, wynik po zakończeniu
+     */
+    @GetMapping("/lda/jobs/{jobId}")
+    public ResponseEntity<TrainingJobStatus> getTrainingJob(@PathVariable String jobId) {
+        return topicTrainingJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Anuluje zadanie treningu; trwający trening zatrzymuje się po bieżącej porcji iteracji samplera
+     */
+    @DeleteMapping("/lda/jobs/{jobId}")
+    public ResponseEntity<TrainingJobStatus> cancelTrainingJob(@PathVariable String jobId) {
+        return topicTrainingJobService.cancel(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * Pobiera listę dostępnych modeli
      */
@@ -76,4 +122,32 @@ public class TopicModelingController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Wyznacza rozkłady tematów dla nowych tweetów zapisanym modelem (bez ponownego treningu)
+     */
+    @PostMapping("/models/{modelId}/infer")
+    public ResponseEntity<TopicInferenceResponse> inferTopics(@PathVariable Long modelId,
+                                                              @RequestBody TopicInferenceRequest request) {
+        try {
+            return ResponseEntity.ok(topicInferenceService.infer(modelId, request));
+        } catch (IllegalArgumentException e) {
+            log.warn("Inferencja niemożliwa: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            log.warn("Inferencja niemożliwa: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Błąd podczas inferencji modelem {}: {}", modelId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Skumulowane metryki inferencji (przepustowość, opóźnienie, trafienia cache modeli)
+     */
+    @GetMapping("/inference/stats")
+    public ResponseEntity<TopicInferenceStats> getInferenceStats() {
+        return ResponseEntity.ok(topicInferenceService.getStats());
+    }
 }
@@ -13,13 +13,16 @@ public class CoherenceMetrics {
     private Double npmi;
     private Double umass;
     private Double uci;
+    private Double cv;                  // C_V na przesuwanym oknie, zob. SlidingWindowCoherence
+    private Double npmiWindow;          // NPMI na przesuwanym oknie
     private Double perplexity;
     private Integer wordCount;
     private Integer documentCount;
 
     public static CoherenceMetrics empty() {
         return CoherenceMetrics.builder()
-                .pmi(Double.NaN).npmi(Double.NaN).umass(Double.NaN).uci(Double.NaN).perplexity(Double.NaN)
+                .pmi(Double.NaN).npmi(Double.NaN).umass(Double.NaN).uci(Double.NaN)
+                .cv(Double.NaN).npmiWindow(Double.NaN).perplexity(Double.NaN)
                 .wordCount(0).documentCount(0).build();
     }
 
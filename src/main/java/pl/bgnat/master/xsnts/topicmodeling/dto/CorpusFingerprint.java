@@ -0,0 +1,13 @@
+package pl.bgnat.master.xsnts.topicmodeling.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stan przetworzonych tweetów w zakresie dat korpusu. Zmienia się, gdy w zakresie pojawią się nowe tweety,
+ * zostaną usunięte lub ponownie przetworzone - snapshot korpusu z innym odciskiem jest nieaktualny.
+ */
+public record CorpusFingerprint(
+        Long tweetsCount,
+        Long maxProcessedTweetId,
+        LocalDateTime maxProcessedDate
+) { }
@@ -0,0 +1,15 @@
+package pl.bgnat.master.xsnts.topicmodeling.dto;
+
+import cc.mallet.types.InstanceList;
+
+import java.util.List;
+
+/**
+ * Korpus gotowy do treningu: dokumenty (id, tweety) oraz odpowiadające im instancje MALLET (ten sam porządek)
+ * @param fromSnapshot true, gdy korpus wczytano z pliku snapshotu zamiast budować z bazy
+ */
+public record CorpusSnapshot(
+        List<Document> documents,
+        InstanceList instances,
+        boolean fromSnapshot
+) { }
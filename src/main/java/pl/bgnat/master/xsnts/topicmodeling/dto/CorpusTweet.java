@@ -0,0 +1,18 @@
+package pl.bgnat.master.xsnts.topicmodeling.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projekcja przetworzonego tweeta do budowy korpusu topic modelingu (bez encji i treści oryginalnej).
+ * Kolumny JSON są pobierane tylko dla rekordów bez kolumn identyfikatorów (sprzed token_ids / lemma_ids).
+ */
+public record CorpusTweet(
+        Long processedTweetId,
+        Long tweetId,
+        String username,
+        LocalDateTime postDate,
+        byte[] tokenIds,
+        byte[] lemmaIds,
+        String tokensJson,
+        String lemmasJson
+) { }
@@ -0,0 +1,13 @@
+package pl.bgnat.master.xsnts.topicmodeling.dto;
+
+import java.util.List;
+
+/**
+ * Spójność wszystkich tematów modelu: metryki per temat (indeks = topicId) oraz ich średnia i mediana.
+ * Tematy bez wyniku (NaN) są pomijane w agregatach.
+ */
+public record ModelCoherence(
+        List<CoherenceMetrics> topics,
+        CoherenceMetrics mean,
+        CoherenceMetrics median
+) { }
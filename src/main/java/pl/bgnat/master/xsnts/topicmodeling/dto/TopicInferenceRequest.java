@@ -0,0 +1,23 @@
+package pl.bgnat.master.xsnts.topicmodeling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO requestu inferencji tematów zapisanym modelem. Źródła dokumentów można łączyć;
+ * każdy tweet (lub lista tokenów) jest osobnym dokumentem.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopicInferenceRequest {
+    private List<Long> tweetIds;            // id tweetów (tweet.id)
+    private List<Long> processedTweetIds;   // id przetworzonych tweetów (processed_tweet.id)
+    private List<List<String>> tokens;      // gotowe listy tokenów (strategia tokenów jak w modelu)
+    private boolean persist;                // czy zapisać rozkłady tweetów (tylko dokumenty z id tweeta)
+}
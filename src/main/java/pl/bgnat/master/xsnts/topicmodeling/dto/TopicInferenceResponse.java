@@ -0,0 +1,34 @@
+package pl.bgnat.master.xsnts.topicmodeling.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO wyników inferencji tematów wraz z czasami i przepustowością
+ */
+@Data
+@Builder
+public class TopicInferenceResponse {
+    private Long modelId;
+    private Integer numberOfTopics;
+    private Integer documentsCount;
+    private Boolean modelCacheHit;      // model i inferencery były już w pamięci
+    private Long modelLoadMs;
+    private Long inferenceMs;           // czas całej paczki (równolegle)
+    private Double avgDocumentMs;       // średni czas próbkowania jednego dokumentu
+    private Double documentsPerSecond;
+    private Integer persistedCount;
+    private List<TweetTopicDistribution> results;
+
+    @Data
+    @Builder
+    public static class TweetTopicDistribution {
+        private Long tweetId;
+        private Long processedTweetId;
+        private Integer knownTokens;        // tokeny obecne w alfabecie modelu
+        private Integer dominantTopicId;
+        private double[] topicProbabilities;
+    }
+}
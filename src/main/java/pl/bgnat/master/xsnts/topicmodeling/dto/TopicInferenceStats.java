@@ -0,0 +1,15 @@
+package pl.bgnat.master.xsnts.topicmodeling.dto;
+
+/**
+ * Skumulowane metryki inferencji od startu aplikacji
+ */
+public record TopicInferenceStats(
+        long requests,
+        long documents,
+        double avgDocumentMs,
+        double documentsPerSecond,
+        long modelCacheHits,
+        long modelCacheMisses,
+        int cachedModels,
+        int maxCachedModels
+) { }
@@ -6,12 +6,13 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * DTO requestu topic modelingu
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class TopicModelingRequest {
@@ -19,9 +20,14 @@ public class TopicModelingRequest {
     private String topicModel;          // LDA - w przyszłości możliwe inne
     private boolean isUseBigrams;       // Czy używać bigramów
     private Integer numberOfTopics;     // Ustawienie ilości topiców K
+    private List<Integer> topicsGrid;   // Kandydaci K dla grid-search (domyślnie 6, 8, 10, 12, 14)
     private String poolingStrategy;     // "hashtag" / "temporal"
     private Integer minDocumentSize;    // Minimalna liczba tweetów w dokumencie
     private Integer maxIterations;      // Ustawienie ilości iteracji
+    private Boolean earlyStopping;      // Zatrzymanie treningu po zbieżności log-likelihood (domyślnie z konfiguracji)
+    private Integer vocabularyMinDf;    // Przycinanie słownika: min. liczba dokumentów ze słowem (domyślnie z konfiguracji)
+    private Double vocabularyMaxDfRatio; // Przycinanie słownika: maks. udział dokumentów ze słowem (domyślnie z konfiguracji)
+    private Integer vocabularyMaxSize;  // Przycinanie słownika: limit rozmiaru, 0 = bez limitu (domyślnie z konfiguracji)
     private LocalDateTime startDate;    // Filtrowanie tweetów od daty
     private LocalDateTime endDate;      // Filtrowanie tweetów do daty
     private String modelName;           // Ustawienie nazwy modelu
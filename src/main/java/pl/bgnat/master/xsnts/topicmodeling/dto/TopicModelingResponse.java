@@ -25,6 +25,17 @@ public class TopicModelingResponse {
     private Integer originalTweetsCount;
     private LocalDateTime trainingDate;
     private Double perplexity;
+    private Long corpusPreparationMs;
+    private Boolean corpusFromSnapshot;
+    private Long trainingMs;
+    private Integer maxIterations;
+    private Integer iterationsUsed;
+    private Boolean earlyStopped;
+    private Integer vocabularyBeforePruning;
+    private Integer vocabularySize;
+    private Long tokensBeforePruning;
+    private Long tokensCount;
+    private Double samplingSpeedup;     // tokeny przed / po przycięciu słownika - szacowane przyspieszenie iteracji
     private String status;
     private List<TopicSummary> topics;
 
@@ -32,6 +43,12 @@ public class TopicModelingResponse {
     private Double npmiScore;           // NPMI (-1, 1)
     private Double uciScore;            // Uci Coherence Index
     private Double umassScore;          // UMass Coherence Index
+    private Double cvScore;             // C_V na przesuwanym oknie (średnia tematów)
+    private Double cvMedian;
+    private Double npmiWindowScore;     // NPMI na przesuwanym oknie (średnia tematów)
+    private Double pmiMedian;           // Mediana PMI tematów (wyniki wyżej to średnie tematów)
+    private Double npmiMedian;
+    private Double umassMedian;
     private String pmiInterpretation;   // Tekstowa interpretacja wyniku pmi
     private String umassInterpretation; // Tekstowa interpretacja wyniku umass
 
@@ -44,6 +61,12 @@ public class TopicModelingResponse {
         private List<WordWeight> topWords;
         private Integer documentCount;
         private Double averageProbability;
+        private Double pmi;
+        private Double npmi;
+        private Double umass;
+        private Double uci;
+        private Double cv;
+        private Double npmiWindow;
     }
 
     @Data
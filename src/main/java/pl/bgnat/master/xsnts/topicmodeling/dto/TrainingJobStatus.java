@@ -0,0 +1,35 @@
+package pl.bgnat.master.xsnts.topicmodeling.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stan zadania treningu topic modelingu zwracany przez endpointy zadań
+ */
+@Data
+@Builder
+public class TrainingJobStatus {
+    private String jobId;
+    private String status;              // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    private boolean cancelRequested;
+    private Long modelId;               // rekord modelu, dostępny od startu treningu
+    private String phase;               // bieżący etap (korpus, grid-search, zapis wyników)
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private List<ModelProgress> models; // postęp każdego kandydata K
+    private String errorMessage;
+    private TopicModelingResponse result;
+
+    @Data
+    @Builder
+    public static class ModelProgress {
+        private Integer numberOfTopics;
+        private Integer iteration;
+        private Integer totalIterations;
+        private Double logLikelihood;   // log-likelihood na token po ostatniej porcji iteracji
+    }
+}
@@ -0,0 +1,27 @@
+package pl.bgnat.master.xsnts.topicmodeling.dto;
+
+/**
+ * Statystyki przycinania słownika korpusu przed treningiem
+ * @param prunedRare   słowa usunięte przez min-df
+ * @param prunedCommon słowa usunięte przez max-df
+ * @param prunedLimit  słowa usunięte przez limit rozmiaru słownika
+ */
+public record VocabularyPruningStats(
+        int vocabularyBefore,
+        int vocabularyAfter,
+        int prunedRare,
+        int prunedCommon,
+        int prunedLimit,
+        long tokensBefore,
+        long tokensAfter,
+        int documentsBefore,
+        int documentsAfter,
+        long pruningMs
+) {
+    /**
+     * Szacowane przyspieszenie iteracji samplera - koszt iteracji jest liniowy względem liczby tokenów korpusu
+     */
+    public double estimatedSamplingSpeedup() {
+        return tokensAfter > 0 ? (double) tokensBefore / tokensAfter : 1.0;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import pl.bgnat.master.xsnts.topicmodeling.utils.TopicProbabilityCodec;
 
 /**
  * Encja przechowująca przypisania dokumentów (grup tweetów) do tematów
@@ -18,7 +19,12 @@ import lombok.NoArgsConstructor;
 public class DocumentTopicAssignment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SequenceGenerator(
+            name = "document_topic_assignment_id_generator",
+            sequenceName = "document_topic_assignment_id_generator",
+            allocationSize = IdAllocation.ID_ALLOCATION_SIZE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "document_topic_assignment_id_generator")
+    @Column(name = "id", nullable = false)
     private Long id;
 
     @ManyToOne
@@ -34,12 +40,23 @@ public class DocumentTopicAssignment {
     @Column(name = "dominant_topic_id", nullable = false)
     private Integer dominantTopicId;
 
-    @Column(name = "topic_probabilities", columnDefinition = "TEXT")
-    private String topicProbabilities; // JSON z prawdopodobieństwami dla wszystkich tematów
+    @Column(name = "topic_probability_vector", columnDefinition = "bytea")
+    private byte[] topicProbabilityVector; // prawdopodobieństwa wszystkich tematów (float LE, indeks = topicId), zob. TopicProbabilityCodec
 
     @Column(name = "tweet_ids", columnDefinition = "TEXT")
     private String tweetIds; // JSON z ID tweetów w tym dokumencie
 
     @Column(name = "tweets_count", nullable = false)
     private Integer tweetsCount;
+
+    /**
+     * Prawdopodobieństwo jednego tematu odczytane bez dekodowania całego wektora
+     */
+    public float getTopicProbability(int topicId) {
+        return TopicProbabilityCodec.get(topicProbabilityVector, topicId);
+    }
+
+    public float[] getTopicProbabilities() {
+        return TopicProbabilityCodec.decode(topicProbabilityVector);
+    }
 }
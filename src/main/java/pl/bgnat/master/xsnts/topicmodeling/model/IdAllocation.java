@@ -0,0 +1,14 @@
+package pl.bgnat.master.xsnts.topicmodeling.model;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wielkość puli identyfikatorów z sekwencji (optymalizator pooled) dla encji zapisywanych paczkami:
+ * Hibernate pobiera z sekwencji jedną wartość na tyle wierszy i nie musi wykonywać INSERT-a, żeby poznać id.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class IdAllocation {
+
+    public static final int ID_ALLOCATION_SIZE = 1000;
+}
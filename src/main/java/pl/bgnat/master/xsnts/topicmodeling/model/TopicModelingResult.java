@@ -62,7 +62,7 @@ public class TopicModelingResult {
     private LocalDateTime trainingDate;
 
     @Column(name = "pmi")
-    private Double pmi;
+    private Double pmi;                 // średnia spójność wszystkich tematów (analogicznie npmi, uci, umass)
 
     @Column(name = "npmi")
     private Double npmi;
@@ -73,6 +73,24 @@ public class TopicModelingResult {
     @Column(name = "umass")
     private Double umass;
 
+    @Column(name = "cv")
+    private Double cv;
+
+    @Column(name = "cv_median")
+    private Double cvMedian;
+
+    @Column(name = "npmi_window")
+    private Double npmiWindow;
+
+    @Column(name = "pmi_median")
+    private Double pmiMedian;
+
+    @Column(name = "npmi_median")
+    private Double npmiMedian;
+
+    @Column(name = "umass_median")
+    private Double umassMedian;
+
     @Column(name = "coherenceInterpretation")
     private String coherenceInterpretation;
 
@@ -82,6 +100,36 @@ public class TopicModelingResult {
     @Column(name = "perplexity")
     private Double perplexity;
 
+    @Column(name = "corpus_preparation_ms")
+    private Long corpusPreparationMs;   // budowa InstanceList (raz na przebieg) lub odczyt snapshotu
+
+    @Column(name = "corpus_from_snapshot")
+    private Boolean corpusFromSnapshot;
+
+    @Column(name = "training_ms")
+    private Long trainingMs;            // trening wszystkich kandydatów grid-search
+
+    @Column(name = "max_iterations")
+    private Integer maxIterations;      // limit iteracji samplera z requestu lub konfiguracji
+
+    @Column(name = "iterations_used")
+    private Integer iterationsUsed;     // iteracje wykonane przez wybrany model (mniej niż limit przy early stopping)
+
+    @Column(name = "early_stopped")
+    private Boolean earlyStopped;
+
+    @Column(name = "vocabulary_before_pruning")
+    private Integer vocabularyBeforePruning;
+
+    @Column(name = "vocabulary_size")
+    private Integer vocabularySize;     // alfabet modelu po przycięciu słownika
+
+    @Column(name = "tokens_before_pruning")
+    private Long tokensBeforePruning;
+
+    @Column(name = "tokens_count")
+    private Long tokensCount;           // tokeny próbkowane w każdej iteracji
+
     @Column(name = "model_path", length = 500)
     private String modelPath;
 
@@ -93,6 +141,6 @@ public class TopicModelingResult {
     private String errorMessage;
 
     public enum ModelStatus {
-        TRAINING, COMPLETED, FAILED
+        TRAINING, COMPLETED, FAILED, CANCELLED
     }
 }
@@ -18,7 +18,12 @@ import lombok.NoArgsConstructor;
 public class TopicResult {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SequenceGenerator(
+            name = "topic_result_id_generator",
+            sequenceName = "topic_result_id_generator",
+            allocationSize = IdAllocation.ID_ALLOCATION_SIZE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "topic_result_id_generator")
+    @Column(name = "id", nullable = false)
     private Long id;
 
     @ManyToOne
@@ -42,4 +47,22 @@ public class TopicResult {
 
     @Column(name = "average_probability")
     private Double averageProbability; // Średnie prawdopodobieństwo występowania danego tematu w dokumentach, które utworzyły model
+
+    @Column(name = "pmi")
+    private Double pmi;                 // Spójność tematu (top 10 słów) liczona na korpusie modelu
+
+    @Column(name = "npmi")
+    private Double npmi;
+
+    @Column(name = "umass")
+    private Double umass;
+
+    @Column(name = "uci")
+    private Double uci;
+
+    @Column(name = "cv")
+    private Double cv;                  // C_V na przesuwanym oknie
+
+    @Column(name = "npmi_window")
+    private Double npmiWindow;
 }
@@ -0,0 +1,55 @@
+package pl.bgnat.master.xsnts.topicmodeling.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import pl.bgnat.master.xsnts.topicmodeling.utils.TopicProbabilityCodec;
+
+import java.time.LocalDateTime;
+
+/**
+ * Encja przechowująca rozkład tematów pojedynczego tweeta wyznaczony inferencją zapisanym modelem
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity(name = "TweetTopicInference")
+@Table(name = "tweet_topic_inference",
+        indexes = @Index(name = "idx_tweet_topic_inference_model_tweet", columnList = "topic_modeling_result_id, tweet_id"))
+public class TweetTopicInference {
+
+    @Id
+    @SequenceGenerator(
+            name = "tweet_topic_inference_id_generator",
+            sequenceName = "tweet_topic_inference_id_generator",
+            allocationSize = IdAllocation.ID_ALLOCATION_SIZE)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tweet_topic_inference_id_generator")
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "topic_modeling_result_id", referencedColumnName = "id")
+    private TopicModelingResult topicModelingResult;
+
+    @Column(name = "tweet_id", nullable = false)
+    private Long tweetId;
+
+    @Column(name = "processed_tweet_id")
+    private Long processedTweetId;
+
+    @Column(name = "dominant_topic_id", nullable = false)
+    private Integer dominantTopicId;
+
+    @Column(name = "topic_probability_vector", columnDefinition = "bytea")
+    private byte[] topicProbabilityVector; // float LE, indeks = topicId, zob. TopicProbabilityCodec
+
+    @Column(name = "inference_date", nullable = false)
+    private LocalDateTime inferenceDate;
+
+    public float getTopicProbability(int topicId) {
+        return TopicProbabilityCodec.get(topicProbabilityVector, topicId);
+    }
+}
@@ -1,8 +1,6 @@
 package pl.bgnat.master.xsnts.topicmodeling.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.bgnat.master.xsnts.topicmodeling.model.DocumentTopicAssignment;
 
@@ -11,8 +9,29 @@ import java.util.List;
 @Repository
 public interface DocumentTopicAssignmentRepository extends JpaRepository<DocumentTopicAssignment, Long> {
 
-    List<DocumentTopicAssignment> findByTopicModelingResultId(Long topicModelingResultId);
+    // migracja kolumny JSON topic_probabilities (sprzed topic_probability_vector) - zob. TopicProbabilityMigration
+    String QUERY_HAS_LEGACY_PROBABILITIES_COLUMN =
+            """
+                SELECT EXISTS (SELECT 1 FROM information_schema.columns
+                               WHERE table_name = 'document_topic_assignment'
+                               AND column_name = 'topic_probabilities')
+            """;
+    String QUERY_SELECT_LEGACY_PROBABILITIES =
+            """
+                SELECT id, topic_probabilities
+                FROM   document_topic_assignment
+                WHERE  id > ?
+                AND    topic_probability_vector IS NULL
+                AND    topic_probabilities IS NOT NULL
+                ORDER  BY id
+                LIMIT  ?
+            """;
+    String QUERY_UPDATE_PROBABILITY_VECTOR =
+            """
+                UPDATE document_topic_assignment
+                SET    topic_probability_vector = ?, topic_probabilities = NULL
+                WHERE  id = ?
+            """;
 
-    @Query("SELECT COUNT(dta) FROM DocumentTopicAssignment dta WHERE dta.dominantTopicId = :topicId AND dta.topicModelingResult.id = :modelId")
-    Long countDocumentsByTopic(@Param("topicId") Integer topicId, @Param("modelId") Long modelId);
+    List<DocumentTopicAssignment> findByTopicModelingResultId(Long topicModelingResultId);
 }
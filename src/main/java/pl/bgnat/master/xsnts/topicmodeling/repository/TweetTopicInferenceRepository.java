@@ -0,0 +1,28 @@
+package pl.bgnat.master.xsnts.topicmodeling.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pl.bgnat.master.xsnts.topicmodeling.model.TweetTopicInference;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TweetTopicInferenceRepository extends JpaRepository<TweetTopicInference, Long> {
+
+    String QUERY_DELETE_BY_MODEL_AND_TWEET_IDS =
+            """
+                DELETE FROM TweetTopicInference tti
+                WHERE tti.topicModelingResult.id = :modelId
+                AND   tti.tweetId IN :tweetIds
+            """;
+
+    List<TweetTopicInference> findByTopicModelingResultId(Long modelId);
+
+    @Modifying
+    @Query(QUERY_DELETE_BY_MODEL_AND_TWEET_IDS)
+    int deleteByModelAndTweetIds(@Param("modelId") Long modelId, @Param("tweetIds") Collection<Long> tweetIds);
+}
@@ -0,0 +1,209 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import cc.mallet.types.Alphabet;
+import cc.mallet.types.FeatureSequence;
+import cc.mallet.types.Instance;
+import cc.mallet.types.InstanceList;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indeks odwrócony korpusu dla metryk spójności: słowo → posortowane identyfikatory dokumentów, w których występuje.
+ * <p>
+ * Budowany raz na korpus (przebieg topic modelingu) i współdzielony przez wszystkie tematy i modele kandydujące.
+ * Liczność współwystąpień pary słów to przecięcie list dokumentów - dla częstych słów listy zamieniane są
+ * leniwie na {@link BitSet}, więc przecięcie kosztuje O(df rzadszego słowa). Po zbudowaniu indeks jest tylko do odczytu
+ * i bezpieczny wątkowo.
+ */
+public final class CoherenceIndex {
+
+    // słowa występujące w co najmniej 1/BITSET_DENSITY dokumentów dostają bitmapę
+    private static final int BITSET_DENSITY = 64;
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<String, Integer> wordIds;
+    private final int[][] postings;
+    private final int documentCount;
+    private final int bitsetThreshold;
+    private final Map<Integer, BitSet> bitsets = new ConcurrentHashMap<>();
+
+    private CoherenceIndex(Map<String, Integer> wordIds, int[][] postings, int documentCount) {
+        this.wordIds = wordIds;
+        this.postings = postings;
+        this.documentCount = documentCount;
+        this.bitsetThreshold = Math.max(1, documentCount / BITSET_DENSITY);
+    }
+
+    /**
+     * Buduje indeks z InstanceList (identyfikatory słów z alfabetu korpusu, bez ponownej tokenizacji)
+     */
+    public static CoherenceIndex fromInstances(InstanceList instances) {
+        Alphabet alphabet = instances.getDataAlphabet();
+        int vocabularySize = alphabet.size();
+
+        Map<String, Integer> wordIds = new HashMap<>(vocabularySize * 4 / 3 + 1);
+        for (int id = 0; id < vocabularySize; id++) {
+            wordIds.put(String.valueOf(alphabet.lookupObject(id)), id);
+        }
+
+        PostingsBuilder builder = new PostingsBuilder(vocabularySize);
+        int docId = 0;
+        for (Instance instance : instances) {
+            FeatureSequence tokens = (FeatureSequence) instance.getData();
+            for (int i = 0; i < tokens.getLength(); i++) {
+                builder.add(tokens.getIndexAtPosition(i), docId);
+            }
+            docId++;
+        }
+        return new CoherenceIndex(wordIds, builder.build(vocabularySize), instances.size());
+    }
+
+    /**
+     * Buduje indeks z dokumentów tekstowych (tokeny oddzielone białymi znakami)
+     */
+    public static CoherenceIndex fromDocuments(List<String> documents) {
+        Map<String, Integer> wordIds = new HashMap<>();
+        PostingsBuilder builder = new PostingsBuilder(1024);
+
+        for (int docId = 0; docId < documents.size(); docId++) {
+            String doc = documents.get(docId).toLowerCase();
+            int length = doc.length();
+            int i = 0;
+            while (i < length) {
+                while (i < length && Character.isWhitespace(doc.charAt(i))) i++;
+                int start = i;
+                while (i < length && !Character.isWhitespace(doc.charAt(i))) i++;
+                if (start == i) continue;
+
+                Integer wordId = wordIds.computeIfAbsent(doc.substring(start, i), word -> wordIds.size());
+                builder.add(wordId, docId);
+            }
+        }
+        return new CoherenceIndex(wordIds, builder.build(wordIds.size()), documents.size());
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public int getVocabularySize() {
+        return postings.length;
+    }
+
+    /**
+     * @return liczba dokumentów zawierających słowo
+     */
+    public int count(String word) {
+        return postingsOf(word).length;
+    }
+
+    /**
+     * @return liczba dokumentów zawierających oba słowa
+     */
+    public int coCount(String w1, String w2) {
+        Integer id1 = wordIds.get(w1);
+        Integer id2 = wordIds.get(w2);
+        if (id1 == null || id2 == null || id1.equals(id2)) return 0;
+
+        int[] smaller = postings[id1];
+        int[] larger = postings[id2];
+        int largerId = id2;
+        if (smaller.length > larger.length) {
+            smaller = postings[id2];
+            larger = postings[id1];
+            largerId = id1;
+        }
+        if (smaller.length == 0) return 0;
+
+        return larger.length >= bitsetThreshold
+                ? probeCount(smaller, bitsetOf(largerId, larger))
+                : mergeCount(smaller, larger);
+    }
+
+    private int[] postingsOf(String word) {
+        Integer id = wordIds.get(word);
+        return id == null ? EMPTY : postings[id];
+    }
+
+    private BitSet bitsetOf(int wordId, int[] docIds) {
+        return bitsets.computeIfAbsent(wordId, id -> {
+            BitSet bitset = new BitSet(documentCount);
+            for (int docId : docIds) {
+                bitset.set(docId);
+            }
+            return bitset;
+        });
+    }
+
+    private static int probeCount(int[] docIds, BitSet bitset) {
+        int count = 0;
+        for (int docId : docIds) {
+            if (bitset.get(docId)) count++;
+        }
+        return count;
+    }
+
+    private static int mergeCount(int[] a, int[] b) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Zbiera listy dokumentów; dokumenty dodawane są rosnąco, więc wystarczy pominąć powtórzenie ostatniego id
+     */
+    private static final class PostingsBuilder {
+        private int[][] lists;
+        private int[] sizes;
+
+        private PostingsBuilder(int initialVocabulary) {
+            this.lists = new int[Math.max(16, initialVocabulary)][];
+            this.sizes = new int[lists.length];
+        }
+
+        private void add(int wordId, int docId) {
+            if (wordId >= lists.length) {
+                int capacity = Math.max(wordId + 1, lists.length * 2);
+                lists = Arrays.copyOf(lists, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+
+            int[] list = lists[wordId];
+            int size = sizes[wordId];
+            if (list == null) {
+                list = lists[wordId] = new int[4];
+            } else if (list[size - 1] == docId) {
+                return;
+            } else if (size == list.length) {
+                list = lists[wordId] = Arrays.copyOf(list, size * 2);
+            }
+            list[size] = docId;
+            sizes[wordId] = size + 1;
+        }
+
+        private int[][] build(int vocabularySize) {
+            int[][] result = new int[vocabularySize][];
+            for (int i = 0; i < vocabularySize; i++) {
+                result[i] = i >= lists.length || lists[i] == null ? EMPTY : Arrays.copyOf(lists[i], sizes[i]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.math3.stat.descriptive.rank.Median;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bgnat.master.xsnts.normalization.repository.ProcessedTweetRepository;
+import pl.bgnat.master.xsnts.normalization.service.processing.TokenVocabulary;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusFingerprint;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusTweet;
+import pl.bgnat.master.xsnts.topicmodeling.dto.Document;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicModelingRequest;
+import pl.bgnat.master.xsnts.topicmodeling.strategy.HashtagPoolingStrategy;
+import pl.bgnat.master.xsnts.topicmodeling.strategy.TemporalPoolingStrategy;
+import pl.bgnat.master.xsnts.topicmodeling.strategy.TweetPoolingStrategy;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static pl.bgnat.master.xsnts.topicmodeling.service.MalletTopicModelingService.MIN_DOCUMENT_SIZE;
+
+/**
+ * Buduje dokumenty korpusu topic modelingu strumieniowo z projekcji {@link CorpusTweet}.
+ * <p>
+ * Tweety nie są ładowane jako encje ani trzymane w pamięci w całości: każdy wiersz strumienia jest od razu
+ * zamieniany na tekst (raz, niezależnie od liczby grup) i dopisywany do grup wskazanych przez strategię poolingu.
+ * W pamięci zostają tylko teksty grup i identyfikatory tweetów.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CorpusDocumentBuilder {
+
+    private static final Set<String> TWO_LETTER_WHITELIST = Set.of("po", "na", "od", "do");
+    private static final String MENTION_TOKEN = "@anonymized";
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final ProcessedTweetRepository processedTweetRepository;
+    private final TokenVocabulary tokenVocabulary;
+    private final HashtagPoolingStrategy hashtagPoolingStrategy;
+    private final TemporalPoolingStrategy temporalPoolingStrategy;
+
+    /**
+     * Pobiera tweety z zakresu dat requestu, grupuje je strategią poolingu i zwraca dokumenty spełniające progi:
+     * minimalna liczba tweetów w grupie oraz dynamiczna minimalna długość tekstu (połowa mediany rozmiaru grup, min. 10)
+     */
+    @Transactional(readOnly = true)
+    public List<Document> buildDocuments(TopicModelingRequest request) {
+        TweetPoolingStrategy strategy = resolveStrategy(request.getPoolingStrategy());
+        boolean lemmatized = "lemmatized".equalsIgnoreCase(request.getTokenStrategy());
+
+        LocalDateTime from = Optional.ofNullable(request.getStartDate()).orElse(MIN_DATE);
+        LocalDateTime to = Optional.ofNullable(request.getEndDate()).orElse(MAX_DATE);
+        log.info("Pobieram tweety: od={}  do={}", request.getStartDate(), request.getEndDate());
+
+        Map<String, DocumentGroup> groups = new HashMap<>();
+        Map<String, DocumentGroup> fallbackGroups = new HashMap<>();
+        int tweetsCount = 0;
+
+        try (Stream<CorpusTweet> tweets = processedTweetRepository.streamCorpus(from, to)) {
+            for (CorpusTweet tweet : (Iterable<CorpusTweet>) tweets::iterator) {
+                tweetsCount++;
+                String text = lemmatized
+                        ? extractTokensAsText(tokenVocabulary.tokensOf(tweet.lemmaIds(), tweet.lemmasJson(), tweet.processedTweetId()), request.isSkipMentions())
+                        : extractTokensAsText(tokenVocabulary.tokensOf(tweet.tokenIds(), tweet.tokensJson(), tweet.processedTweetId()), request.isSkipMentions());
+
+                Collection<String> keys = strategy.documentKeys(tweet);
+                if (!keys.isEmpty()) {
+                    for (String key : keys) {
+                        groups.computeIfAbsent(key, k -> new DocumentGroup()).add(tweet.tweetId(), text);
+                    }
+                    continue;
+                }
+                String fallbackKey = strategy.fallbackKey(tweet);
+                if (fallbackKey != null) {
+                    fallbackGroups.computeIfAbsent(fallbackKey, k -> new DocumentGroup()).add(tweet.tweetId(), text);
+                }
+            }
+        }
+
+        int minFallbackSize = strategy.minFallbackGroupSize();
+        fallbackGroups.forEach((key, group) -> {
+            if (group.size() >= minFallbackSize) {
+                groups.put(key, group);
+            }
+        });
+        log.info("Pobrano {} tweetów, utworzono {} grup tweetow (strategia {})", tweetsCount, groups.size(), strategy.getStrategyName());
+
+        return toDocuments(groups, request);
+    }
+
+    /**
+     * Odcisk stanu przetworzonych tweetów w zakresie dat requestu (ten sam zakres, z którego budowany jest korpus)
+     */
+    @Transactional(readOnly = true)
+    public CorpusFingerprint fingerprint(TopicModelingRequest request) {
+        return processedTweetRepository.corpusFingerprint(
+                Optional.ofNullable(request.getStartDate()).orElse(MIN_DATE),
+                Optional.ofNullable(request.getEndDate()).orElse(MAX_DATE));
+    }
+
+    private List<Document> toDocuments(Map<String, DocumentGroup> groups, TopicModelingRequest request) {
+        if (groups.isEmpty()) return List.of();
+
+        int medianGroup = (int) new Median().evaluate(groups.values().stream().mapToDouble(DocumentGroup::size).toArray());
+        int dynMinTextLen = Math.max(10, medianGroup / 2);
+        int minSize = Optional.ofNullable(request.getMinDocumentSize())
+                              .orElse(MIN_DOCUMENT_SIZE);
+
+        List<Document> documents = groups.entrySet().stream()
+                .filter(e -> e.getValue().size() >= minSize)
+                .map(e -> e.getValue().toDocument(e.getKey(), dynMinTextLen))
+                .filter(Objects::nonNull)
+                .toList();
+
+        log.info("Utworzono {} dokumentów z minimalnym rozmiarem {}", documents.size(), minSize);
+        return documents;
+    }
+
+    private TweetPoolingStrategy resolveStrategy(String strategy) {
+        return switch (strategy.toLowerCase()) {
+            case "hashtag" -> hashtagPoolingStrategy;
+            case "temporal" -> temporalPoolingStrategy;
+            default -> {
+                log.warn("Nieznana strategia pooling: {}, używam hashtag", strategy);
+                yield hashtagPoolingStrategy;
+            }
+        };
+    }
+
+    /**
+     * Tokeny tweeta w postaci, w jakiej trafiają do korpusu (ta sama strategia tokenów i filtry co przy treningu)
+     */
+    public List<String> corpusTokens(CorpusTweet tweet, boolean lemmatized, boolean skipMentions) {
+        List<String> tokens = lemmatized
+                ? tokenVocabulary.tokensOf(tweet.lemmaIds(), tweet.lemmasJson(), tweet.processedTweetId())
+                : tokenVocabulary.tokensOf(tweet.tokenIds(), tweet.tokensJson(), tweet.processedTweetId());
+        return tokens.stream().filter(t -> isCorpusToken(t, skipMentions)).toList();
+    }
+
+    /**
+     * Filtr tokenów korpusu: bez wzmianek (opcjonalnie), słowa dłuższe niż 2 znaki lub z listy dwuliterowych
+     */
+    public static boolean isCorpusToken(String token, boolean skipMentions) {
+        if (skipMentions && token.equals(MENTION_TOKEN)) return false;
+        return token.length() > 2 || (token.length() == 2 && TWO_LETTER_WHITELIST.contains(token));
+    }
+
+    private String extractTokensAsText(List<String> toks, boolean skipMentions) {
+        StringBuilder sb = new StringBuilder();
+        for (String t : toks) {
+            if (isCorpusToken(t, skipMentions)) {
+                if (!sb.isEmpty()) sb.append(' ');
+                sb.append(t);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Tekst i tweety jednej grupy budowane przyrostowo
+     */
+    private static final class DocumentGroup {
+        private final StringBuilder text = new StringBuilder();
+        private final List<Long> tweetIds = new ArrayList<>();
+
+        private void add(Long tweetId, String tweetText) {
+            text.append(tweetText).append(' ');
+            tweetIds.add(tweetId);
+        }
+
+        private int size() {
+            return tweetIds.size();
+        }
+
+        private Document toDocument(String documentId, int minLen) {
+            String trimmed = text.toString().trim();
+            if (trimmed.length() < minLen) return null;
+
+            return new Document(documentId, trimmed, tweetIds, tweetIds.size());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import cc.mallet.types.Alphabet;
+import cc.mallet.types.FeatureSequence;
+import cc.mallet.types.Instance;
+import cc.mallet.types.InstanceList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.bgnat.master.xsnts.scrapper.utils.ContentHasher;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusFingerprint;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusSnapshot;
+import pl.bgnat.master.xsnts.topicmodeling.dto.Document;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicModelingRequest;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static pl.bgnat.master.xsnts.topicmodeling.service.MalletTopicModelingService.MIN_DOCUMENT_SIZE;
+
+/**
+ * Binarne snapshoty korpusu na dysku, współdzielone przez kolejne treningi na tym samym korpusie.
+ * <p>
+ * Plik zawiera alfabet, sekwencje identyfikatorów słów dokumentów (po tokenizacji i bigramach) oraz
+ * identyfikatory tweetów dokumentów. Klucz pliku to parametry wpływające na korpus: zakres dat, strategia tokenów,
+ * skipMentions, pooling, minimalny rozmiar dokumentu i bigramy. W nagłówku zapisany jest {@link CorpusFingerprint}
+ * zakresu dat - gdy w zakresie pojawią się nowe lub ponownie przetworzone tweety, odcisk się zmienia, a snapshot
+ * jest usuwany i budowany od nowa.
+ * <p>
+ * Odczyt mapuje plik do pamięci i kopiuje sekwencje tokenów blokowo bezpośrednio do FeatureSequence,
+ * bez tekstu dokumentów i bez pipeline'u MALLET.
+ */
+@Slf4j
+@Component
+public class CorpusSnapshotStore {
+
+    private static final int MAGIC = 0x58534E43; // "XSNC"
+    private static final int VERSION = 1;
+    private static final String FILE_PREFIX = "corpus_";
+    private static final String FILE_SUFFIX = ".bin";
+
+    @Value("${app.topic-modeling.corpus-snapshots.enabled:true}")
+    private boolean enabled;
+    @Value("${app.topic-modeling.corpus-snapshots.directory:./output/corpus_snapshots}")
+    private String snapshotsDirectory;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Wczytuje snapshot dla requestu, jeżeli istnieje i ma ten sam odcisk zakresu dat
+     * @return korpus ze snapshotu lub pusty Optional (brak pliku, nieaktualny lub uszkodzony snapshot)
+     */
+    public Optional<CorpusSnapshot> load(TopicModelingRequest request, CorpusFingerprint fingerprint) {
+        if (!enabled) return Optional.empty();
+
+        String key = snapshotKey(request);
+        Path path = snapshotPath(key);
+        if (!Files.isRegularFile(path)) return Optional.empty();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                log.warn("Snapshot korpusu {} jest za duży do zmapowania ({} B), pomijam", path, channel.size());
+                return Optional.empty();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || !key.equals(readString(buffer))) {
+                log.info("Snapshot korpusu {} ma inny format lub klucz - zostanie zbudowany ponownie", path);
+                deleteQuietly(path);
+                return Optional.empty();
+            }
+            CorpusFingerprint stored = new CorpusFingerprint(buffer.getLong(), readNullableLong(buffer), readNullableDate(buffer));
+            if (!stored.equals(fingerprint)) {
+                log.info("Snapshot korpusu {} jest nieaktualny (było {}, jest {}) - zostanie zbudowany ponownie",
+                        path, stored, fingerprint);
+                deleteQuietly(path);
+                return Optional.empty();
+            }
+
+            CorpusSnapshot snapshot = readCorpus(buffer);
+            log.info("Wczytano snapshot korpusu {}: {} dokumentów, {} słów w alfabecie",
+                    path, snapshot.documents().size(), snapshot.instances().getDataAlphabet().size());
+            return Optional.of(snapshot);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Nie udało się wczytać snapshotu korpusu {}: {}", path, e.getMessage());
+            deleteQuietly(path);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Zapisuje korpus jako snapshot (plik tymczasowy + atomowa zamiana, więc równoległy odczyt nie widzi połowy pliku).
+     * Błąd zapisu nie przerywa treningu.
+     */
+    public void save(TopicModelingRequest request, CorpusFingerprint fingerprint, List<Document> documents, InstanceList instances) {
+        if (!enabled) return;
+
+        String key = snapshotKey(request);
+        Path path = snapshotPath(key);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, key);
+                out.writeLong(fingerprint.tweetsCount());
+                writeNullableLong(out, fingerprint.maxProcessedTweetId());
+                writeNullableDate(out, fingerprint.maxProcessedDate());
+                writeCorpus(out, documents, instances);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Zapisano snapshot korpusu {} ({} B)", path, Files.size(path));
+        } catch (IOException e) {
+            log.warn("Nie udało się zapisać snapshotu korpusu {}: {}", path, e.getMessage());
+            deleteQuietly(tmp);
+        }
+    }
+
+    private void writeCorpus(DataOutputStream out, List<Document> documents, InstanceList instances) throws IOException {
+        Alphabet alphabet = instances.getDataAlphabet();
+        out.writeInt(alphabet.size());
+        for (int id = 0; id < alphabet.size(); id++) {
+            writeString(out, String.valueOf(alphabet.lookupObject(id)));
+        }
+
+        out.writeInt(documents.size());
+        for (int d = 0; d < documents.size(); d++) {
+            Document document = documents.get(d);
+            writeString(out, document.id());
+            out.writeInt(document.tweetsCount());
+            out.writeInt(document.tweetIds().size());
+            for (Long tweetId : document.tweetIds()) {
+                out.writeLong(tweetId);
+            }
+
+            FeatureSequence tokens = (FeatureSequence) instances.get(d).getData();
+            int[] features = tokens.getFeatures();
+            out.writeInt(tokens.getLength());
+            for (int i = 0; i < tokens.getLength(); i++) {
+                out.writeInt(features[i]);
+            }
+        }
+    }
+
+    private CorpusSnapshot readCorpus(MappedByteBuffer buffer) {
+        int vocabularySize = buffer.getInt();
+        Alphabet alphabet = new Alphabet(vocabularySize);
+        for (int id = 0; id < vocabularySize; id++) {
+            alphabet.lookupIndex(readString(buffer), true);
+        }
+        alphabet.stopGrowth();
+
+        InstanceList instances = new InstanceList(alphabet, null);
+        int documentsCount = buffer.getInt();
+        List<Document> documents = new ArrayList<>(documentsCount);
+        for (int d = 0; d < documentsCount; d++) {
+            String documentId = readString(buffer);
+            int tweetsCount = buffer.getInt();
+
+            long[] tweetIds = new long[buffer.getInt()];
+            buffer.asLongBuffer().get(tweetIds);
+            buffer.position(buffer.position() + tweetIds.length * Long.BYTES);
+
+            int[] features = new int[buffer.getInt()];
+            buffer.asIntBuffer().get(features);
+            buffer.position(buffer.position() + features.length * Integer.BYTES);
+
+            documents.add(new Document(documentId, null, Arrays.stream(tweetIds).boxed().toList(), tweetsCount));
+            instances.add(new Instance(new FeatureSequence(alphabet, features), null, documentId, null));
+        }
+        return new CorpusSnapshot(documents, instances, true);
+    }
+
+    /**
+     * Klucz snapshotu: wszystkie parametry requestu, od których zależy zawartość korpusu
+     */
+    private String snapshotKey(TopicModelingRequest request) {
+        return String.join("|",
+                String.valueOf(request.getStartDate()),
+                String.valueOf(request.getEndDate()),
+                String.valueOf(request.getTokenStrategy()).toLowerCase(),
+                String.valueOf(request.isSkipMentions()),
+                String.valueOf(request.getPoolingStrategy()).toLowerCase(),
+                String.valueOf(Objects.requireNonNullElse(request.getMinDocumentSize(), MIN_DOCUMENT_SIZE)),
+                String.valueOf(request.isUseBigrams()));
+    }
+
+    private Path snapshotPath(String key) {
+        return Path.of(snapshotsDirectory, FILE_PREFIX + ContentHasher.sha256(key).substring(0, 32) + FILE_SUFFIX);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeLong(value);
+    }
+
+    private static Long readNullableLong(MappedByteBuffer buffer) {
+        return buffer.get() != 0 ? buffer.getLong() : null;
+    }
+
+    private static void writeNullableDate(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) writeString(out, value.toString());
+    }
+
+    private static LocalDateTime readNullableDate(MappedByteBuffer buffer) {
+        return buffer.get() != 0 ? LocalDateTime.parse(readString(buffer)) : null;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Nie udało się usunąć pliku {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -8,32 +8,35 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.math3.stat.descriptive.rank.Median;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import pl.bgnat.master.xsnts.topicmodeling.dto.CoherenceMetrics;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusFingerprint;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusSnapshot;
 import pl.bgnat.master.xsnts.topicmodeling.dto.Document;
+import pl.bgnat.master.xsnts.topicmodeling.dto.ModelCoherence;
 import pl.bgnat.master.xsnts.topicmodeling.dto.TopicModelingRequest;
 import pl.bgnat.master.xsnts.topicmodeling.dto.TopicModelingResponse;
-import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
+import pl.bgnat.master.xsnts.topicmodeling.dto.VocabularyPruningStats;
 import pl.bgnat.master.xsnts.topicmodeling.model.DocumentTopicAssignment;
 import pl.bgnat.master.xsnts.topicmodeling.model.TopicModelingResult;
 import pl.bgnat.master.xsnts.topicmodeling.model.TopicModelingResult.ModelStatus;
 import pl.bgnat.master.xsnts.topicmodeling.model.TopicResult;
-import pl.bgnat.master.xsnts.normalization.repository.ProcessedTweetRepository;
-import pl.bgnat.master.xsnts.topicmodeling.repository.DocumentTopicAssignmentRepository;
 import pl.bgnat.master.xsnts.topicmodeling.repository.TopicModelingResultRepository;
 import pl.bgnat.master.xsnts.topicmodeling.repository.TopicResultRepository;
-import pl.bgnat.master.xsnts.topicmodeling.strategy.HashtagPoolingStrategy;
-import pl.bgnat.master.xsnts.topicmodeling.strategy.TemporalPoolingStrategy;
+import pl.bgnat.master.xsnts.topicmodeling.utils.TopicProbabilityCodec;
+import pl.bgnat.master.xsnts.topicmodeling.utils.TopicTopWords;
 
 import java.io.File;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -47,24 +50,25 @@ import static pl.bgnat.master.xsnts.topicmodeling.model.TopicModelingResult.Mode
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class MalletTopicModelingService {
 
     public static final int MIN_DOCUMENT_SIZE = 10;
     public static final int MAX_MODEL_ITER    = 10000;
+    private static final int BURN_IN_ITERATIONS = 50;
+    private static final int OPTIMIZE_INTERVAL  = 10;   // co tyle iteracji: optymalizacja alpha/beta, postęp i sprawdzenie anulowania
     private static final List<Integer> K_GRID = List.of(6, 8, 10, 12, 14);
-    private static final Set<String> TWO_LETTER_WHITELIST = Set.of("po", "na", "od", "do");
+    private static final int SAVED_TOP_WORDS = 20;      // top słowa zapisywane z tematem
+    private static final int COHERENCE_TOP_WORDS = 10;  // top słowa do metryk spójności
 
     /* ─────────────────────────  repozytoria  ───────────────────────── */
-    private final ProcessedTweetRepository processedTweetRepository;
     private final TopicModelingResultRepository topicModelingResultRepository;
     private final TopicResultRepository topicResultRepository;
-    private final DocumentTopicAssignmentRepository documentTopicAssignmentRepository;
 
     /* ─────────────────────────  usługi  ───────────────────────── */
-    private final HashtagPoolingStrategy hashtagPoolingStrategy;
-    private final TemporalPoolingStrategy temporalPoolingStrategy;
-
+    private final CorpusDocumentBuilder corpusDocumentBuilder;
+    private final CorpusSnapshotStore corpusSnapshotStore;
+    private final VocabularyPruner vocabularyPruner;
+    private final TopicModelOutputWriter topicModelOutputWriter;
     private final TopicCoherenceCalculator coherenceCalculator;
     private final ObjectMapper objectMapper;
 
@@ -75,9 +79,24 @@ public class MalletTopicModelingService {
     private int defaultIterations;
     @Value("${app.topic-modeling.num-threads:2}")
     private int numThreads;
+    @Value("${app.topic-modeling.coherence-window:110}")
+    private int coherenceWindow;           // długość okna C_V w tokenach, 0 = bez metryk okienkowych
+    @Value("${app.topic-modeling.grid-thread-budget:0}")
+    private int gridThreadBudget;          // 0 = liczba rdzeni
     @Value("${app.topic-modeling.responses-directory:./output/topic_responses}")
     private String responsesDir;
 
+    @Value("${app.topic-modeling.early-stopping.enabled:false}")
+    private boolean earlyStoppingEnabled;  // domyślny tryb, request może go nadpisać
+    @Value("${app.topic-modeling.early-stopping.tolerance:0.0005}")
+    private double earlyStoppingTolerance; // minimalny względny przyrost log-likelihood na token między porcjami
+    @Value("${app.topic-modeling.early-stopping.patience:3}")
+    private int earlyStoppingPatience;     // liczba kolejnych porcji bez poprawy
+    @Value("${app.topic-modeling.early-stopping.min-iterations:200}")
+    private int earlyStoppingMinIterations;
+    @Value("${app.topic-modeling.early-stopping.top-words-overlap:0}")
+    private double topWordsOverlap;        // wymagane średnie pokrycie top-10 słów tematów między sprawdzeniami, 0 = bez warunku
+
     @Value("${app.topic-modeling.alpha-sum:5.0}")
     private double alphaSum;
     @Value("${app.topic-modeling.beta:0.01}")
@@ -87,45 +106,72 @@ public class MalletTopicModelingService {
      * Główna metoda uruchamiająca proces topic modeling
      */
     public TopicModelingResponse performTopicModeling(TopicModelingRequest request) {
+        return performTopicModeling(request, TrainingProgress.NONE);
+    }
+
+    /**
+     * Topic modeling z raportowaniem postępu; anulowanie przez {@link TrainingProgress#isCancelled()} zatrzymuje
+     * sampler najpóźniej po {@value #OPTIMIZE_INTERVAL} iteracjach i kończy się {@link CancellationException},
+     * a rekord modelu dostaje status CANCELLED.
+     * Metoda nie działa w jednej transakcji: rekord modelu i wyniki zapisywane są krótkimi transakcjami
+     * {@link TopicModelOutputWriter}, więc rekord jest widoczny od startu treningu, a status końcowy
+     * (również FAILED) zostaje zatwierdzony niezależnie od błędu
+     */
+    public TopicModelingResponse performTopicModeling(TopicModelingRequest request, TrainingProgress progress) {
         log.info("Rozpoczynam topic modeling strategia: {}", request.getPoolingStrategy());
 
         logMemoryUsage("Start");
         TopicModelingResult modelResult = createModelRecordToBeTrained(request);
+        progress.onModelCreated(modelResult.getId());
 
         try {
-            // 1. Pobierz znormalizowane tweety
-            List<ProcessedTweet> processedTweets = getProcessedTweets(request);
-            logMemoryUsage("Po pobraniu znormalizowanych tweetów");
-
-            // 2. Grupuj tweety z filtrowaniem spamu angielskiego
-            Map<String, List<ProcessedTweet>> groupedTweets = poolTweetsWithStrategy(processedTweets, request.getPoolingStrategy());
-            logMemoryUsage("Po grupowaniu");
-
-            // 3. Dynamiczny próg długości tekstu
-            int medianGroup = (int) new Median().evaluate(groupedTweets.values().stream().mapToDouble(List::size).toArray());
-            int dynMinTextLen = Math.max(10, medianGroup / 2);
-
-            // 4. Przygotuj dokumenty (zoptymalizowane)
-            List<Document> documents = prepareDocumentsFromTweets(groupedTweets, request, dynMinTextLen);
-            logMemoryUsage("Po przygotowaniu dokumentów");
-
-            // Zwolnij pamięć po przygotowaniu dokumentów (bardzo duze obiekty)
-            processedTweets.clear();
-            groupedTweets.clear();
-
-            // 5. Grid-search liczby tematów
-            int bestK = selectBestK(documents);
+            // 1-5. Korpus MALLET ze snapshotu na dysku lub budowany raz i współdzielony przez wszystkie modele przebiegu
+            progress.onPhase("CORPUS");
+            long preparationStart = System.currentTimeMillis();
+            CorpusSnapshot corpus = loadOrBuildCorpus(request);
+            VocabularyPruner.Result pruning = vocabularyPruner.prune(corpus, request);
+            corpus = pruning.corpus();
+            applyPruningStats(modelResult, pruning.stats());
+            List<Document> documents = corpus.documents();
+            InstanceList instances = corpus.instances();
+            modelResult.setCorpusFromSnapshot(corpus.fromSnapshot());
+            CoherenceIndex coherenceIndex = CoherenceIndex.fromInstances(instances);
+            modelResult.setCorpusPreparationMs(System.currentTimeMillis() - preparationStart);
+            logMemoryUsage("Po przygotowaniu korpusu");
+
+            // 6. Grid-search liczby tematów - zwycięski model jest modelem końcowym
+            checkCancelled(progress);
+            progress.onPhase("TRAINING");
+            long trainingStart = System.currentTimeMillis();
+            GridCandidate best = selectBestK(instances, coherenceIndex, request, progress);
+            modelResult.setTrainingMs(System.currentTimeMillis() - trainingStart);
+            modelResult.setIterationsUsed(best.iterations());
+            modelResult.setEarlyStopped(best.earlyStopped());
+            int bestK = best.k();
             request.setNumberOfTopics(bestK);
-
-            // 6. Uruchom MALLET LDA
-            ParallelTopicModel lda = trainLDAModel(documents, request);
+            ParallelTopicModel lda = best.model();
 
             // 7. Zapisy i metryki
+            checkCancelled(progress);
+            progress.onPhase("SAVING");
             String modelPath = saveModel(lda, modelResult.getModelName());
-            extractAndSaveResults(lda, modelResult, documents);
-            CoherenceMetrics metrics = calculateAdvancedCoherence(lda, documents);
+            ModelCoherence coherence = best.coherence();
+            extractAndSaveResults(lda, modelResult, documents, best.topWords(), coherence);
+            CoherenceMetrics metrics = coherence.mean();
 
             // 8. Aktualizuj rekord w bazie
+            modelResult.setCv(metrics.getCv());
+            modelResult.setCvMedian(coherence.median().getCv());
+            modelResult.setNpmiWindow(metrics.getNpmiWindow());
+            modelResult.setPmiMedian(coherence.median().getPmi());
+            modelResult.setNpmiMedian(coherence.median().getNpmi());
+            modelResult.setUmassMedian(coherence.median().getUmass());
+            log.info("Czasy etapów: przygotowanie korpusu {} ms (snapshot: {}), trening {} ms, iteracje modelu {}/{} (early stopping: {}), " +
+                            "słownik {}/{} słów, tokeny {}/{}",
+                    modelResult.getCorpusPreparationMs(), modelResult.getCorpusFromSnapshot(), modelResult.getTrainingMs(),
+                    modelResult.getIterationsUsed(), modelResult.getMaxIterations(), modelResult.getEarlyStopped(),
+                    modelResult.getVocabularySize(), modelResult.getVocabularyBeforePruning(),
+                    modelResult.getTokensCount(), modelResult.getTokensBeforePruning());
             updateModelRecord(modelResult, modelPath, metrics, COMPLETED, bestK, null);
 
 
@@ -135,6 +181,10 @@ public class MalletTopicModelingService {
             TopicModelingResponse response = buildResponse(modelResult);
             persistResponse(response);
             return response;
+        } catch (CancellationException e) {
+            log.info("Topic modeling modelu {} anulowany", modelResult.getId());
+            updateModelRecord(modelResult, null, CoherenceMetrics.empty(), CANCELLED, 0, e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Błąd podczas topic modeling: {}", e.getMessage(), e);
             updateModelRecord(modelResult, null, CoherenceMetrics.empty(),  FAILED, 0, e.getMessage());
@@ -143,66 +193,139 @@ public class MalletTopicModelingService {
     }
 
     /* ─────────────────────────  grid-search  ───────────────────────── */
-    private int selectBestK(List<Document> docs) throws IOException {
-        double bestNpmi = Double.NEGATIVE_INFINITY;
-        int    bestK    = K_GRID.get(0);
-
-        for (int k : K_GRID) {
-            TopicModelingRequest tmp = TopicModelingRequest.builder().numberOfTopics(k).build();
-            ParallelTopicModel mdl  = trainLDAModel(docs, tmp);
-            CoherenceMetrics  cm   = calculateAdvancedCoherence(mdl, docs);
-            if (cm.getNpmi() > bestNpmi) {
-                bestNpmi = cm.getNpmi();
-                bestK    = k;
+
+    /**
+     * Trenuje kandydatów K równolegle w ramach budżetu wątków: każdy model używa {@link #threadsPerModel()} wątków,
+     * a jednocześnie trenowanych jest co najwyżej budżet / wątki_na_model modeli.
+     * Kandydaci trenowani są z pełnymi ustawieniami requestu na wspólnym InstanceList, więc zwycięzca nie jest trenowany ponownie.
+     * Przegrane modele są zwalniane od razu po porównaniu.
+     * Błąd lub anulowanie ustawia wspólną flagę przerwania sprawdzaną przez kandydatów po każdej porcji iteracji
+     * (MALLET ignoruje przerwanie wątku), a metoda przy każdym wyjściu czeka, aż wszyscy kandydaci zatrzymają sampler -
+     * dzięki temu miejsce zadania w puli zwalnia się dopiero, gdy jego wątki przestały liczyć.
+     */
+    private GridCandidate selectBestK(InstanceList instances, CoherenceIndex coherenceIndex, TopicModelingRequest request,
+                                      TrainingProgress progress) throws Exception {
+        List<Integer> grid = resolveTopicsGrid(request);
+        int threadsPerModel = threadsPerModel();
+        int parallelModels = Math.max(1, Math.min(grid.size(), threadBudget() / threadsPerModel));
+        log.info("Grid-search k={}: {} modeli równolegle po {} wątków (budżet {})",
+                grid, parallelModels, threadsPerModel, threadBudget());
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelModels, gridThreadFactory());
+        AtomicBoolean aborted = new AtomicBoolean();
+        try {
+            CompletionService<GridCandidate> completion = new ExecutorCompletionService<>(executor);
+            for (int k : grid) {
+                TopicModelingRequest candidateRequest = request.toBuilder().numberOfTopics(k).build();
+                completion.submit(() -> {
+                    TrainedModel trained = trainLDAModel(instances, candidateRequest, progress, aborted);
+                    TopicTopWords topWords = TopicTopWords.extract(trained.model(), SAVED_TOP_WORDS);
+                    ModelCoherence coherence = calculateAdvancedCoherence(trained.model(), topWords, instances, coherenceIndex);
+                    log.info("grid k={}  NPMI średnie={} mediana={}", k, coherence.mean().getNpmi(), coherence.median().getNpmi());
+                    return new GridCandidate(k, trained.model(), topWords, coherence, trained.iterations(), trained.earlyStopped());
+                });
+            }
+
+            GridCandidate best = null;
+            for (int i = 0; i < grid.size(); i++) {
+                GridCandidate candidate = completion.take().get();
+                if (best == null || isBetter(candidate, best)) {
+                    best = candidate;
+                }
+            }
+            log.info("Wybrano k={} (NPMI średnie={})", best.k(), best.coherence().mean().getNpmi());
+            return best;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            aborted.set(true);
+            executor.shutdownNow();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Kandydaci grid-search k={} nadal kończą bieżącą porcję iteracji", grid);
             }
-            log.info("grid k={}  NPMI={}", k, cm.getNpmi());
         }
-        log.info("Wybrano k={} (NPMI={})", bestK, bestNpmi);
-        return bestK;
     }
 
-    private List<Document> prepareDocumentsFromTweets(Map<String, List<ProcessedTweet>> groupedTweets, TopicModelingRequest request, int dynMinTextLen) {
+    /**
+     * Wyższe średnie NPMI tematów wygrywa; przy remisie (lub NaN) mniejsze K - wynik nie zależy od kolejności ukończenia treningu
+     */
+    private boolean isBetter(GridCandidate candidate, GridCandidate best) {
+        double candidateNpmi = candidate.coherence().mean().getNpmi();
+        double bestNpmi = best.coherence().mean().getNpmi();
+        if (Double.isNaN(bestNpmi)) {
+            return !Double.isNaN(candidateNpmi) || candidate.k() < best.k();
+        }
+        if (Double.isNaN(candidateNpmi)) {
+            return false;
+        }
+        return candidateNpmi > bestNpmi || (candidateNpmi == bestNpmi && candidate.k() < best.k());
+    }
 
-        int minSize = Optional.ofNullable(request.getMinDocumentSize())
-                              .orElse(MIN_DOCUMENT_SIZE);
+    private List<Integer> resolveTopicsGrid(TopicModelingRequest request) {
+        List<Integer> grid = request.getTopicsGrid();
+        if (grid == null || grid.isEmpty()) {
+            return K_GRID;
+        }
+        return grid.stream().distinct().sorted().toList();
+    }
 
-        List<Document> documents = groupedTweets.entrySet().stream()
-                .filter(e -> e.getValue().size() >= minSize)
-                .map(e -> createDocument(e.getKey(), e.getValue(), request, dynMinTextLen))
-                .filter(Objects::nonNull)
-                .toList();
+    private int threadBudget() {
+        return gridThreadBudget > 0 ? gridThreadBudget : Runtime.getRuntime().availableProcessors();
+    }
+
+    private int threadsPerModel() {
+        return Math.max(1, Math.min(numThreads, threadBudget()));
+    }
 
-        log.info("Utworzono {} dokumentów z minimalnym rozmiarem {}", documents.size(), minSize);
-        return documents;
+    private static ThreadFactory gridThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "lda-grid-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
-    private Document createDocument(String documentId, List<ProcessedTweet> tweets, TopicModelingRequest request, int minLen) {
-        StringBuilder sb = new StringBuilder();
-        List<Long> tweetIds = new ArrayList<>();
+    private record GridCandidate(int k, ParallelTopicModel model, TopicTopWords topWords, ModelCoherence coherence,
+                                 int iterations, boolean earlyStopped) { }
 
-        for (ProcessedTweet tweet : tweets) {
-            String json = "lemmatized".equalsIgnoreCase(request.getTokenStrategy())
-                    ? tweet.getTokensLemmatized() : tweet.getTokens();
+    private record TrainedModel(ParallelTopicModel model, int iterations, boolean earlyStopped) { }
 
-            sb.append(extractTokensAsText(tweet.getId(), json, request.isSkipMentions()))
-                    .append(' ');
-            tweetIds.add(tweet.getOriginalTweet().getId());
+    /**
+     * Zwraca korpus ze snapshotu, jeżeli ten sam korpus (parametry i odcisk zakresu dat) był już budowany.
+     * W przeciwnym razie: strumień znormalizowanych tweetów → grupowanie → dokumenty → InstanceList, zapisany jako snapshot.
+     */
+    private CorpusSnapshot loadOrBuildCorpus(TopicModelingRequest request) {
+        CorpusFingerprint fingerprint = corpusSnapshotStore.isEnabled() ? corpusDocumentBuilder.fingerprint(request) : null;
+        if (fingerprint != null) {
+            Optional<CorpusSnapshot> snapshot = corpusSnapshotStore.load(request, fingerprint);
+            if (snapshot.isPresent()) {
+                return snapshot.get();
+            }
         }
-        String text = sb.toString().trim();
-        if (text.length() < minLen) return null;
 
-        return new Document(documentId, text, tweetIds, tweets.size());
-    }
+        List<Document> documents = corpusDocumentBuilder.buildDocuments(request);
+        logMemoryUsage("Po przygotowaniu dokumentów");
 
-    private ParallelTopicModel trainLDAModel(List<Document> documents, TopicModelingRequest request) throws IOException {
-        log.info("Trenuję model LDA na {} utworzonych dokumentach", documents.size());
+        InstanceList instances = prepareInstances(documents, request.isUseBigrams());
+        if (fingerprint != null) {
+            corpusSnapshotStore.save(request, fingerprint, documents, instances);
+        }
+        return new CorpusSnapshot(documents, instances, false);
+    }
 
+    /**
+     * Buduje InstanceList korpusu (tokenizacja, opcjonalne bigramy, alfabet) raz na przebieg.
+     * Na jego podstawie budowany jest też {@link CoherenceIndex} dla metryk spójności.
+     * Alfabet jest zamrażany, a lista współdzielona tylko do odczytu przez wszystkie modele trenowane w przebiegu.
+     */
+    private InstanceList prepareInstances(List<Document> documents, boolean useBigrams) {
         // Ustawienia wstepne pipelineu modelu
         ArrayList<Pipe> pipeList = new ArrayList<>();
         pipeList.add(new CharSequence2TokenSequence(Pattern.compile("\\S+")));
 
         // Opcjonalne bigramy
-        if (request.isUseBigrams()) pipeList.add(new TokenSequenceNGrams(new int[]{2}));
+        if (useBigrams) pipeList.add(new TokenSequenceNGrams(new int[]{2}));
 
         pipeList.add(new TokenSequence2FeatureSequence()); //wymagane na koncu
         Pipe pipe = new SerialPipes(pipeList);
@@ -215,18 +338,32 @@ public class MalletTopicModelingService {
                 .map(Document::text)
                 .toArray(String[]::new);
         instances.addThruPipe(new StringArrayIterator(documentsArray));
+        instances.getDataAlphabet().stopGrowth();
+
+        log.info("Przygotowano korpus: {} dokumentów, {} słów w alfabecie", instances.size(), instances.getDataAlphabet().size());
+        return instances;
+    }
+
+    /**
+     * Trenuje model porcjami po {@value #OPTIMIZE_INTERVAL} iteracji (kolejne wywołania estimate() kontynuują próbkowanie
+     * od bieżącego stanu). Przez pierwsze {@value #BURN_IN_ITERATIONS} iteracji hiperparametry nie są optymalizowane,
+     * potem optymalizacja następuje na końcu każdej porcji - jak przy jednym estimate() z burn-in 50 i interwałem 10.
+     * Po każdej porcji raportowany jest log-likelihood i sprawdzane anulowanie oraz flaga przerwania grid-search
+     * ({@code aborted} - błąd innego kandydata lub koniec wyboru K).
+     * W trybie early stopping trening kończy się wcześniej, gdy log-likelihood przestaje rosnąć ({@link ConvergenceMonitor}).
+     */
+    private TrainedModel trainLDAModel(InstanceList instances, TopicModelingRequest request,
+                                       TrainingProgress progress, AtomicBoolean aborted) throws IOException {
+        log.info("Trenuję model LDA na {} utworzonych dokumentach", instances.size());
 
         int k = request.getNumberOfTopics();
         ParallelTopicModel model = new ParallelTopicModel(k);
         model.addInstances(instances);
 
-        int numThreadsCalculated = Math.min(numThreads, Runtime.getRuntime().availableProcessors());
+        int numThreadsCalculated = threadsPerModel();
         model.setNumThreads(numThreadsCalculated);
 
-        int iterations = Math.min(Optional.ofNullable(
-                request.getMaxIterations()).orElse(defaultIterations),
-                MAX_MODEL_ITER);
-        model.setNumIterations(iterations);
+        int iterations = resolveIterations(request);
 
         // domyślnie: alphaSum = 50/k, beta = 0.01, k - liczba tematow
         double calculatedAlphaSum = this.alphaSum / k;
@@ -241,141 +378,186 @@ public class MalletTopicModelingService {
         }
 
         // MALLET będzie adaptował alpha i beta co 10 iteracj
-        model.setSymmetricAlpha(false);   // asym
-        model.setBurninPeriod(50);        // burn-in
-        model.setOptimizeInterval(10);    // 10 iter
+        model.setSymmetricAlpha(false);                 // asym
+        model.setOptimizeInterval(OPTIMIZE_INTERVAL);   // 10 iter
+        model.setTopicDisplay(0, 0);                    // bez wypisywania tematów co 50 iteracji
 
         log.info("Parametry modelu: tematów={}, iteracji={}, wątków={}, alpha={}, beta={}",
-                model.numTopics, iterations, model.getNumTopics(), alphaSum, beta);
-
-
-        // Trenuj model
-        model.estimate();
+                model.numTopics, iterations, numThreadsCalculated, alphaSum, beta);
+
+
+        // Trenuj model porcjami
+        ConvergenceMonitor convergence = isEarlyStopping(request)
+                ? new ConvergenceMonitor(earlyStoppingTolerance, earlyStoppingPatience,
+                                         Math.max(BURN_IN_ITERATIONS, earlyStoppingMinIterations), topWordsOverlap)
+                : null;
+        boolean earlyStopped = false;
+        int done = 0;
+        while (done < iterations) {
+            checkCancelled(progress);
+            if (aborted.get()) {
+                throw new CancellationException("Trening kandydata k=" + k + " przerwany - grid-search zakończony");
+            }
+            int chunk = Math.min(OPTIMIZE_INTERVAL, iterations - done);
+            // w porcji burn-in warunek iteration > burninPeriod nie jest spełniony, więc alpha/beta nie są optymalizowane
+            model.setBurninPeriod(done < BURN_IN_ITERATIONS ? chunk : 0);
+            model.setNumIterations(chunk);
+            model.estimate();
+            done += chunk;
+            double logLikelihood = model.modelLogLikelihood() / model.totalTokens;
+            progress.onIteration(k, done, iterations, logLikelihood);
+
+            if (convergence != null && done < iterations && convergence.converged(model, done, logLikelihood)) {
+                earlyStopped = true;
+                break;
+            }
+        }
 
+        if (earlyStopped) {
+            log.info("Model LDA k={} zbiegł po {} z {} iteracji (early stopping)", k, done, iterations);
+        }
         log.info("Model LDA wytrenowany pomyślnie");
-        return model;
+        return new TrainedModel(model, done, earlyStopped);
     }
 
-    private Map<String, List<ProcessedTweet>> poolTweetsWithStrategy(List<ProcessedTweet> tweets, String strategy) {
-
-        Map<String, List<ProcessedTweet>> groupedTweets = switch (strategy.toLowerCase()) {
-            case "hashtag" -> hashtagPoolingStrategy.poolTweets(tweets);
-            case "temporal" -> temporalPoolingStrategy.poolTweets(tweets);
-            default -> {
-                log.warn("Nieznana strategia pooling: {}, używam hashtag", strategy);
-                yield hashtagPoolingStrategy.poolTweets(tweets);
-            }
-        };
-
-        log.info("Utworzono {} grup tweetow", groupedTweets.size());
-
-        return groupedTweets;
+    private void applyPruningStats(TopicModelingResult modelResult, VocabularyPruningStats stats) {
+        modelResult.setVocabularyBeforePruning(stats.vocabularyBefore());
+        modelResult.setVocabularySize(stats.vocabularyAfter());
+        modelResult.setTokensBeforePruning(stats.tokensBefore());
+        modelResult.setTokensCount(stats.tokensAfter());
     }
 
-    private void extractAndSaveResults(ParallelTopicModel model, TopicModelingResult modelResult, List<Document> documents) {
-        log.info("Wyciągam i zapisuję wyniki modelu");
-
-        // 1. Zapisz wyniki tematów
-        saveTopicResults(model, modelResult);
-
-        // 2. Zapisz przypisania dokumentów
-        saveDocumentAssignments(model, modelResult, documents);
-
-        // 3. Aktualizuj statystyki tematów
-        updateTopicStatistics(modelResult);
-
-        // 4. Aktualizuj liczniki w głównym rekordzie
-        modelResult.setDocumentsCount(documents.size());
-        modelResult.setOriginalTweetsCount(documents.stream().mapToInt(Document::tweetsCount).sum());
+    private int resolveIterations(TopicModelingRequest request) {
+        return Math.min(Optional.ofNullable(request.getMaxIterations()).orElse(defaultIterations), MAX_MODEL_ITER);
+    }
 
-        topicModelingResultRepository.save(modelResult);
-        log.info("Zapisano wyniki modelu z {} dokumentami", documents.size());
+    private boolean isEarlyStopping(TopicModelingRequest request) {
+        return Optional.ofNullable(request.getEarlyStopping()).orElse(earlyStoppingEnabled);
     }
 
     /**
-     * Oblicza zaawansowane metryki
+     * Kryterium zbieżności treningu: względny przyrost log-likelihood na token między kolejnymi porcjami iteracji
+     * mniejszy niż tolerancja przez {@code patience} porcji z rzędu (po minimalnej liczbie iteracji).
+     * Opcjonalnie wymagana jest też stabilność tematów: średnie pokrycie top-10 słów tematów między dwoma kolejnymi
+     * sprawdzeniami co najmniej {@code topWordsOverlap}. Top słowa liczone są tylko, gdy log-likelihood już się ustabilizował.
      */
-    private CoherenceMetrics calculateAdvancedCoherence(ParallelTopicModel model, List<Document> documents) {
-        // Pobierz top słowa z najlepszego tematu
-        Alphabet alphabet = model.getAlphabet();
-        TreeSet<IDSorter> sortedWords = model.getSortedWords().get(0);
+    private static final class ConvergenceMonitor {
+        private static final int STABILITY_TOP_WORDS = 10;
+
+        private final double tolerance;
+        private final int patience;
+        private final int minIterations;
+        private final double topWordsOverlap;
+        private double previousLogLikelihood = Double.NaN;
+        private int stalledChunks;
+        private int[][] previousTopWords;
+
+        private ConvergenceMonitor(double tolerance, int patience, int minIterations, double topWordsOverlap) {
+            this.tolerance = tolerance;
+            this.patience = Math.max(1, patience);
+            this.minIterations = minIterations;
+            this.topWordsOverlap = topWordsOverlap;
+        }
 
-        List<String> topWords = sortedWords.stream()
-                .limit(10)
-                .map(idSorter -> (String) alphabet.lookupObject(idSorter.getID()))
-                .collect(Collectors.toList());
+        private boolean converged(ParallelTopicModel model, int iterations, double logLikelihood) {
+            if (!Double.isNaN(previousLogLikelihood)) {
+                double improvement = (logLikelihood - previousLogLikelihood) / Math.abs(previousLogLikelihood);
+                stalledChunks = improvement < tolerance ? stalledChunks + 1 : 0;
+            }
+            previousLogLikelihood = logLikelihood;
 
-        List<String> documentTexts = documents.stream()
-                .map(Document::text)
-                .collect(Collectors.toList());
+            if (iterations < minIterations || stalledChunks < patience) return false;
+            if (topWordsOverlap <= 0) return true;
 
-        CoherenceMetrics coherenceMetrics = coherenceCalculator.calculateAllMetrics(topWords, documentTexts);
-        coherenceMetrics.setPerplexity(calculatePerplexity(model));
-        return coherenceMetrics;
-    }
+            int[][] topWords = topWordIds(model);
+            boolean stable = previousTopWords != null && overlap(previousTopWords, topWords) >= topWordsOverlap;
+            previousTopWords = topWords;
+            return stable;
+        }
 
-    private void updateTopicStatistics(TopicModelingResult modelResult) {
-        log.info("Aktualizuję statystyki tematów dla modelu {}", modelResult.getId());
+        private static int[][] topWordIds(ParallelTopicModel model) {
+            TopicTopWords topWords = TopicTopWords.extract(model, STABILITY_TOP_WORDS);
+            int[][] topicsWordIds = new int[topWords.numTopics()][];
+            for (int topicId = 0; topicId < topicsWordIds.length; topicId++) {
+                topicsWordIds[topicId] = topWords.wordIds(topicId, STABILITY_TOP_WORDS);
+                Arrays.sort(topicsWordIds[topicId]);
+            }
+            return topicsWordIds;
+        }
 
-        List<TopicResult> topicResults = topicResultRepository.findByTopicModelingResultIdOrderByTopicId(modelResult.getId());
+        /**
+         * Średnia po tematach części wspólnej top słów (posortowane id) odniesiona do liczby top słów
+         */
+        private static double overlap(int[][] previous, int[][] current) {
+            double sum = 0;
+            for (int topic = 0; topic < current.length; topic++) {
+                int common = 0;
+                for (int i = 0, j = 0; i < previous[topic].length && j < current[topic].length; ) {
+                    if (previous[topic][i] == current[topic][j]) { common++; i++; j++; }
+                    else if (previous[topic][i] < current[topic][j]) i++;
+                    else j++;
+                }
+                sum += (double) common / Math.max(1, current[topic].length);
+            }
+            return current.length > 0 ? sum / current.length : 1.0;
+        }
+    }
 
-        for (TopicResult topicResult : topicResults) {
-            try {
-                // Policz dokumenty dla tego tematu
-                Long documentCount = documentTopicAssignmentRepository.countDocumentsByTopic(topicResult.getTopicId(), modelResult.getId());
+    private static void checkCancelled(TrainingProgress progress) {
+        if (progress.isCancelled()) {
+            throw new CancellationException("Trening anulowany na żądanie");
+        }
+    }
 
-                // Oblicz średnie prawdopodobieństwo (fallback w Javie)
-                Double averageProbability = calculateAverageTopicProbabilityJava(topicResult.getTopicId(), modelResult.getId());
+    private void extractAndSaveResults(ParallelTopicModel model, TopicModelingResult modelResult, List<Document> documents,
+                                       TopicTopWords topWords, ModelCoherence coherence) {
+        log.info("Wyciągam i zapisuję wyniki modelu");
 
-                // Aktualizuj statystyki
-                topicResult.setDocumentCount(documentCount != null ? documentCount.intValue(): 0);
-                topicResult.setAverageProbability(averageProbability != null ? averageProbability : 0.0);
+        // 1. Przypisania dokumentów i statystyki tematów w jednym przebiegu po macierzy theta
+        long phaseStart = System.currentTimeMillis();
+        TopicStatistics statistics = new TopicStatistics(model.getNumTopics());
+        List<DocumentTopicAssignment> assignments = buildDocumentAssignments(model, modelResult, documents, statistics);
+        long thetaMs = System.currentTimeMillis() - phaseStart;
 
-                topicResultRepository.save(topicResult);
+        // 2. Zapisz wyniki tematów razem z ich spójnością i statystykami
+        phaseStart = System.currentTimeMillis();
+        saveTopicResults(model, modelResult, topWords, coherence, statistics);
+        long topicsMs = System.currentTimeMillis() - phaseStart;
 
-                log.debug("Zaktualizowano temat {}: {} dokumentów, prawdopodobieństwo: {}}", topicResult.getTopicId(), documentCount, averageProbability);
+        // 3. Zapisz przypisania dokumentów
+        phaseStart = System.currentTimeMillis();
+        topicModelOutputWriter.saveAssignments(assignments);
+        long assignmentsMs = System.currentTimeMillis() - phaseStart;
+        log.info("Czasy zapisu: przypisania i statystyki z theta {} ms, tematy {} ms, przypisania dokumentów {} ms ({} wierszy)",
+                thetaMs, topicsMs, assignmentsMs, assignments.size());
 
-            } catch (Exception e) {
-                log.error("Błąd podczas aktualizacji statystyk tematu {}: {}", topicResult.getTopicId(), e.getMessage());
-            }
-        }
+        // 4. Aktualizuj liczniki w głównym rekordzie
+        modelResult.setDocumentsCount(documents.size());
+        modelResult.setOriginalTweetsCount(documents.stream().mapToInt(Document::tweetsCount).sum());
 
-        log.info("Zakończono aktualizację statystyk tematów");
+        topicModelOutputWriter.saveModelRecord(modelResult);
+        log.info("Zapisano wyniki modelu z {} dokumentami", documents.size());
     }
 
-    private Double calculateAverageTopicProbabilityJava(Integer topicId, Long modelId) {
-        try {
-            List<DocumentTopicAssignment> assignments = documentTopicAssignmentRepository
-                    .findByTopicModelingResultId(modelId);
-
-            double sum = 0.0;
-            int count = 0;
-
-            for (DocumentTopicAssignment assignment : assignments) {
-                try {
-                    Map<String, Double> probabilities = objectMapper.readValue(
-                            assignment.getTopicProbabilities(),
-                            new TypeReference<Map<String, Double>>() {});
-
-                    Double probability = probabilities.get(topicId.toString());
-                    if (probability != null) {
-                        sum += probability;
-                        count++;
-                    }
-                } catch (Exception e) {
-                    // Skip problematic records
-                }
-            }
-
-            return count > 0 ? sum / count : 0.0;
-
-        } catch (Exception e) {
-            log.error("Błąd obliczania średniego prawdopodobieństwa dla tematu {}: {}",
-                    topicId, e.getMessage());
-            return 0.0;
-        }
+    /**
+     * Oblicza metryki spójności wszystkich tematów (równolegle, na wspólnym indeksie korpusu),
+     * metryki okienkowe C_V / NPMI (jeden przebieg po tokenach korpusu)
+     * oraz perplexity modelu, dołączone do metryk średnich
+     */
+    private ModelCoherence calculateAdvancedCoherence(ParallelTopicModel model, TopicTopWords topWords,
+                                                     InstanceList instances, CoherenceIndex coherenceIndex) {
+        List<int[]> topicsWordIds = topWords.wordIds(COHERENCE_TOP_WORDS);
+        List<List<String>> topicsTopWords = topWords.words(model.getAlphabet(), COHERENCE_TOP_WORDS);
+
+        SlidingWindowCoherence.Result windowCoherence = coherenceWindow > 0
+                ? SlidingWindowCoherence.calculate(instances, topicsWordIds, coherenceWindow)
+                : null;
+        ModelCoherence coherence = coherenceCalculator.calculateModelMetrics(topicsTopWords, coherenceIndex, windowCoherence);
+        coherence.mean().setPerplexity(calculatePerplexity(model));
+        return coherence;
     }
 
+    @Transactional(readOnly = true)
     public List<TopicModelingResponse> getAvailableModels() {
         return topicModelingResultRepository.findByStatusOrderByTrainingDateDesc(
                         COMPLETED)
@@ -384,6 +566,7 @@ public class MalletTopicModelingService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public TopicModelingResponse getModelDetails(Long modelId) {
         TopicModelingResult model = topicModelingResultRepository.findById(modelId)
                 .orElseThrow(() -> new RuntimeException("Model not found: " + modelId));
@@ -407,66 +590,16 @@ public class MalletTopicModelingService {
                 .numberOfTopics(request.getNumberOfTopics())
                 .poolingStrategy(request.getPoolingStrategy())
                 .isUseBigrams(request.isUseBigrams())
+                .maxIterations(resolveIterations(request))
                 .documentsCount(0)
                 .originalTweetsCount(0)
                 .trainingDate(LocalDateTime.now())
                 .status(TRAINING)
                 .build();
 
-        return topicModelingResultRepository.save(model);
-    }
-
-    private List<ProcessedTweet> getProcessedTweets(TopicModelingRequest request) {
-
-        LocalDateTime from = request.getStartDate();
-        LocalDateTime to   = request.getEndDate();
-
-        // log – początek
-        log.info("Pobieram tweety: od={}  do={}", from, to);
-
-        // oba krańce
-        if (from != null && to != null) {
-            List<ProcessedTweet> list = processedTweetRepository.findAllInDateRange(from, to);
-            log.debug("Zwrócono {} tweetów (BETWEEN)", list.size());
-            return list;
-        }
-
-        // tylko dolna granica
-        if (from != null) {
-            List<ProcessedTweet> list = processedTweetRepository.findByOriginalTweet_PostDateAfter(from);
-            log.debug("Zwrócono {} tweetów (>= {} )", list.size(), from);
-            return list;
-        }
-
-        // tylko górna granica
-        if (to != null) {
-            List<ProcessedTweet> list = processedTweetRepository.findByOriginalTweet_PostDateBefore(to);
-            log.debug("Zwrócono {} tweetów (<= {} )", list.size(), to);
-            return list;
-        }
-
-        // brak filtrów
-        List<ProcessedTweet> list = processedTweetRepository.findAll();
-        log.debug("Zwrócono {} tweetów (bez filtra daty)", list.size());
-        return list;
+        return topicModelOutputWriter.saveModelRecord(model);
     }
 
-    private String extractTokensAsText(Long tweetId, String tweetTokensJson, boolean skipMentions) {
-        try {
-            List<String> toks = objectMapper.readValue(tweetTokensJson, new TypeReference<>() {});
-            return toks.stream()
-                    .filter(t -> !skipMentions || !t.equals("@anonymized"))
-                    .filter(t -> t.length() > 2 ||
-                            (t.length() == 2 && TWO_LETTER_WHITELIST.contains(t)))
-                    .collect(Collectors.joining(" "));
-        } catch (Exception e) {
-            log.warn("Token parse error tweet {}", tweetId, e);
-            return "";
-        }
-    }
-
-
-
     private String saveModel(ParallelTopicModel model, String modelName) {
         File modelsDir = new File(modelsDirectory);
         if (!modelsDir.exists()) {
@@ -480,26 +613,21 @@ public class MalletTopicModelingService {
         return modelPath;
     }
 
-    private void saveTopicResults(ParallelTopicModel model, TopicModelingResult modelResult) {
+    private void saveTopicResults(ParallelTopicModel model, TopicModelingResult modelResult, TopicTopWords topicsTopWords,
+                                  ModelCoherence coherence, TopicStatistics statistics) {
         Alphabet alphabet = model.getAlphabet();
+        List<TopicResult> topicResults = new ArrayList<>(model.getNumTopics());
 
         for (int topicId = 0; topicId < model.getNumTopics(); topicId++) {
-            TreeSet<IDSorter> sortedWords = model.getSortedWords().get(topicId);
-
-            List<WordWeight> topWords = new ArrayList<>();
-            int wordCount = 0;
-
-            for (IDSorter idSorter : sortedWords) {
-                if (wordCount >= 20) break;
-
-                String word = (String) alphabet.lookupObject(idSorter.getID());
-                double weight = idSorter.getWeight();
+            CoherenceMetrics topicCoherence = coherence.topics().get(topicId);
 
+            int[] wordIds = topicsTopWords.wordIds(topicId, SAVED_TOP_WORDS);
+            List<WordWeight> topWords = new ArrayList<>(wordIds.length);
+            for (int rank = 0; rank < wordIds.length; rank++) {
                 topWords.add(WordWeight.builder()
-                        .word(word)
-                        .weight(weight)
+                        .word((String) alphabet.lookupObject(wordIds[rank]))
+                        .weight((double) topicsTopWords.weight(topicId, rank))
                         .build());
-                wordCount++;
             }
 
             String topicLabel = generateTopicLabel(topWords);
@@ -510,19 +638,32 @@ public class MalletTopicModelingService {
                         .topicId(topicId)
                         .topicLabel(topicLabel)
                         .topWords(objectMapper.writeValueAsString(topWords))
-                        .wordCount(sortedWords.size())
-                        .documentCount(0)
-                        .averageProbability(0.0)
+                        .wordCount(topicsTopWords.nonZeroWords(topicId))
+                        .documentCount(statistics.documentCount(topicId))
+                        .averageProbability(statistics.averageProbability(topicId))
+                        .pmi(topicCoherence.getPmi())
+                        .npmi(topicCoherence.getNpmi())
+                        .umass(topicCoherence.getUmass())
+                        .uci(topicCoherence.getUci())
+                        .cv(topicCoherence.getCv())
+                        .npmiWindow(topicCoherence.getNpmiWindow())
                         .build();
 
-                topicResultRepository.save(topicResult);
+                topicResults.add(topicResult);
             } catch (Exception e) {
                 log.error("Błąd podczas zapisywania tematu {}: {}", topicId, e.getMessage());
             }
         }
+        topicModelOutputWriter.saveTopics(topicResults);
     }
 
-    private void saveDocumentAssignments(ParallelTopicModel model, TopicModelingResult modelResult, List<Document> documents) {
+    /**
+     * Tworzy przypisania dokumentów i w tym samym przebiegu po theta zlicza statystyki tematów
+     * (liczba dokumentów z dominującym tematem, suma prawdopodobieństw tematu)
+     */
+    private List<DocumentTopicAssignment> buildDocumentAssignments(ParallelTopicModel model, TopicModelingResult modelResult,
+                                                                   List<Document> documents, TopicStatistics statistics) {
+        List<DocumentTopicAssignment> assignments = new ArrayList<>(documents.size());
         for (int docIndex = 0; docIndex < documents.size(); docIndex++) {
             Document document = documents.get(docIndex);
 
@@ -538,28 +679,55 @@ public class MalletTopicModelingService {
                         dominantTopicId = i;
                     }
                 }
-
-                Map<Integer, Double> probabilities = new HashMap<>();
-                for (int i = 0; i < topicProbabilities.length; i++) {
-                    probabilities.put(i, topicProbabilities[i]);
-                }
+                statistics.add(topicProbabilities, dominantTopicId);
 
                 DocumentTopicAssignment assignment = DocumentTopicAssignment.builder()
                         .topicModelingResult(modelResult)
                         .documentId(document.id())
                         .documentType(determineDocumentType(document.id()))
                         .dominantTopicId(dominantTopicId)
-                        .topicProbabilities(objectMapper.writeValueAsString(probabilities))
+                        .topicProbabilityVector(TopicProbabilityCodec.encode(topicProbabilities))
                         .tweetIds(objectMapper.writeValueAsString(document.tweetIds()))
                         .tweetsCount(document.tweetsCount())
                         .build();
 
-                documentTopicAssignmentRepository.save(assignment);
+                assignments.add(assignment);
 
             } catch (Exception e) {
                 log.error("Błąd podczas zapisywania przypisania dokumentu {}: {}", document.id(), e.getMessage());
             }
         }
+        return assignments;
+    }
+
+    /**
+     * Statystyki tematów liczone z macierzy theta modelu (bez ponownego odczytu przypisań z bazy)
+     */
+    private static final class TopicStatistics {
+        private final int[] documentCounts;
+        private final double[] probabilitySums;
+        private int documents;
+
+        private TopicStatistics(int numTopics) {
+            this.documentCounts = new int[numTopics];
+            this.probabilitySums = new double[numTopics];
+        }
+
+        private void add(double[] topicProbabilities, int dominantTopicId) {
+            documentCounts[dominantTopicId]++;
+            for (int i = 0; i < topicProbabilities.length; i++) {
+                probabilitySums[i] += topicProbabilities[i];
+            }
+            documents++;
+        }
+
+        private int documentCount(int topicId) {
+            return documentCounts[topicId];
+        }
+
+        private double averageProbability(int topicId) {
+            return documents > 0 ? probabilitySums[topicId] / documents : 0.0;
+        }
     }
 
     private String generateTopicLabel(List<WordWeight> topWords) {
@@ -599,7 +767,7 @@ public class MalletTopicModelingService {
         model.setStatus(status);
         model.setErrorMessage(errorMessage);
 
-        topicModelingResultRepository.save(model);
+        topicModelOutputWriter.saveModelRecord(model);
     }
 
     private TopicModelingResponse buildResponse(TopicModelingResult model) {
@@ -625,9 +793,28 @@ public class MalletTopicModelingService {
                 .pmiScore(model.getPmi())
                 .uciScore(model.getUci())
                 .umassScore(model.getUmass())
+                .cvScore(model.getCv())
+                .cvMedian(model.getCvMedian())
+                .npmiWindowScore(model.getNpmiWindow())
+                .pmiMedian(model.getPmiMedian())
+                .npmiMedian(model.getNpmiMedian())
+                .umassMedian(model.getUmassMedian())
                 .pmiInterpretation(model.getCoherenceInterpretation())
                 .umassInterpretation(model.getUmassInterpretation())
                 .perplexity(model.getPerplexity())
+                .corpusPreparationMs(model.getCorpusPreparationMs())
+                .corpusFromSnapshot(model.getCorpusFromSnapshot())
+                .trainingMs(model.getTrainingMs())
+                .maxIterations(model.getMaxIterations())
+                .iterationsUsed(model.getIterationsUsed())
+                .earlyStopped(model.getEarlyStopped())
+                .vocabularyBeforePruning(model.getVocabularyBeforePruning())
+                .vocabularySize(model.getVocabularySize())
+                .tokensBeforePruning(model.getTokensBeforePruning())
+                .tokensCount(model.getTokensCount())
+                .samplingSpeedup(model.getTokensCount() != null && model.getTokensCount() > 0
+                        ? (double) model.getTokensBeforePruning() / model.getTokensCount()
+                        : null)
                 .status(model.getStatus().name())
                 .topics(topics)
                 .build();
@@ -671,6 +858,12 @@ public class MalletTopicModelingService {
                 .topWords(topWords)
                 .documentCount(topicResult.getDocumentCount())
                 .averageProbability(topicResult.getAverageProbability())
+                .pmi(topicResult.getPmi())
+                .npmi(topicResult.getNpmi())
+                .umass(topicResult.getUmass())
+                .uci(topicResult.getUci())
+                .cv(topicResult.getCv())
+                .npmiWindow(topicResult.getNpmiWindow())
                 .build();
     }
 
@@ -0,0 +1,291 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import cc.mallet.types.FeatureSequence;
+import cc.mallet.types.InstanceList;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Spójność tematów liczona na przesuwanym oknie (boolean sliding window): C_V i NPMI okienkowe.
+ * <p>
+ * Dokumenty z poolingu (hashtag/dzień) są długie, więc współwystąpienie na poziomie dokumentu jest niemal
+ * nasycone. Tutaj "dokumentem" jest każde okno o stałej długości przesuwane po sekwencji tokenów.
+ * Liczone są tylko słowa z sumy top słów wszystkich tematów, w prymitywnych tablicach
+ * (trójkąt górny macierzy par), więc pamięć zależy od liczby top słów, a nie od korpusu.
+ * Korpus przechodzony jest raz, równolegle na fragmentach dokumentów, których liczniki są sumowane.
+ * Kolejne okna o tym samym zbiorze top słów są zliczane łącznie (zbiór zmienia się rzadko).
+ */
+public final class SlidingWindowCoherence {
+
+    private static final double EPSILON = 1e-12;
+    private static final int MIN_DOCUMENTS_PER_SHARD = 64;
+
+    private SlidingWindowCoherence() {
+    }
+
+    /**
+     * Wynik dla tematów (indeks = topicId)
+     * @param cv      spójność C_V
+     * @param npmi    średnie NPMI par top słów liczone na oknach
+     * @param windows liczba okien w korpusie
+     */
+    public record Result(double[] cv, double[] npmi, long windows) { }
+
+    /**
+     * @param instances      korpus (FeatureSequence z identyfikatorami alfabetu)
+     * @param topicsWordIds  identyfikatory top słów kolejnych tematów w alfabecie korpusu
+     * @param windowSize     długość okna w tokenach
+     */
+    public static Result calculate(InstanceList instances, List<int[]> topicsWordIds, int windowSize) {
+        // tablice FeatureSequence używane bez kopiowania (mogą być dłuższe niż liczba tokenów)
+        int[][] documents = new int[instances.size()][];
+        int[] lengths = new int[instances.size()];
+        for (int i = 0; i < documents.length; i++) {
+            FeatureSequence tokens = (FeatureSequence) instances.get(i).getData();
+            documents[i] = tokens.getFeatures();
+            lengths[i] = tokens.getLength();
+        }
+        return calculate(documents, lengths, instances.getDataAlphabet().size(), topicsWordIds, windowSize);
+    }
+
+    /**
+     * @param documents      sekwencje identyfikatorów słów
+     * @param lengths        liczba tokenów kolejnych dokumentów
+     * @param vocabularySize rozmiar słownika (identyfikatory z zakresu [0, vocabularySize))
+     * @param topicsWordIds  identyfikatory top słów kolejnych tematów
+     * @param windowSize     długość okna w tokenach
+     */
+    public static Result calculate(int[][] documents, int[] lengths, int vocabularySize, List<int[]> topicsWordIds, int windowSize) {
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("Okno musi mieć co najmniej 2 tokeny: " + windowSize);
+        }
+
+        // słowo → indeks lokalny w sumie top słów (-1 = słowo pomijane)
+        int[] localIndex = new int[vocabularySize];
+        Arrays.fill(localIndex, -1);
+        int unionSize = 0;
+        for (int[] wordIds : topicsWordIds) {
+            for (int wordId : wordIds) {
+                if (localIndex[wordId] < 0) {
+                    localIndex[wordId] = unionSize++;
+                }
+            }
+        }
+        int words = unionSize;
+
+        int shards = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                documents.length / MIN_DOCUMENTS_PER_SHARD));
+        WindowCounts counts = IntStream.range(0, shards)
+                .parallel()
+                .mapToObj(shard -> countShard(documents, lengths,
+                        (int) ((long) documents.length * shard / shards),
+                        (int) ((long) documents.length * (shard + 1) / shards),
+                        localIndex, words, windowSize))
+                .reduce(WindowCounts::merge)
+                .orElseGet(() -> new WindowCounts(words));
+
+        double[] cv = new double[topicsWordIds.size()];
+        double[] npmi = new double[topicsWordIds.size()];
+        for (int topic = 0; topic < topicsWordIds.size(); topic++) {
+            int[] topicWords = Arrays.stream(topicsWordIds.get(topic)).map(wordId -> localIndex[wordId]).toArray();
+            double[][] npmiMatrix = counts.npmiMatrix(topicWords);
+            cv[topic] = counts.windows == 0 ? Double.NaN : cv(npmiMatrix);
+            npmi[topic] = counts.windows == 0 ? Double.NaN : meanPairwise(npmiMatrix);
+        }
+        return new Result(cv, npmi, counts.windows);
+    }
+
+    private static WindowCounts countShard(int[][] documents, int[] lengths, int from, int to, int[] localIndex, int words, int windowSize) {
+        WindowCounts counts = new WindowCounts(words);
+        WindowState window = new WindowState(words);
+
+        for (int d = from; d < to; d++) {
+            int[] tokens = documents[d];
+            int length = lengths[d];
+            if (length == 0) continue;
+
+            window.reset();
+            int firstWindowEnd = Math.min(windowSize, length);
+            for (int i = 0; i < firstWindowEnd; i++) {
+                window.add(localIndex[tokens[i]]);
+            }
+            long run = 1;
+
+            for (int start = 1; start + windowSize <= length; start++) {
+                int leaving = localIndex[tokens[start - 1]];
+                int entering = localIndex[tokens[start + windowSize - 1]];
+                if (leaving == entering) {
+                    run++;
+                    continue;
+                }
+                if (window.changesOnSlide(leaving, entering)) {
+                    counts.addWindows(window, run);
+                    run = 0;
+                }
+                window.remove(leaving);
+                window.add(entering);
+                run++;
+            }
+            counts.addWindows(window, run);
+        }
+        return counts;
+    }
+
+    /**
+     * C_V: dla każdego słowa cosinus między jego wektorem NPMI a sumą wektorów wszystkich top słów (segmentacja one-set)
+     */
+    private static double cv(double[][] npmi) {
+        int n = npmi.length;
+        if (n < 2) return Double.NaN;
+
+        double[] topicVector = new double[n];
+        for (double[] row : npmi) {
+            for (int j = 0; j < n; j++) {
+                topicVector[j] += row[j];
+            }
+        }
+
+        double sum = 0;
+        for (double[] row : npmi) {
+            sum += cosine(row, topicVector);
+        }
+        return sum / n;
+    }
+
+    private static double cosine(double[] a, double[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0.0 : dot / Math.sqrt(normA * normB);
+    }
+
+    private static double meanPairwise(double[][] npmi) {
+        int n = npmi.length;
+        if (n < 2) return Double.NaN;
+
+        double sum = 0;
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                sum += npmi[i][j];
+            }
+        }
+        return sum / (n * (n - 1) / 2.0);
+    }
+
+    /**
+     * Liczniki okien zawierających słowo / parę słów (para tylko w górnym trójkącie)
+     */
+    private static final class WindowCounts {
+        private final int words;
+        private final long[] wordWindows;
+        private final long[] pairWindows;
+        private long windows;
+
+        private WindowCounts(int words) {
+            this.words = words;
+            this.wordWindows = new long[words];
+            this.pairWindows = new long[words * (words - 1) / 2];
+        }
+
+        private void addWindows(WindowState window, long run) {
+            if (run == 0) return;
+            windows += run;
+
+            int[] present = window.present;
+            int size = window.size;
+            for (int i = 0; i < size; i++) {
+                wordWindows[present[i]] += run;
+                for (int j = i + 1; j < size; j++) {
+                    pairWindows[pairIndex(present[i], present[j])] += run;
+                }
+            }
+        }
+
+        private WindowCounts merge(WindowCounts other) {
+            windows += other.windows;
+            for (int i = 0; i < wordWindows.length; i++) wordWindows[i] += other.wordWindows[i];
+            for (int i = 0; i < pairWindows.length; i++) pairWindows[i] += other.pairWindows[i];
+            return this;
+        }
+
+        private double[][] npmiMatrix(int[] topicWords) {
+            int n = topicWords.length;
+            double[][] matrix = new double[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = i; j < n; j++) {
+                    double value = npmi(topicWords[i], topicWords[j]);
+                    matrix[i][j] = value;
+                    matrix[j][i] = value;
+                }
+            }
+            return matrix;
+        }
+
+        private double npmi(int a, int b) {
+            double pA = (double) wordWindows[a] / windows;
+            double pB = (double) wordWindows[b] / windows;
+            if (pA == 0 || pB == 0) return 0.0;
+
+            double pAB = (a == b ? wordWindows[a] : pairWindows[pairIndex(a, b)]) / (double) windows;
+            double pmi = Math.log((pAB + EPSILON) / (pA * pB));
+            return pmi / -Math.log(pAB + EPSILON);
+        }
+
+        private int pairIndex(int a, int b) {
+            int low = Math.min(a, b);
+            int high = Math.max(a, b);
+            return low * (2 * words - low - 1) / 2 + (high - low - 1);
+        }
+    }
+
+    /**
+     * Aktualny zbiór top słów w oknie: liczności w oknie i lista obecnych słów z usuwaniem w O(1)
+     */
+    private static final class WindowState {
+        private final int[] inWindow;
+        private final int[] position;
+        private final int[] present;
+        private int size;
+
+        private WindowState(int words) {
+            this.inWindow = new int[words];
+            this.position = new int[words];
+            this.present = new int[words];
+        }
+
+        private void reset() {
+            for (int i = 0; i < size; i++) {
+                inWindow[present[i]] = 0;
+            }
+            size = 0;
+        }
+
+        private boolean changesOnSlide(int leaving, int entering) {
+            return (leaving >= 0 && inWindow[leaving] == 1) || (entering >= 0 && inWindow[entering] == 0);
+        }
+
+        private void add(int word) {
+            if (word < 0) return;
+            if (inWindow[word]++ == 0) {
+                position[word] = size;
+                present[size++] = word;
+            }
+        }
+
+        private void remove(int word) {
+            if (word < 0) return;
+            if (--inWindow[word] == 0) {
+                int last = present[--size];
+                present[position[word]] = last;
+                position[last] = position[word];
+            }
+        }
+    }
+}
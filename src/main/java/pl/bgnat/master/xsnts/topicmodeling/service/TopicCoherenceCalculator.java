@@ -3,12 +3,16 @@ package pl.bgnat.master.xsnts.topicmodeling.service;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.math3.stat.descriptive.rank.Median;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import pl.bgnat.master.xsnts.topicmodeling.dto.CoherenceMetrics;
+import pl.bgnat.master.xsnts.topicmodeling.dto.ModelCoherence;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * Kalkulator zaawansowanych metryk spójności tematów, zaimplementowany
@@ -27,6 +31,8 @@ public class TopicCoherenceCalculator {
     /**
      * Główna metoda obliczeniowa. Zwraca cztery metryki spójności obliczone
      * na podstawie listy słów kluczowych tematu oraz korpusu dokumentów.
+     * Przy wielu tematach na tym samym korpusie należy zbudować {@link CoherenceIndex} raz
+     * i użyć {@link #calculateAllMetrics(List, CoherenceIndex)}.
      *
      * @param topWords  Lista N najważniejszych słów dla danego tematu.
      * @param documents Lista dokumentów (jako stringi tokenów oddzielonych spacją),
@@ -35,18 +41,33 @@ public class TopicCoherenceCalculator {
      */
     public CoherenceMetrics calculateAllMetrics(List<String> topWords,
                                                 List<String> documents) {
+        if (CollectionUtils.isEmpty(documents)) {
+            return CoherenceMetrics.empty();
+        }
+        return calculateAllMetrics(topWords, CoherenceIndex.fromDocuments(documents));
+    }
+
+    /**
+     * Oblicza metryki spójności tematu na podstawie indeksu odwróconego korpusu
+     * (liczności dokumentów i przecięcia list dokumentów, bez ponownego skanowania tekstów).
+     *
+     * @param topWords Lista N najważniejszych słów dla danego tematu.
+     * @param index    Indeks dokumentów korpusu.
+     * @return Obiekt CoherenceMetrics zawierający obliczone wartości.
+     */
+    public CoherenceMetrics calculateAllMetrics(List<String> topWords, CoherenceIndex index) {
         // Wstępna walidacja danych wejściowych
-        if (CollectionUtils.isEmpty(topWords) || topWords.size() < 2 || CollectionUtils.isEmpty(documents)) {
+        if (CollectionUtils.isEmpty(topWords) || topWords.size() < 2 || index == null || index.getDocumentCount() == 0) {
             return CoherenceMetrics.empty();
         }
 
-        // 1. Zbuduj statystyki słów i ich współwystąpień
-        WordCooccurrenceStats stats = buildStats(topWords, documents);
+        // 1. Policz liczności słów i ich współwystąpień z indeksu
+        WordCooccurrenceStats stats = buildStats(topWords, index);
 
         // 2. Oblicz średnie wartości metryk dla wszystkich par słów
-        double avgPmi = meanPairwise(topWords, (w1, w2) -> pmi(w1, w2, stats));
-        double avgNpmi = meanPairwise(topWords, (w1, w2) -> npmi(w1, w2, stats));
-        double avgUmass = meanPairwise(topWords, (w1, w2) -> umass(w1, w2, stats));
+        double avgPmi = meanPairwise(stats, (i, j) -> pmi(i, j, stats));
+        double avgNpmi = meanPairwise(stats, (i, j) -> npmi(i, j, stats));
+        double avgUmass = meanPairwise(stats, (i, j) -> umass(i, j, stats));
 
         // 3. Oblicz metrykę UCI (która jest średnią z PMI)
         double uci = avgPmi;
@@ -64,14 +85,71 @@ public class TopicCoherenceCalculator {
     }
 
     /**
-     * Oblicza średnią wartość funkcji `f` dla wszystkich unikalnych par słów z listy.
+     * Oblicza metryki spójności dla wszystkich tematów modelu równolegle (indeks korpusu jest współdzielony
+     * i bezpieczny wątkowo) oraz ich średnią i medianę.
+     *
+     * @param topicsTopWords Top słowa kolejnych tematów (indeks = topicId).
+     * @param index          Indeks dokumentów korpusu.
+     * @return Metryki per temat i zagregowane.
      */
-    private double meanPairwise(List<String> words, ScoreFunction f) {
+    public ModelCoherence calculateModelMetrics(List<List<String>> topicsTopWords, CoherenceIndex index) {
+        return calculateModelMetrics(topicsTopWords, index, null);
+    }
+
+    /**
+     * Jak {@link #calculateModelMetrics(List, CoherenceIndex)}, z dołączonymi metrykami okienkowymi (C_V, NPMI okna).
+     *
+     * @param windowCoherence Wynik {@link SlidingWindowCoherence} dla tych samych tematów albo null.
+     */
+    public ModelCoherence calculateModelMetrics(List<List<String>> topicsTopWords, CoherenceIndex index,
+                                                SlidingWindowCoherence.Result windowCoherence) {
+        List<CoherenceMetrics> topics = IntStream.range(0, topicsTopWords.size())
+                .parallel()
+                .mapToObj(topicId -> {
+                    CoherenceMetrics metrics = calculateAllMetrics(topicsTopWords.get(topicId), index);
+                    metrics.setCv(windowCoherence != null ? windowCoherence.cv()[topicId] : Double.NaN);
+                    metrics.setNpmiWindow(windowCoherence != null ? windowCoherence.npmi()[topicId] : Double.NaN);
+                    return metrics;
+                })
+                .toList();
+
+        int documentCount = index == null ? 0 : index.getDocumentCount();
+        return new ModelCoherence(topics, aggregate(topics, documentCount, false), aggregate(topics, documentCount, true));
+    }
+
+    private CoherenceMetrics aggregate(List<CoherenceMetrics> topics, int documentCount, boolean median) {
+        double pmi = aggregate(topics, CoherenceMetrics::getPmi, median);
+        return CoherenceMetrics.builder()
+                .pmi(pmi)
+                .npmi(aggregate(topics, CoherenceMetrics::getNpmi, median))
+                .umass(aggregate(topics, CoherenceMetrics::getUmass, median))
+                .uci(pmi)
+                .cv(aggregate(topics, CoherenceMetrics::getCv, median))
+                .npmiWindow(aggregate(topics, CoherenceMetrics::getNpmiWindow, median))
+                .wordCount(topics.stream().mapToInt(CoherenceMetrics::getWordCount).sum())
+                .documentCount(documentCount)
+                .build();
+    }
+
+    private double aggregate(List<CoherenceMetrics> topics, Function<CoherenceMetrics, Double> metric, boolean median) {
+        double[] values = topics.stream()
+                .map(metric)
+                .filter(value -> value != null && !Double.isNaN(value))
+                .mapToDouble(Double::doubleValue)
+                .toArray();
+        if (values.length == 0) return Double.NaN;
+        return median ? new Median().evaluate(values) : Arrays.stream(values).average().orElse(Double.NaN);
+    }
+
+    /**
+     * Oblicza średnią wartość funkcji `f` dla wszystkich unikalnych par słów (indeksy w liście top słów).
+     */
+    private double meanPairwise(WordCooccurrenceStats stats, ScoreFunction f) {
         double sum = 0;
         int count = 0;
-        for (int i = 0; i < words.size() - 1; i++) {
-            for (int j = i + 1; j < words.size(); j++) {
-                double score = f.apply(words.get(i), words.get(j));
+        for (int i = 0; i < stats.size() - 1; i++) {
+            for (int j = i + 1; j < stats.size(); j++) {
+                double score = f.apply(i, j);
                 if (!Double.isNaN(score) && !Double.isInfinite(score)) {
                     sum += score;
                     count++;
@@ -89,7 +167,7 @@ public class TopicCoherenceCalculator {
      * Oblicza Wzajemną Informację Punktową (PMI) z wygładzaniem.
      * Wzór: log2( (P(wi, wj) * D + epsilon) / (P(wi) * P(wj)) ) -- interpretacja z użyciem liczności.
      */
-    private double pmi(String w1, String w2, WordCooccurrenceStats s) {
+    private double pmi(int w1, int w2, WordCooccurrenceStats s) {
         double pWi = s.prob(w1);
         double pWj = s.prob(w2);
         double pWij = s.coProb(w1, w2);
@@ -103,7 +181,7 @@ public class TopicCoherenceCalculator {
      * Oblicza Znormalizowaną Wzajemną Informację Punktową (NPMI).
      * Wzór: PMI(wi, wj) / -log2(P(wi, wj))
      */
-    private double npmi(String w1, String w2, WordCooccurrenceStats s) {
+    private double npmi(int w1, int w2, WordCooccurrenceStats s) {
         double pmiScore = pmi(w1, w2, s);
         double pWij = s.coProb(w1, w2);
 
@@ -117,7 +195,7 @@ public class TopicCoherenceCalculator {
      * Oblicza spójność UMass.
      * Wzór: log( (D(wi, wj) + epsilon) / D(wi) )
      */
-    private double umass(String w1, String w2, WordCooccurrenceStats s) {
+    private double umass(int w1, int w2, WordCooccurrenceStats s) {
         int dWj = s.count(w2);
         int dWij = s.coCount(w1, w2);
 
@@ -130,78 +208,73 @@ public class TopicCoherenceCalculator {
      * ====================================================================== */
 
     /**
-     * Przetwarza listę dokumentów w celu zbudowania statystyk potrzebnych do obliczeń.
+     * Pobiera z indeksu liczności słów i par słów tematu do tablic prymitywnych.
      */
-    private WordCooccurrenceStats buildStats(List<String> topWords, List<String> docs) {
-        Map<String, Integer> wordCounts = new HashMap<>();
-        Map<String, Integer> coOccurrenceCounts = new HashMap<>();
-        Set<String> topWordsSet = new HashSet<>(topWords);
-
-        for (String doc : docs) {
-            Set<String> presentWords = Arrays.stream(doc.toLowerCase().split("\\s+"))
-                    .filter(topWordsSet::contains)
-                    .collect(Collectors.toSet());
-
-            // Aktualizuj liczniki wystąpień pojedynczych słów
-            presentWords.forEach(word -> wordCounts.merge(word, 1, Integer::sum));
-
-            // Aktualizuj liczniki współwystąpień par słów
-            List<String> wordsInDoc = new ArrayList<>(presentWords);
-            for (int i = 0; i < wordsInDoc.size() - 1; i++) {
-                for (int j = i + 1; j < wordsInDoc.size(); j++) {
-                    String w1 = wordsInDoc.get(i);
-                    String w2 = wordsInDoc.get(j);
-                    // Klucz jest posortowany alfabetycznie dla spójności
-                    String key = w1.compareTo(w2) < 0 ? w1 + "|" + w2 : w2 + "|" + w1;
-                    coOccurrenceCounts.merge(key, 1, Integer::sum);
-                }
+    private WordCooccurrenceStats buildStats(List<String> topWords, CoherenceIndex index) {
+        int n = topWords.size();
+        int[] wordCounts = new int[n];
+        int[][] coCounts = new int[n][n];
+
+        for (int i = 0; i < n; i++) {
+            wordCounts[i] = index.count(topWords.get(i));
+        }
+        for (int i = 0; i < n - 1; i++) {
+            if (wordCounts[i] == 0) continue;
+            for (int j = i + 1; j < n; j++) {
+                if (wordCounts[j] == 0) continue;
+                int coCount = index.coCount(topWords.get(i), topWords.get(j));
+                coCounts[i][j] = coCount;
+                coCounts[j][i] = coCount;
             }
         }
-        return new WordCooccurrenceStats(wordCounts, coOccurrenceCounts, docs.size());
+        return new WordCooccurrenceStats(wordCounts, coCounts, index.getDocumentCount());
     }
 
     /**
-     * Funkcyjny interfejs dla metod obliczających wynik dla pary słów.
+     * Funkcyjny interfejs dla metod obliczających wynik dla pary słów (indeksy w liście top słów).
      */
     @FunctionalInterface
     private interface ScoreFunction {
-        double apply(String w1, String w2);
+        double apply(int w1, int w2);
     }
 
     /**
      * Wewnętrzna klasa pomocnicza do przechowywania i udostępniania statystyk.
      */
     static class WordCooccurrenceStats {
-        private final Map<String, Integer> wordCounts;
-        private final Map<String, Integer> coCounts;
+        private final int[] wordCounts;
+        private final int[][] coCounts;
         final int totalDocuments;
 
-        WordCooccurrenceStats(Map<String, Integer> wordCounts,
-                              Map<String, Integer> coCounts,
+        WordCooccurrenceStats(int[] wordCounts,
+                              int[][] coCounts,
                               int totalDocuments) {
             this.wordCounts = wordCounts;
             this.coCounts = coCounts;
             this.totalDocuments = totalDocuments;
         }
 
-        double prob(String word) {
+        int size() {
+            return wordCounts.length;
+        }
+
+        double prob(int word) {
             return (double) count(word) / totalDocuments;
         }
 
         /** Prawdopodobieństwo współwystąpienia pary słów w dokumencie. */
-        double coProb(String w1, String w2) {
+        double coProb(int w1, int w2) {
             return (double) coCount(w1, w2) / totalDocuments;
         }
 
         /** Liczba dokumentów zawierających słowo. */
-        int count(String word) {
-            return wordCounts.getOrDefault(word, 0);
+        int count(int word) {
+            return wordCounts[word];
         }
 
         /** Liczba dokumentów zawierających oba słowa. */
-        int coCount(String w1, String w2) {
-            String key = w1.compareTo(w2) < 0 ? w1 + "|" + w2 : w2 + "|" + w1;
-            return coCounts.getOrDefault(key, 0);
+        int coCount(int w1, int w2) {
+            return coCounts[w1][w2];
         }
     }
 }
@@ -0,0 +1,369 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import cc.mallet.topics.ParallelTopicModel;
+import cc.mallet.topics.TopicInferencer;
+import cc.mallet.types.Alphabet;
+import cc.mallet.types.FeatureSequence;
+import cc.mallet.types.Instance;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bgnat.master.xsnts.normalization.repository.ProcessedTweetRepository;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusTweet;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicInferenceRequest;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicInferenceResponse;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicInferenceResponse.TweetTopicDistribution;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicInferenceStats;
+import pl.bgnat.master.xsnts.topicmodeling.model.TopicModelingResult;
+import pl.bgnat.master.xsnts.topicmodeling.model.TweetTopicInference;
+import pl.bgnat.master.xsnts.topicmodeling.repository.TopicModelingResultRepository;
+import pl.bgnat.master.xsnts.topicmodeling.utils.TopicProbabilityCodec;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static pl.bgnat.master.xsnts.topicmodeling.model.TopicModelingResult.ModelStatus.COMPLETED;
+
+/**
+ * Inferencja tematów dla nowych tweetów zapisanymi modelami (.mallet) bez ponownego treningu.
+ * <p>
+ * Wczytane modele trzymane są w ograniczonym cache LRU razem z pulą inferencerów - po jednym na wątek roboczy,
+ * bo {@link TopicInferencer} modyfikuje swoje bufory podczas próbkowania. Paczka dokumentów dzielona jest
+ * na części przetwarzane równolegle na wspólnej puli wątków. Tokeny tweetów budowane są tak samo jak przy treningu
+ * modelu (strategia tokenów, skipMentions, bigramy); słowa spoza alfabetu modelu są pomijane.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TopicInferenceService {
+
+    private static final int THINNING = 10;
+    private static final int MIN_DOCUMENTS_PER_CHUNK = 16;
+
+    private final TopicModelingResultRepository topicModelingResultRepository;
+    private final ProcessedTweetRepository processedTweetRepository;
+    private final CorpusDocumentBuilder corpusDocumentBuilder;
+    private final TopicModelOutputWriter topicModelOutputWriter;
+
+    @Value("${app.topic-modeling.inference.model-cache-size:3}")
+    private int modelCacheSize;
+    @Value("${app.topic-modeling.inference.threads:0}")
+    private int inferenceThreads;         // 0 = liczba rdzeni
+    @Value("${app.topic-modeling.inference.iterations:100}")
+    private int iterations;
+    @Value("${app.topic-modeling.inference.burn-in:10}")
+    private int burnIn;
+
+    // modelId → wczytywany lub wczytany model; LinkedHashMap w porządku dostępu, chroniona własną blokadą
+    private final Map<Long, CompletableFuture<LoadedModel>> models = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile ExecutorService executor;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder documentNanos = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final LongAdder modelCacheHits = new LongAdder();
+    private final LongAdder modelCacheMisses = new LongAdder();
+
+    /**
+     * Wyznacza rozkłady tematów dla tweetów z requestu modelem o podanym id
+     */
+    @Transactional
+    public TopicInferenceResponse infer(Long modelId, TopicInferenceRequest request) throws Exception {
+        TopicModelingResult modelResult = topicModelingResultRepository.findById(modelId)
+                .orElseThrow(() -> new IllegalArgumentException("Nie znaleziono modelu: " + modelId));
+        if (modelResult.getStatus() != COMPLETED || modelResult.getModelPath() == null) {
+            throw new IllegalStateException("Model " + modelId + " nie jest gotowy do inferencji: " + modelResult.getStatus());
+        }
+
+        long loadStart = System.nanoTime();
+        boolean[] cacheHit = new boolean[1];
+        LoadedModel loaded = loadModel(modelResult, cacheHit);
+        long modelLoadMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart);
+
+        List<InferenceDocument> inferenceDocuments = collectDocuments(request, modelResult);
+
+        long inferenceStart = System.nanoTime();
+        double[][] distributions = new double[inferenceDocuments.size()][];
+        int[] knownTokens = new int[inferenceDocuments.size()];
+        long sampledNanos = inferInParallel(loaded, inferenceDocuments, distributions, knownTokens);
+        long inferenceNanos = System.nanoTime() - inferenceStart;
+
+        List<TweetTopicDistribution> results = new ArrayList<>(inferenceDocuments.size());
+        List<TweetTopicInference> toPersist = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < inferenceDocuments.size(); i++) {
+            InferenceDocument document = inferenceDocuments.get(i);
+            int dominantTopicId = dominantTopic(distributions[i]);
+            results.add(TweetTopicDistribution.builder()
+                    .tweetId(document.tweetId())
+                    .processedTweetId(document.processedTweetId())
+                    .knownTokens(knownTokens[i])
+                    .dominantTopicId(dominantTopicId)
+                    .topicProbabilities(distributions[i])
+                    .build());
+
+            if (request.isPersist() && document.tweetId() != null) {
+                toPersist.add(TweetTopicInference.builder()
+                        .topicModelingResult(modelResult)
+                        .tweetId(document.tweetId())
+                        .processedTweetId(document.processedTweetId())
+                        .dominantTopicId(dominantTopicId)
+                        .topicProbabilityVector(TopicProbabilityCodec.encode(distributions[i]))
+                        .inferenceDate(now)
+                        .build());
+            }
+        }
+        topicModelOutputWriter.saveInferences(modelId, toPersist);
+
+        requests.increment();
+        documents.add(inferenceDocuments.size());
+        documentNanos.add(sampledNanos);
+        batchNanos.add(inferenceNanos);
+
+        double inferenceSeconds = inferenceNanos / 1_000_000_000.0;
+        TopicInferenceResponse response = TopicInferenceResponse.builder()
+                .modelId(modelId)
+                .numberOfTopics(loaded.numTopics())
+                .documentsCount(inferenceDocuments.size())
+                .modelCacheHit(cacheHit[0])
+                .modelLoadMs(modelLoadMs)
+                .inferenceMs(TimeUnit.NANOSECONDS.toMillis(inferenceNanos))
+                .avgDocumentMs(inferenceDocuments.isEmpty() ? 0.0 : sampledNanos / 1_000_000.0 / inferenceDocuments.size())
+                .documentsPerSecond(inferenceSeconds > 0 ? inferenceDocuments.size() / inferenceSeconds : 0.0)
+                .persistedCount(toPersist.size())
+                .results(results)
+                .build();
+
+        log.info("Inferencja modelem {}: {} dokumentów w {} ms ({} dok/s), wczytanie modelu {} ms (cache: {}), zapisano {}",
+                modelId, response.getDocumentsCount(), response.getInferenceMs(),
+                String.format("%.1f", response.getDocumentsPerSecond()), modelLoadMs, cacheHit[0], toPersist.size());
+        return response;
+    }
+
+    public TopicInferenceStats getStats() {
+        long documentsCount = documents.sum();
+        double batchSeconds = batchNanos.sum() / 1_000_000_000.0;
+        int cachedModels;
+        synchronized (models) {
+            cachedModels = models.size();
+        }
+        return new TopicInferenceStats(
+                requests.sum(),
+                documentsCount,
+                documentsCount == 0 ? 0.0 : documentNanos.sum() / 1_000_000.0 / documentsCount,
+                batchSeconds > 0 ? documentsCount / batchSeconds : 0.0,
+                modelCacheHits.sum(),
+                modelCacheMisses.sum(),
+                cachedModels,
+                modelCacheSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /* ─────────────────────────  modele  ───────────────────────── */
+
+    /**
+     * Zwraca model z cache albo wczytuje go z pliku; równoległe żądania tego samego modelu czekają na jedno wczytanie
+     */
+    private LoadedModel loadModel(TopicModelingResult modelResult, boolean[] cacheHit) throws Exception {
+        Long modelId = modelResult.getId();
+        CompletableFuture<LoadedModel> future;
+        boolean owner = false;
+        synchronized (models) {
+            future = models.get(modelId);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                models.put(modelId, future);
+                owner = true;
+                evictEldest();
+            }
+        }
+        cacheHit[0] = !owner;
+        (owner ? modelCacheMisses : modelCacheHits).increment();
+
+        if (owner) {
+            try {
+                future.complete(readModel(modelResult));
+            } catch (Exception e) {
+                synchronized (models) {
+                    models.remove(modelId, future);
+                }
+                future.completeExceptionally(e);
+            }
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<Long, CompletableFuture<LoadedModel>>> iterator = models.entrySet().iterator();
+        while (models.size() > Math.max(1, modelCacheSize) && iterator.hasNext()) {
+            Long evicted = iterator.next().getKey();
+            iterator.remove();
+            log.info("Usunięto model {} z cache inferencji", evicted);
+        }
+    }
+
+    private LoadedModel readModel(TopicModelingResult modelResult) throws Exception {
+        long start = System.currentTimeMillis();
+        ParallelTopicModel model = ParallelTopicModel.read(new File(modelResult.getModelPath()));
+
+        int parallelism = threads();
+        BlockingQueue<TopicInferencer> inferencers = new ArrayBlockingQueue<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            inferencers.add(model.getInferencer());
+        }
+        log.info("Wczytano model {} z {} ({} tematów, {} słów) w {} ms", modelResult.getId(), modelResult.getModelPath(),
+                model.getNumTopics(), model.getAlphabet().size(), System.currentTimeMillis() - start);
+
+        return new LoadedModel(model.getAlphabet(), inferencers, parallelism, model.getNumTopics(), modelResult.isUseBigrams());
+    }
+
+    /* ─────────────────────────  inferencja  ───────────────────────── */
+
+    /**
+     * Dzieli dokumenty na części i próbkuje je równolegle; każda część pobiera wolny inferencer z puli modelu
+     * (równoległe requesty do tego samego modelu nie współdzielą inferencera)
+     * @return suma czasów próbkowania pojedynczych dokumentów [ns]
+     */
+    private long inferInParallel(LoadedModel loaded, List<InferenceDocument> inferenceDocuments,
+                                 double[][] distributions, int[] knownTokens) throws Exception {
+        int size = inferenceDocuments.size();
+        if (size == 0) return 0;
+
+        int chunks = Math.max(1, Math.min(loaded.parallelism(), size / MIN_DOCUMENTS_PER_CHUNK));
+        List<Future<Long>> futures = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = (int) ((long) size * chunk / chunks);
+            int to = (int) ((long) size * (chunk + 1) / chunks);
+            futures.add(executor().submit(() -> {
+                TopicInferencer inferencer = loaded.inferencers().take();
+                try {
+                    long nanos = 0;
+                    for (int i = from; i < to; i++) {
+                        long start = System.nanoTime();
+                        FeatureSequence features = toFeatures(loaded, inferenceDocuments.get(i).tokens());
+                        knownTokens[i] = features.getLength();
+                        distributions[i] = inferencer.getSampledDistribution(
+                                new Instance(features, null, null, null), iterations, THINNING, burnIn);
+                        nanos += System.nanoTime() - start;
+                    }
+                    return nanos;
+                } finally {
+                    loaded.inferencers().add(inferencer);
+                }
+            }));
+        }
+
+        long nanos = 0;
+        try {
+            for (Future<Long> future : futures) {
+                nanos += future.get();
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        return nanos;
+    }
+
+    /**
+     * Tokeny → FeatureSequence w alfabecie modelu (bigramy jak TokenSequenceNGrams: "poprzedni_bieżący")
+     */
+    private FeatureSequence toFeatures(LoadedModel loaded, List<String> tokens) {
+        Alphabet alphabet = loaded.alphabet();
+        FeatureSequence features = new FeatureSequence(alphabet, tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            String term = loaded.bigrams()
+                    ? (i == 0 ? null : tokens.get(i - 1) + "_" + tokens.get(i))
+                    : tokens.get(i);
+            if (term == null) continue;
+
+            int id = alphabet.lookupIndex(term, false);
+            if (id >= 0) {
+                features.add(id);
+            }
+        }
+        return features;
+    }
+
+    private List<InferenceDocument> collectDocuments(TopicInferenceRequest request, TopicModelingResult modelResult) {
+        boolean lemmatized = "lemmatized".equalsIgnoreCase(modelResult.getTokenStrategy());
+        boolean skipMentions = modelResult.isSkipMentions();
+
+        List<InferenceDocument> result = new ArrayList<>();
+        Set<Long> seenProcessedIds = new HashSet<>();
+        List<CorpusTweet> tweets = new ArrayList<>();
+        if (request.getProcessedTweetIds() != null && !request.getProcessedTweetIds().isEmpty()) {
+            tweets.addAll(processedTweetRepository.findCorpusByProcessedTweetIds(request.getProcessedTweetIds()));
+        }
+        if (request.getTweetIds() != null && !request.getTweetIds().isEmpty()) {
+            tweets.addAll(processedTweetRepository.findCorpusByTweetIds(request.getTweetIds()));
+        }
+        for (CorpusTweet tweet : tweets) {
+            if (seenProcessedIds.add(tweet.processedTweetId())) {
+                result.add(new InferenceDocument(tweet.tweetId(), tweet.processedTweetId(),
+                        corpusDocumentBuilder.corpusTokens(tweet, lemmatized, skipMentions)));
+            }
+        }
+
+        if (request.getTokens() != null) {
+            for (List<String> tokens : request.getTokens()) {
+                result.add(new InferenceDocument(null, null, tokens.stream()
+                        .filter(Objects::nonNull)
+                        .filter(t -> CorpusDocumentBuilder.isCorpusToken(t, skipMentions))
+                        .toList()));
+            }
+        }
+        return result;
+    }
+
+    private static int dominantTopic(double[] distribution) {
+        int dominant = 0;
+        for (int i = 1; i < distribution.length; i++) {
+            if (distribution[i] > distribution[dominant]) dominant = i;
+        }
+        return dominant;
+    }
+
+    private int threads() {
+        return inferenceThreads > 0 ? inferenceThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(threads(), runnable -> {
+                        Thread thread = new Thread(runnable, "lda-inference-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+
+    private record InferenceDocument(Long tweetId, Long processedTweetId, List<String> tokens) { }
+
+    private record LoadedModel(Alphabet alphabet, BlockingQueue<TopicInferencer> inferencers, int parallelism,
+                               int numTopics, boolean bigrams) { }
+}
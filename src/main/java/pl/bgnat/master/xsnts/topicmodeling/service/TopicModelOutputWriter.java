@@ -0,0 +1,100 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.bgnat.master.xsnts.topicmodeling.model.DocumentTopicAssignment;
+import pl.bgnat.master.xsnts.topicmodeling.model.IdAllocation;
+import pl.bgnat.master.xsnts.topicmodeling.model.TopicModelingResult;
+import pl.bgnat.master.xsnts.topicmodeling.model.TopicResult;
+import pl.bgnat.master.xsnts.topicmodeling.model.TweetTopicInference;
+import pl.bgnat.master.xsnts.topicmodeling.repository.DocumentTopicAssignmentRepository;
+import pl.bgnat.master.xsnts.topicmodeling.repository.TopicModelingResultRepository;
+import pl.bgnat.master.xsnts.topicmodeling.repository.TopicResultRepository;
+import pl.bgnat.master.xsnts.topicmodeling.repository.TweetTopicInferenceRepository;
+
+import java.util.List;
+
+/**
+ * Paczkowy zapis wyników modelu (rekord modelu, tematy, przypisania dokumentów i rozkłady tweetów z inferencji).
+ * Trening działa poza transakcją, więc każdy zapis jest osobną krótką transakcją - przypisania dokumentów
+ * zatwierdzane są paczka po paczce.
+ * <p>
+ * Encje mają identyfikatory z sekwencji z pulą {@link IdAllocation#ID_ALLOCATION_SIZE} (optymalizator pooled), więc Hibernate
+ * nie musi wykonywać INSERT-a, żeby poznać id, i może wysyłać wiersze paczkami JDBC (hibernate.jdbc.batch_size).
+ * Po każdej paczce kontekst persystencji jest opróżniany z zapisanych przypisań, żeby kolejne flush-e
+ * nie sprawdzały dziesiątek tysięcy encji.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TopicModelOutputWriter {
+
+    private final TopicModelingResultRepository topicModelingResultRepository;
+    private final TopicResultRepository topicResultRepository;
+    private final DocumentTopicAssignmentRepository documentTopicAssignmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TweetTopicInferenceRepository tweetTopicInferenceRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.topic-modeling.write-batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Zapisuje i od razu zatwierdza rekord modelu (nowy lub ze zmienionym statusem i metrykami)
+     */
+    @Transactional
+    public TopicModelingResult saveModelRecord(TopicModelingResult model) {
+        return topicModelingResultRepository.save(model);
+    }
+
+    @Transactional
+    public void saveTopics(List<TopicResult> topics) {
+        topicResultRepository.saveAll(topics);
+        topicResultRepository.flush();
+    }
+
+    /**
+     * Zapisuje przypisania paczkami, każda paczka w osobnej transakcji
+     */
+    public void saveAssignments(List<DocumentTopicAssignment> assignments) {
+        saveInBatches(documentTopicAssignmentRepository, assignments);
+    }
+
+    /**
+     * Zapisuje rozkłady tematów tweetów z inferencji, zastępując poprzednie wyniki tego modelu dla tych tweetów
+     */
+    @Transactional
+    public void saveInferences(Long modelId, List<TweetTopicInference> inferences) {
+        if (inferences.isEmpty()) return;
+
+        List<Long> tweetIds = inferences.stream().map(TweetTopicInference::getTweetId).distinct().toList();
+        for (int from = 0; from < tweetIds.size(); from += batchSize) {
+            tweetTopicInferenceRepository.deleteByModelAndTweetIds(modelId, tweetIds.subList(from, Math.min(from + batchSize, tweetIds.size())));
+        }
+        saveInBatches(tweetTopicInferenceRepository, inferences);
+    }
+
+    /**
+     * Zapisuje encje paczkami; bez trwającej transakcji każda paczka jest zatwierdzana osobno, w trwającej -
+     * paczki do niej dołączają. Zapisane encje są odłączane od kontekstu persystencji.
+     */
+    private <T> void saveInBatches(JpaRepository<T, Long> repository, List<T> entities) {
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            List<T> batch = entities.subList(from, Math.min(from + batchSize, entities.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(batch);
+                repository.flush();
+                batch.forEach(entityManager::detach);
+            });
+        }
+    }
+}
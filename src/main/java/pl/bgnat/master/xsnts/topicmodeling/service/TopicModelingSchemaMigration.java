@@ -0,0 +1,145 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.bgnat.master.xsnts.topicmodeling.model.IdAllocation;
+import pl.bgnat.master.xsnts.topicmodeling.model.TopicModelingResult.ModelStatus;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Jednorazowe poprawki schematu i danych topic modelingu, których ddl-auto update nie wykonuje.
+ * Uruchamiane po starcie aplikacji; każdy krok najpierw sprawdza, czy jest potrzebny, więc na aktualnej bazie
+ * nie zmienia niczego. Błąd kroku jest logowany i nie blokuje startu.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TopicModelingSchemaMigration {
+
+    // tabele, które przed wprowadzeniem sekwencji miały kolumny IDENTITY - sekwencja musi zacząć za istniejącymi id
+    private static final List<String> SEQUENCE_TABLES = List.of(
+            "topic_result:topic_result_id_generator",
+            "document_topic_assignment:document_topic_assignment_id_generator");
+    // zwraca wiersz tylko wtedy, gdy sekwencja jest za maksymalnym id tabeli i została przesunięta
+    private static final String QUERY_ALIGN_SEQUENCE =
+            """
+                SELECT setval('%2$s', (SELECT MAX(id) FROM %1$s) + %3$d)
+                WHERE  (SELECT COALESCE(MAX(id), 0) FROM %1$s) >= (SELECT last_value FROM %2$s)
+            """;
+
+    // CHECK z wartościami ModelStatus utworzony przez Hibernate razem z tabelą; ddl-auto update go nie poszerza
+    private static final String MODEL_STATUS_CHECK = "topic_modeling_result_status_check";
+    private static final String QUERY_MODEL_STATUS_CHECK =
+            """
+                SELECT pg_get_constraintdef(oid)
+                FROM   pg_constraint
+                WHERE  conrelid = 'topic_modeling_result'::regclass
+                AND    conname = ?
+            """;
+    private static final String QUERY_RECREATE_MODEL_STATUS_CHECK =
+            """
+                ALTER TABLE topic_modeling_result
+                    DROP CONSTRAINT IF EXISTS %1$s,
+                    ADD CONSTRAINT %1$s CHECK (status IN (%2$s))
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TopicProbabilityMigration topicProbabilityMigration;
+
+    @Value("${app.topic-modeling.write-batch-size:1000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        alignIdSequences();
+        updateModelStatusCheck();
+        migrateLegacyTopicProbabilities();
+    }
+
+    /**
+     * Odtwarza CHECK statusu modelu z pełnym zbiorem wartości {@link ModelStatus}, gdy brakuje w nim któregoś statusu
+     * (np. CANCELLED w tabeli utworzonej przed jego dodaniem) albo gdy ograniczenia nie ma.
+     * DDL jest zatwierdzany w osobnej transakcji (połączenia mają wyłączony auto-commit), a wynik sprawdzany ponownie.
+     */
+    private void updateModelStatusCheck() {
+        try {
+            if (hasAllModelStatuses()) return;
+
+            String values = Arrays.stream(ModelStatus.values())
+                    .map(status -> "'" + status.name() + "'")
+                    .collect(Collectors.joining(", "));
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.execute(QUERY_RECREATE_MODEL_STATUS_CHECK.formatted(MODEL_STATUS_CHECK, values)));
+            if (hasAllModelStatuses()) {
+                log.info("Odtworzono ograniczenie {} ze statusami {}", MODEL_STATUS_CHECK, values);
+            } else {
+                log.warn("Ograniczenie {} nadal nie obejmuje statusów {} - zmiana nie została zatwierdzona", MODEL_STATUS_CHECK, values);
+            }
+        } catch (Exception e) {
+            log.warn("Nie udało się zaktualizować ograniczenia statusu modelu: {}", e.getMessage());
+        }
+    }
+
+    private boolean hasAllModelStatuses() {
+        String definition = jdbcTemplate.queryForList(QUERY_MODEL_STATUS_CHECK, String.class, MODEL_STATUS_CHECK).stream()
+                .findFirst()
+                .orElse("");
+        return Arrays.stream(ModelStatus.values())
+                .allMatch(status -> definition.contains("'" + status.name() + "'"));
+    }
+
+    /**
+     * Przesuwa sekwencje id za maksymalne id w tabelach (potrzebne raz po zmianie IDENTITY → SEQUENCE)
+     */
+    private void alignIdSequences() {
+        for (String tableAndSequence : SEQUENCE_TABLES) {
+            String[] parts = tableAndSequence.split(":");
+            try {
+                List<Long> aligned = jdbcTemplate.queryForList(
+                        QUERY_ALIGN_SEQUENCE.formatted(parts[0], parts[1], IdAllocation.ID_ALLOCATION_SIZE), Long.class);
+                if (!aligned.isEmpty()) {
+                    log.info("Sekwencja {} przesunięta za istniejące id tabeli {} (wartość {})", parts[1], parts[0], aligned.get(0));
+                }
+            } catch (Exception e) {
+                log.warn("Nie udało się wyrównać sekwencji {}: {}", parts[1], e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Zamienia prawdopodobieństwa tematów zapisane jako JSON (poprzednia wersja schematu) na wektory float.
+     * Wiersze z niepoprawnym JSON zostają bez zmian i są tylko liczone.
+     */
+    private void migrateLegacyTopicProbabilities() {
+        try {
+            if (!topicProbabilityMigration.hasLegacyColumn()) return;
+
+            long migrated = 0;
+            long failed = 0;
+            TopicProbabilityMigration.Batch batch = topicProbabilityMigration.migrateBatch(0L, batchSize);
+            while (batch.rows() > 0) {
+                migrated += batch.rows() - batch.failed();
+                failed += batch.failed();
+                batch = topicProbabilityMigration.migrateBatch(batch.lastId(), batchSize);
+            }
+            if (migrated > 0) {
+                log.info("Zmigrowano prawdopodobieństwa tematów {} przypisań dokumentów z JSON do wektorów float", migrated);
+            }
+            if (failed > 0) {
+                log.warn("{} przypisań dokumentów ma niepoprawny JSON prawdopodobieństw - pozostawiono je bez zmian", failed);
+            }
+        } catch (Exception e) {
+            log.warn("Migracja prawdopodobieństw tematów nie powiodła się: {}", e.getMessage());
+        }
+    }
+}
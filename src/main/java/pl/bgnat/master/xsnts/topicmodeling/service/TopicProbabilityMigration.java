@@ -0,0 +1,88 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bgnat.master.xsnts.topicmodeling.utils.TopicProbabilityCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static pl.bgnat.master.xsnts.topicmodeling.repository.DocumentTopicAssignmentRepository.*;
+
+/**
+ * Migracja przypisań dokumentów zapisanych przed wprowadzeniem topic_probability_vector:
+ * JSON {"0":0.12,"1":0.03,...} z kolumny topic_probabilities jest zamieniany na wektor float
+ * ({@link TopicProbabilityCodec}), a kolumna JSON czyszczona. Wiersze przeglądane są rosnąco po id, więc wiersze
+ * z niepoprawnym JSON są pomijane bez zmian (dane zostają w kolumnie JSON), a migracja i tak się kończy.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TopicProbabilityMigration {
+
+    private static final TypeReference<Map<String, Double>> PROBABILITIES_MAP = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @return true, gdy w bazie istnieje kolumna JSON z poprzedniej wersji schematu
+     */
+    public boolean hasLegacyColumn() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(QUERY_HAS_LEGACY_PROBABILITIES_COLUMN, Boolean.class));
+    }
+
+    /**
+     * Migruje w osobnej transakcji jedną paczkę wierszy o id większym niż {@code afterId}
+     * @return wynik paczki; {@link Batch#rows()} == 0 oznacza koniec migracji
+     */
+    @Transactional
+    public Batch migrateBatch(long afterId, int batchSize) {
+        List<LegacyRow> rows = jdbcTemplate.query(QUERY_SELECT_LEGACY_PROBABILITIES,
+                (rs, rowNum) -> new LegacyRow(rs.getLong(1), rs.getString(2)), afterId, batchSize);
+        if (rows.isEmpty()) return new Batch(0, 0, afterId);
+
+        List<Object[]> updates = new ArrayList<>(rows.size());
+        for (LegacyRow row : rows) {
+            double[] vector = parse(row);
+            if (vector != null) {
+                updates.add(new Object[]{TopicProbabilityCodec.encode(vector), row.id()});
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(QUERY_UPDATE_PROBABILITY_VECTOR, updates);
+        }
+        return new Batch(rows.size(), rows.size() - updates.size(), rows.get(rows.size() - 1).id());
+    }
+
+    /**
+     * @return wektor prawdopodobieństw lub null, gdy JSON jest niepoprawny
+     */
+    private double[] parse(LegacyRow row) {
+        try {
+            Map<String, Double> probabilities = objectMapper.readValue(row.json(), PROBABILITIES_MAP);
+            int numTopics = probabilities.keySet().stream().mapToInt(Integer::parseInt).max().orElse(-1) + 1;
+            double[] vector = new double[numTopics];
+            probabilities.forEach((topicId, probability) -> vector[Integer.parseInt(topicId)] = probability);
+            return vector;
+        } catch (Exception e) {
+            log.warn("Niepoprawny JSON prawdopodobieństw w przypisaniu {} - wiersz pozostaje bez zmian: {}", row.id(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param rows   liczba przejrzanych wierszy
+     * @param failed wiersze pominięte z powodu niepoprawnego JSON
+     * @param lastId id ostatniego przejrzanego wiersza (początek kolejnej paczki)
+     */
+    public record Batch(int rows, int failed, long lastId) { }
+
+    private record LegacyRow(long id, String json) { }
+}
@@ -0,0 +1,252 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicModelingRequest;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicModelingResponse;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TrainingJobStatus;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TrainingJobStatus.ModelProgress;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchroniczne zadania treningu topic modelingu.
+ * <p>
+ * Zadanie dostaje identyfikator od razu po zgłoszeniu, a trening wykonywany jest na osobnej puli z limitem
+ * równoległych treningów i ograniczoną kolejką oczekujących. Zadanie jest odbiorcą {@link TrainingProgress}:
+ * zbiera etap, postęp iteracji i log-likelihood każdego kandydata K. Anulowanie zadania w kolejce usuwa je z puli,
+ * a anulowanie trwającego treningu zatrzymuje sampler MALLET po bieżącej porcji iteracji.
+ * Zakończone zadania trzymane są w pamięci do osiągnięcia limitu historii.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TopicTrainingJobService {
+
+    private final MalletTopicModelingService topicModelingService;
+
+    @Value("${app.topic-modeling.jobs.max-concurrent:1}")
+    private int maxConcurrentJobs;
+    @Value("${app.topic-modeling.jobs.max-queued:10}")
+    private int maxQueuedJobs;
+    @Value("${app.topic-modeling.jobs.history-size:50}")
+    private int historySize;              // liczba pamiętanych zakończonych zadań
+
+    // jobId → zadanie, w kolejności zgłoszenia
+    private final Map<String, TrainingJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile ThreadPoolExecutor executor;
+
+    /**
+     * Zgłasza trening jako zadanie
+     * @throws RejectedExecutionException gdy kolejka zadań jest pełna
+     */
+    public TrainingJobStatus submit(TopicModelingRequest request) {
+        TrainingJob job = new TrainingJob(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        try {
+            job.future = executor().submit(() -> run(job, request));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new RejectedExecutionException("Kolejka zadań treningu jest pełna (" + maxQueuedJobs + ")");
+        }
+        log.info("Zgłoszono zadanie treningu {} (strategia {}, k={})", job.id, request.getPoolingStrategy(), request.getNumberOfTopics());
+        evictFinishedJobs();
+        return job.toStatus();
+    }
+
+    public Optional<TrainingJobStatus> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(TrainingJob::toStatus);
+    }
+
+    public List<TrainingJobStatus> getJobs() {
+        synchronized (jobs) {
+            return jobs.values().stream().map(TrainingJob::toStatus).toList();
+        }
+    }
+
+    /**
+     * Anuluje zadanie: oczekujące jest usuwane z kolejki, trwające kończy się po bieżącej porcji iteracji samplera
+     * @return stan zadania po zgłoszeniu anulowania lub pusty Optional, gdy zadanie nie istnieje
+     */
+    public Optional<TrainingJobStatus> cancel(String jobId) {
+        TrainingJob job = jobs.get(jobId);
+        if (job == null) return Optional.empty();
+
+        if (job.requestCancel()) {
+            log.info("Anulowanie zadania treningu {} (status {})", jobId, job.status);
+            Future<?> future = job.future;
+            if (job.status == JobStatus.CANCELLED && future != null) {
+                // zadanie z kolejki - zwalnia miejsce w kolejce puli
+                future.cancel(false);
+                executor.purge();
+            }
+        }
+        return Optional.of(job.toStatus());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            synchronized (jobs) {
+                jobs.values().forEach(TrainingJob::requestCancel);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    private void run(TrainingJob job, TopicModelingRequest request) {
+        if (!job.start()) return;
+
+        try {
+            TopicModelingResponse response = topicModelingService.performTopicModeling(request, job);
+            job.finish(JobStatus.COMPLETED, response, null);
+            log.info("Zadanie treningu {} zakończone, model {}", job.id, response.getModelId());
+        } catch (CancellationException e) {
+            job.finish(JobStatus.CANCELLED, null, null);
+            log.info("Zadanie treningu {} anulowane", job.id);
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            job.finish(JobStatus.FAILED, null, cause.getMessage());
+            log.error("Zadanie treningu {} zakończone błędem: {}", job.id, cause.getMessage());
+        }
+    }
+
+    /**
+     * Usuwa najstarsze zakończone zadania ponad limit historii
+     */
+    private void evictFinishedJobs() {
+        synchronized (jobs) {
+            long finished = jobs.values().stream().filter(TrainingJob::isFinished).count();
+            Iterator<TrainingJob> iterator = jobs.values().iterator();
+            while (finished > historySize && iterator.hasNext()) {
+                if (iterator.next().isFinished()) {
+                    iterator.remove();
+                    finished--;
+                }
+            }
+        }
+    }
+
+    private ThreadPoolExecutor executor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    int threads = Math.max(1, maxConcurrentJobs);
+                    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                            new LinkedBlockingQueue<>(Math.max(1, maxQueuedJobs)), runnable -> {
+                                Thread thread = new Thread(runnable, "lda-job-" + counter.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                }
+            }
+        }
+        return executor;
+    }
+
+    private enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    /**
+     * Stan jednego zadania; aktualizowany przez wątki treningu (również wątki kandydatów grid-search)
+     * i odczytywany przez wątki HTTP
+     */
+    private static final class TrainingJob implements TrainingProgress {
+        private final String id;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final Map<Integer, ModelProgress> models = new ConcurrentSkipListMap<>();
+        private volatile Future<?> future;
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile boolean cancelRequested;
+        private volatile Long modelId;
+        private volatile String phase;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String errorMessage;
+        private volatile TopicModelingResponse result;
+
+        private TrainingJob(String id) {
+            this.id = id;
+        }
+
+        private synchronized boolean start() {
+            if (status != JobStatus.QUEUED) return false;
+            status = JobStatus.RUNNING;
+            startedAt = LocalDateTime.now();
+            return true;
+        }
+
+        /**
+         * Oczekujące zadanie jest od razu oznaczane jako anulowane (nie wystartuje), trwające - po zatrzymaniu treningu
+         */
+        private synchronized boolean requestCancel() {
+            if (isFinished() || cancelRequested) return false;
+            cancelRequested = true;
+            if (status == JobStatus.QUEUED) {
+                finish(JobStatus.CANCELLED, null, null);
+            }
+            return true;
+        }
+
+        private synchronized void finish(JobStatus finalStatus, TopicModelingResponse response, String error) {
+            if (isFinished()) return;
+            status = finalStatus;
+            result = response;
+            errorMessage = error;
+            finishedAt = LocalDateTime.now();
+        }
+
+        private boolean isFinished() {
+            return status == JobStatus.COMPLETED || status == JobStatus.FAILED || status == JobStatus.CANCELLED;
+        }
+
+        @Override
+        public void onModelCreated(Long modelId) {
+            this.modelId = modelId;
+        }
+
+        @Override
+        public void onPhase(String phase) {
+            this.phase = phase;
+        }
+
+        @Override
+        public void onIteration(int numTopics, int iteration, int totalIterations, double logLikelihood) {
+            models.put(numTopics, ModelProgress.builder()
+                    .numberOfTopics(numTopics)
+                    .iteration(iteration)
+                    .totalIterations(totalIterations)
+                    .logLikelihood(logLikelihood)
+                    .build());
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelRequested;
+        }
+
+        private TrainingJobStatus toStatus() {
+            return TrainingJobStatus.builder()
+                    .jobId(id)
+                    .status(status.name())
+                    .cancelRequested(cancelRequested)
+                    .modelId(modelId)
+                    .phase(phase)
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .models(List.copyOf(models.values()))
+                    .errorMessage(errorMessage)
+                    .result(result)
+                    .build();
+        }
+    }
+}
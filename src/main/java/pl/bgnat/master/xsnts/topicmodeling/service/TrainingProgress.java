@@ -0,0 +1,30 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+/**
+ * Odbiorca postępu treningu topic modelingu. Serwis treningu raportuje etapy i kolejne porcje iteracji samplera
+ * każdego kandydata K, a między porcjami sprawdza {@link #isCancelled()} - anulowanie kończy trening
+ * wyjątkiem {@link java.util.concurrent.CancellationException}.
+ */
+public interface TrainingProgress {
+
+    /**
+     * Trening bez odbiorcy postępu i bez możliwości anulowania (wywołania synchroniczne)
+     */
+    TrainingProgress NONE = new TrainingProgress() { };
+
+    default void onModelCreated(Long modelId) { }
+
+    default void onPhase(String phase) { }
+
+    /**
+     * @param numTopics      kandydat K, którego dotyczy postęp
+     * @param iteration      liczba wykonanych iteracji samplera
+     * @param totalIterations docelowa liczba iteracji
+     * @param logLikelihood  log-likelihood modelu na token po ostatniej porcji iteracji
+     */
+    default void onIteration(int numTopics, int iteration, int totalIterations, double logLikelihood) { }
+
+    default boolean isCancelled() {
+        return false;
+    }
+}
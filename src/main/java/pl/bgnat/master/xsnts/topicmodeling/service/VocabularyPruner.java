@@ -0,0 +1,161 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import cc.mallet.types.Alphabet;
+import cc.mallet.types.FeatureSequence;
+import cc.mallet.types.Instance;
+import cc.mallet.types.InstanceList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusSnapshot;
+import pl.bgnat.master.xsnts.topicmodeling.dto.Document;
+import pl.bgnat.master.xsnts.topicmodeling.dto.TopicModelingRequest;
+import pl.bgnat.master.xsnts.topicmodeling.dto.VocabularyPruningStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Przycinanie słownika korpusu przed treningiem LDA.
+ * <p>
+ * Usuwa słowa występujące w mniej niż min-df dokumentach (hapaxy), w więcej niż max-df-ratio dokumentów
+ * (np. @anonymized) oraz - przy limicie rozmiaru - najrzadsze słowa ponad limit (wg liczby dokumentów).
+ * Zostające słowa dostają nowy, zwarty alfabet, więc mniejsze są betaSum, tablice słowo-temat modelu i liczba
+ * tokenów próbkowanych w każdej iteracji. Dokumenty, z których nie został żaden token, są pomijane.
+ * Przycinany jest korpus po wczytaniu ze snapshotu, więc ten sam snapshot obsługuje różne ustawienia przycinania.
+ * Domyślnie przycinanie jest wyłączone (korpus jak przed wprowadzeniem tego etapu); progi włącza konfiguracja
+ * albo request - wartości z requestu mają pierwszeństwo.
+ */
+@Slf4j
+@Component
+public class VocabularyPruner {
+
+    @Value("${app.topic-modeling.vocabulary.min-df:1}")
+    private int minDocumentFrequency;       // 1 = bez progu
+    @Value("${app.topic-modeling.vocabulary.max-df-ratio:1.0}")
+    private double maxDocumentFrequencyRatio; // 1.0 = bez progu
+    @Value("${app.topic-modeling.vocabulary.max-size:0}")
+    private int maxVocabularySize;          // 0 = bez limitu
+
+    public record Result(CorpusSnapshot corpus, VocabularyPruningStats stats) { }
+
+    public Result prune(CorpusSnapshot corpus, TopicModelingRequest request) {
+        return prune(corpus,
+                Optional.ofNullable(request.getVocabularyMinDf()).orElse(minDocumentFrequency),
+                Optional.ofNullable(request.getVocabularyMaxDfRatio()).orElse(maxDocumentFrequencyRatio),
+                Optional.ofNullable(request.getVocabularyMaxSize()).orElse(maxVocabularySize));
+    }
+
+    /**
+     * @param minDocumentFrequency      minimalna liczba dokumentów ze słowem (1 = bez progu)
+     * @param maxDocumentFrequencyRatio maksymalny udział dokumentów ze słowem (1.0 = bez progu)
+     * @param maxVocabularySize         limit rozmiaru słownika (0 = bez limitu)
+     */
+    Result prune(CorpusSnapshot corpus, int minDocumentFrequency, double maxDocumentFrequencyRatio, int maxVocabularySize) {
+        long start = System.currentTimeMillis();
+        List<Document> documents = corpus.documents();
+        InstanceList instances = corpus.instances();
+        Alphabet alphabet = instances.getDataAlphabet();
+        int vocabularySize = alphabet.size();
+
+        // 1. Liczba dokumentów zawierających słowo (lastDocument odróżnia kolejne wystąpienia w tym samym dokumencie)
+        int[] documentFrequency = new int[vocabularySize];
+        int[] lastDocument = new int[vocabularySize];
+        Arrays.fill(lastDocument, -1);
+        long tokensBefore = 0;
+        for (int d = 0; d < instances.size(); d++) {
+            FeatureSequence tokens = (FeatureSequence) instances.get(d).getData();
+            int[] features = tokens.getFeatures();
+            tokensBefore += tokens.getLength();
+            for (int i = 0; i < tokens.getLength(); i++) {
+                if (lastDocument[features[i]] != d) {
+                    lastDocument[features[i]] = d;
+                    documentFrequency[features[i]]++;
+                }
+            }
+        }
+
+        // 2. Progi min-df / max-df
+        int maxDf = maxDocumentFrequencyRatio < 1.0
+                ? Math.max(1, (int) Math.floor(maxDocumentFrequencyRatio * instances.size()))
+                : Integer.MAX_VALUE;
+        boolean[] keep = new boolean[vocabularySize];
+        int prunedRare = 0;
+        int prunedCommon = 0;
+        List<Integer> kept = new ArrayList<>(vocabularySize);
+        for (int id = 0; id < vocabularySize; id++) {
+            if (documentFrequency[id] < minDocumentFrequency) {
+                prunedRare++;
+            } else if (documentFrequency[id] > maxDf) {
+                prunedCommon++;
+            } else {
+                keep[id] = true;
+                kept.add(id);
+            }
+        }
+
+        // 3. Limit rozmiaru: zostają słowa z największą liczbą dokumentów (remis - mniejsze id)
+        int prunedLimit = 0;
+        if (maxVocabularySize > 0 && kept.size() > maxVocabularySize) {
+            kept.sort((a, b) -> documentFrequency[a] != documentFrequency[b]
+                    ? Integer.compare(documentFrequency[b], documentFrequency[a])
+                    : Integer.compare(a, b));
+            for (int id : kept.subList(maxVocabularySize, kept.size())) {
+                keep[id] = false;
+                prunedLimit++;
+            }
+        }
+
+        boolean emptyVocabulary = prunedRare + prunedCommon + prunedLimit == vocabularySize;
+        if (emptyVocabulary && vocabularySize > 0) {
+            log.warn("Przycięcie słownika usunęłoby wszystkie {} słów korpusu ({} dokumentów) - pomijam przycinanie",
+                    vocabularySize, instances.size());
+        }
+        if (prunedRare + prunedCommon + prunedLimit == 0 || emptyVocabulary) {
+            VocabularyPruningStats stats = new VocabularyPruningStats(vocabularySize, vocabularySize, 0, 0, 0,
+                    tokensBefore, tokensBefore, documents.size(), documents.size(), System.currentTimeMillis() - start);
+            return new Result(corpus, stats);
+        }
+
+        // 4. Zwarty alfabet w kolejności dotychczasowych id i przepisanie sekwencji tokenów
+        Alphabet prunedAlphabet = new Alphabet();
+        int[] newIds = new int[vocabularySize];
+        for (int id = 0; id < vocabularySize; id++) {
+            newIds[id] = keep[id] ? prunedAlphabet.lookupIndex(alphabet.lookupObject(id), true) : -1;
+        }
+        prunedAlphabet.stopGrowth();
+
+        InstanceList prunedInstances = new InstanceList(prunedAlphabet, null);
+        List<Document> prunedDocuments = new ArrayList<>(documents.size());
+        long tokensAfter = 0;
+        for (int d = 0; d < instances.size(); d++) {
+            Instance instance = instances.get(d);
+            FeatureSequence tokens = (FeatureSequence) instance.getData();
+            int[] features = tokens.getFeatures();
+            int[] prunedFeatures = new int[tokens.getLength()];
+            int length = 0;
+            for (int i = 0; i < tokens.getLength(); i++) {
+                int newId = newIds[features[i]];
+                if (newId >= 0) prunedFeatures[length++] = newId;
+            }
+            if (length == 0) continue;
+
+            tokensAfter += length;
+            prunedDocuments.add(documents.get(d));
+            prunedInstances.add(new Instance(new FeatureSequence(prunedAlphabet, Arrays.copyOf(prunedFeatures, length)),
+                    null, instance.getName(), null));
+        }
+
+        VocabularyPruningStats stats = new VocabularyPruningStats(vocabularySize, prunedAlphabet.size(),
+                prunedRare, prunedCommon, prunedLimit, tokensBefore, tokensAfter,
+                documents.size(), prunedDocuments.size(), System.currentTimeMillis() - start);
+        log.info("Przycięto słownik {} → {} słów (min-df: {}, max-df: {}, limit: {}), tokeny {} → {}, dokumenty {} → {}, " +
+                        "szacowane przyspieszenie iteracji x{} ({} ms)",
+                stats.vocabularyBefore(), stats.vocabularyAfter(), prunedRare, prunedCommon, prunedLimit,
+                tokensBefore, tokensAfter, stats.documentsBefore(), stats.documentsAfter(),
+                String.format("%.2f", stats.estimatedSamplingSpeedup()), stats.pruningMs());
+        return new Result(new CorpusSnapshot(prunedDocuments, prunedInstances, corpus.fromSnapshot()), stats);
+    }
+}
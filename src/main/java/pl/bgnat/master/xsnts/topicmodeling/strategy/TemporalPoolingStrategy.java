@@ -2,13 +2,11 @@ package pl.bgnat.master.xsnts.topicmodeling.strategy;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusTweet;
 
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Strategia grupowania tweetów według czasu (dzień publikacji)
@@ -24,24 +22,11 @@ public class TemporalPoolingStrategy implements TweetPoolingStrategy {
     }
 
     @Override
-    public Map<String, List<ProcessedTweet>> poolTweets(
-            List<ProcessedTweet> processedTweets) {
-        log.info("Rozpoczynam grupowanie {} tweetów według czasu",
-                processedTweets.size());
-
-        Map<String, List<ProcessedTweet>> temporalGroups =
-                processedTweets.stream().collect(
-                        Collectors.groupingBy(this::extractDateKey)
-                );
-
-        log.info("Utworzono {} grup temporalnych", temporalGroups.size());
-        return temporalGroups;
+    public Collection<String> documentKeys(CorpusTweet tweet) {
+        return List.of(extractDateKey(tweet));
     }
 
-
-    private String extractDateKey(ProcessedTweet tweet) {
-        LocalDateTime postDate = tweet.getOriginalTweet()
-                                            .getPostDate();
-        return "day_" + postDate.format(dayFormatter);
+    private String extractDateKey(CorpusTweet tweet) {
+        return "day_" + tweet.postDate().format(dayFormatter);
     }
 }
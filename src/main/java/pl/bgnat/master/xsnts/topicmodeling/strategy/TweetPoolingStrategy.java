@@ -1,21 +1,34 @@
 package pl.bgnat.master.xsnts.topicmodeling.strategy;
 
-import pl.bgnat.master.xsnts.normalization.model.ProcessedTweet;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusTweet;
 
-import java.util.List;
-import java.util.Map;
+import java.util.Collection;
 
 /**
- * Interfejs dla różnych strategii grupowania tweetów w dokumenty
+ * Interfejs dla różnych strategii grupowania tweetów w dokumenty.
+ * Strategia przypisuje klucze dokumentów pojedynczym tweetom, więc korpus może być grupowany strumieniowo.
  */
 public interface TweetPoolingStrategy {
 
     /**
-     * Grupuje tweety w dokumenty zgodnie z implementowaną strategią
-     * @param processedTweets lista przetworzonych tweetów
-     * @return mapa: klucz dokumentu -> lista tweetów w dokumencie
+     * Zwraca klucze dokumentów, do których trafia tweet (tweet może należeć do kilku dokumentów)
+     * @param tweet projekcja przetworzonego tweeta
+     * @return klucze dokumentów; pusta kolekcja = tweet trafia do dokumentu zapasowego {@link #fallbackKey}
      */
-    Map<String, List<ProcessedTweet>> poolTweets(List<ProcessedTweet> processedTweets);
+    Collection<String> documentKeys(CorpusTweet tweet);
+
+    /**
+     * Klucz dokumentu zapasowego dla tweetów bez kluczy. Dokument zapasowy jest zachowywany,
+     * jeżeli zbierze co najmniej {@link #minFallbackGroupSize()} tweetów.
+     * @return klucz lub null, gdy tweety bez kluczy są pomijane
+     */
+    default String fallbackKey(CorpusTweet tweet) {
+        return null;
+    }
+
+    default int minFallbackGroupSize() {
+        return 1;
+    }
 
     /**
      * Zwraca nazwę strategii
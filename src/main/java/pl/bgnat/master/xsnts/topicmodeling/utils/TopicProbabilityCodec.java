@@ -0,0 +1,49 @@
+package pl.bgnat.master.xsnts.topicmodeling.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Kodowanie wektora prawdopodobieństw tematów jako float little-endian (4 bajty na temat, indeks = topicId).
+ * Stała szerokość pozwala odczytać prawdopodobieństwo jednego tematu bez dekodowania całego wektora.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TopicProbabilityCodec {
+
+    private static final VarHandle FLOAT_LE = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+
+    public static byte[] encode(double[] probabilities) {
+        byte[] encoded = new byte[probabilities.length * Float.BYTES];
+        for (int i = 0; i < probabilities.length; i++) {
+            FLOAT_LE.set(encoded, i * Float.BYTES, (float) probabilities[i]);
+        }
+        return encoded;
+    }
+
+    public static float[] decode(byte[] encoded) {
+        float[] probabilities = new float[size(encoded)];
+        for (int i = 0; i < probabilities.length; i++) {
+            probabilities[i] = (float) FLOAT_LE.get(encoded, i * Float.BYTES);
+        }
+        return probabilities;
+    }
+
+    /**
+     * Prawdopodobieństwo jednego tematu (0 dla tematu spoza wektora)
+     */
+    public static float get(byte[] encoded, int topicId) {
+        if (topicId < 0 || topicId >= size(encoded)) return 0f;
+        return (float) FLOAT_LE.get(encoded, topicId * Float.BYTES);
+    }
+
+    /**
+     * Liczba tematów w wektorze
+     */
+    public static int size(byte[] encoded) {
+        return encoded == null ? 0 : encoded.length / Float.BYTES;
+    }
+}
@@ -0,0 +1,165 @@
+package pl.bgnat.master.xsnts.topicmodeling.utils;
+
+import cc.mallet.topics.ParallelTopicModel;
+import cc.mallet.types.Alphabet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Top N słów każdego tematu wyznaczone jednym przebiegiem po licznikach słowo-temat modelu.
+ * <p>
+ * Zamiast {@link ParallelTopicModel#getSortedWords()} (pełny TreeSet całego słownika dla każdego tematu)
+ * każdy temat ma kopiec ograniczony do N pozycji trzymany na tablicach int, więc koszt to O(V·K·log N)
+ * bez tworzenia obiektów na parę słowo-temat. Słowa o tej samej liczbie wystąpień w temacie są porządkowane
+ * rosnąco po identyfikatorze w alfabecie. Dodatkowo liczona jest liczba słów z niezerowym licznikiem w temacie.
+ */
+public final class TopicTopWords {
+
+    private final int[][] wordIds;       // [temat][pozycja] - malejąco po liczbie wystąpień
+    private final int[][] weights;
+    private final int[] nonZeroWords;
+
+    private TopicTopWords(int[][] wordIds, int[][] weights, int[] nonZeroWords) {
+        this.wordIds = wordIds;
+        this.weights = weights;
+        this.nonZeroWords = nonZeroWords;
+    }
+
+    public static TopicTopWords extract(ParallelTopicModel model, int topN) {
+        return extract(model.typeTopicCounts, model.topicMask, model.topicBits, model.getNumTopics(), topN);
+    }
+
+    /**
+     * @param typeTopicCounts liczniki w formacie MALLET: dla każdego słowa wpisy (licznik << topicBits | temat)
+     *                        malejąco po liczniku, zakończone zerem lub końcem tablicy
+     */
+    static TopicTopWords extract(int[][] typeTopicCounts, int topicMask, int topicBits, int numTopics, int topN) {
+        int capacity = Math.max(0, topN);
+        int[][] heapWords = new int[numTopics][capacity];
+        int[][] heapWeights = new int[numTopics][capacity];
+        int[] heapSizes = new int[numTopics];
+        int[] nonZeroWords = new int[numTopics];
+
+        for (int type = 0; type < typeTopicCounts.length; type++) {
+            int[] topicCounts = typeTopicCounts[type];
+            for (int index = 0; index < topicCounts.length && topicCounts[index] > 0; index++) {
+                int topic = topicCounts[index] & topicMask;
+                int count = topicCounts[index] >> topicBits;
+                nonZeroWords[topic]++;
+                if (capacity == 0) continue;
+
+                int[] words = heapWords[topic];
+                int[] counts = heapWeights[topic];
+                if (heapSizes[topic] < capacity) {
+                    siftUp(words, counts, heapSizes[topic]++, type, count);
+                } else if (count > counts[0]) {
+                    // słowa przychodzą rosnąco po id, więc przy równym liczniku słowo w kopcu wygrywa
+                    siftDown(words, counts, heapSizes[topic], type, count);
+                }
+            }
+        }
+
+        int[][] wordIds = new int[numTopics][];
+        int[][] weights = new int[numTopics][];
+        for (int topic = 0; topic < numTopics; topic++) {
+            int size = heapSizes[topic];
+            int[] words = heapWords[topic];
+            int[] counts = heapWeights[topic];
+            wordIds[topic] = new int[size];
+            weights[topic] = new int[size];
+            // korzeń kopca to najsłabsze słowo - zdejmowane od końca wyniku
+            for (int last = size - 1; last >= 0; last--) {
+                wordIds[topic][last] = words[0];
+                weights[topic][last] = counts[0];
+                siftDown(words, counts, last, words[last], counts[last]);
+            }
+        }
+        return new TopicTopWords(wordIds, weights, nonZeroWords);
+    }
+
+    public int numTopics() {
+        return wordIds.length;
+    }
+
+    /**
+     * Identyfikatory co najwyżej {@code limit} najczęstszych słów tematu, malejąco po liczbie wystąpień
+     */
+    public int[] wordIds(int topicId, int limit) {
+        return Arrays.copyOf(wordIds[topicId], Math.min(limit, wordIds[topicId].length));
+    }
+
+    public List<int[]> wordIds(int limit) {
+        List<int[]> topics = new ArrayList<>(numTopics());
+        for (int topicId = 0; topicId < numTopics(); topicId++) {
+            topics.add(wordIds(topicId, limit));
+        }
+        return topics;
+    }
+
+    public List<List<String>> words(Alphabet alphabet, int limit) {
+        List<List<String>> topics = new ArrayList<>(numTopics());
+        for (int topicId = 0; topicId < numTopics(); topicId++) {
+            topics.add(Arrays.stream(wordIds(topicId, limit))
+                    .mapToObj(wordId -> (String) alphabet.lookupObject(wordId))
+                    .toList());
+        }
+        return topics;
+    }
+
+    /**
+     * Liczba wystąpień słowa z pozycji {@code rank} w temacie
+     */
+    public int weight(int topicId, int rank) {
+        return weights[topicId][rank];
+    }
+
+    /**
+     * Liczba słów z niezerowym licznikiem w temacie
+     */
+    public int nonZeroWords(int topicId) {
+        return nonZeroWords[topicId];
+    }
+
+    /**
+     * Słabsze słowo: mniej wystąpień, przy remisie większe id
+     */
+    private static boolean weaker(int wordA, int countA, int wordB, int countB) {
+        return countA < countB || (countA == countB && wordA > wordB);
+    }
+
+    private static void siftUp(int[] words, int[] counts, int position, int word, int count) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!weaker(word, count, words[parent], counts[parent])) break;
+            words[position] = words[parent];
+            counts[position] = counts[parent];
+            position = parent;
+        }
+        words[position] = word;
+        counts[position] = count;
+    }
+
+    /**
+     * Wstawia słowo w miejsce korzenia kopca o rozmiarze {@code size}
+     */
+    private static void siftDown(int[] words, int[] counts, int size, int word, int count) {
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) break;
+            if (child + 1 < size && weaker(words[child + 1], counts[child + 1], words[child], counts[child])) {
+                child++;
+            }
+            if (!weaker(words[child], counts[child], word, count)) break;
+            words[position] = words[child];
+            counts[position] = counts[child];
+            position = child;
+        }
+        if (size > 0) {
+            words[position] = word;
+            counts[position] = count;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package pl.bgnat.master.xsnts.normalization.service.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Testy równoważności FusedTextNormalizer z referencyjnym TextNormalizer.
+ * Korpus = tweety z plików fixture (przypadki brzegowe, typowe tweety, tweety z fixture detekcji języka)
+ * + deterministycznie generowane kombinacje przypadków brzegowych.
+ */
+@Slf4j
+class FusedTextNormalizerTest {
+
+    private static final String FIXTURE_FILE = "/normalization/tweets_fixture.txt";
+    private static final String LANGUAGE_FIXTURE_FILE = "/normalization/language_fixture.tsv";
+    private static final int GENERATED_CORPUS_SIZE = 50_000;
+    private static final String[] FRAGMENTS = {
+            "http://a.pl/x?1=2", "https://t.co/AbC", "www.onet.pl", "www.", "http://", "@user", "@User_12", "@", "@@a",
+            "@łukasz", "@abchttp://x.y", "12", "123", "1234", "12345", "123456789", "12ab", "ą12", "١٢", "１２３",
+            "#", "##", "###tag", "#tag", "##_x", "#!", "##@x", "a#b", "Zażółć", "GĘŚLĄ", "İstanbul", "ΣΟΦΟΣ", "𝕍𝕆𝕋𝔼",
+            "ﬁ", "①", "²", "½", " ", "\t", "\n", "\r\n", " ", "　", "​", "\u0085", ".", "!?", "—", "😀",
+            "👍🏽", "\uD800", "é", "1́", "́", "2025", "_", "Ⅻ", "ǅ", "ẞ", "1http://x", "5@a"
+    };
+
+    private final TextNormalizer regexNormalizer = new TextNormalizer();
+    private final FusedTextNormalizer fusedNormalizer = new FusedTextNormalizer();
+
+    @Test
+    void shouldProduceIdenticalOutputForFixtureTweets() throws IOException {
+        for (String tweet : loadFixtures()) {
+            assertThat(fusedNormalizer.normalize(tweet))
+                    .as("tweet: %s", tweet)
+                    .isEqualTo(regexNormalizer.normalize(tweet));
+        }
+    }
+
+    @Test
+    void shouldProduceIdenticalOutputForGeneratedCorpus() {
+        for (String text : generateCorpus(GENERATED_CORPUS_SIZE, 42L)) {
+            assertThat(fusedNormalizer.normalize(text))
+                    .as("tekst: %s", text)
+                    .isEqualTo(regexNormalizer.normalize(text));
+        }
+    }
+
+    @Test
+    void shouldNormalizeTypicalTweet() {
+        String normalized = fusedNormalizer.normalize(
+                "RT @Jan_Kowalski: Zażółć gęślą jaźń!!! https://t.co/abc ##Wybory2025 12 osób, rok 2025");
+
+        assertThat(normalized).isEqualTo("rt @anonymized zażółć gęślą jaźń #wybory2025 osób rok 2025");
+    }
+
+    @Test
+    void shouldRejectEmptyInputLikeRegexNormalizer() {
+        assertThatThrownBy(() -> fusedNormalizer.normalize(""))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> fusedNormalizer.normalize(null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Porównanie przepustowości obu silników. Uruchamiane ręcznie:
+     * {@code mvn test -Dtest=FusedTextNormalizerTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkThroughput() throws IOException {
+        List<String> corpus = new ArrayList<>(loadFixtures());
+        corpus.addAll(generateCorpus(20_000, 7L));
+
+        for (int round = 0; round < 5; round++) {
+            double regexPerSecond = measureThroughput(regexNormalizer, corpus);
+            double fusedPerSecond = measureThroughput(fusedNormalizer, corpus);
+            log.info("runda {}: REGEX {} tekstów/s, FUSED {} tekstów/s (x{})", round,
+                    String.format("%.0f", regexPerSecond), String.format("%.0f", fusedPerSecond),
+                    String.format("%.2f", fusedPerSecond / regexPerSecond));
+        }
+    }
+
+    private double measureThroughput(TextNormalizerEngine engine, List<String> corpus) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (String text : corpus) {
+            checksum += engine.normalize(text).length();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(checksum).isNotNegative();
+        return corpus.size() / (elapsed / 1_000_000_000.0);
+    }
+
+    private List<String> loadFixtures() throws IOException {
+        List<String> tweets = new ArrayList<>(readLines(FIXTURE_FILE).stream()
+                .map(line -> line.replace("\\t", "\t").replace("\\n", "\n"))
+                .toList());
+        // etykieta<TAB>treść - tylko treść
+        readLines(LANGUAGE_FIXTURE_FILE).stream()
+                .filter(line -> !line.startsWith("#"))
+                .map(line -> line.substring(line.indexOf('\t') + 1))
+                .forEach(tweets::add);
+        return tweets;
+    }
+
+    private List<String> readLines(String file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(getClass().getResourceAsStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .filter(line -> !line.isBlank())
+                    .toList();
+        }
+    }
+
+    private List<String> generateCorpus(int size, long seed) {
+        Random random = new Random(seed);
+        List<String> corpus = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            StringBuilder text = new StringBuilder();
+            int fragments = 1 + random.nextInt(12);
+            for (int j = 0; j < fragments; j++) {
+                text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+                if (random.nextInt(3) == 0) {
+                    text.append(' ');
+                }
+            }
+            corpus.add(text.toString());
+        }
+        return corpus;
+    }
+}
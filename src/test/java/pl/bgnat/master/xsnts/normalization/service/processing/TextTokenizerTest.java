@@ -0,0 +1,106 @@
+package pl.bgnat.master.xsnts.normalization.service.processing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import pl.bgnat.master.xsnts.normalization.service.processing.TextTokenizer.TokenizedText;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Testy równoważności jednoprzebiegowego tokenizeAndLemmatize z tokenize + lemmatizeTokens.
+ */
+@Slf4j
+class TextTokenizerTest {
+
+    private static final String FIXTURE_FILE = "/normalization/tweets_fixture.txt";
+
+    private final TextTokenizer tokenizer = new TextTokenizer(new LemmaCache(10_000));
+    private final FusedTextNormalizer normalizer = new FusedTextNormalizer();
+
+    @Test
+    void shouldMatchTwoPassTokenizationForFixtureTweets() throws IOException {
+        for (String text : loadNormalizedFixture()) {
+            assertEquivalent(text);
+        }
+    }
+
+    @Test
+    void shouldMatchTwoPassTokenizationForEdgeCases() {
+        List<String> texts = List.of(
+                "", " ", "\t\n", "  i   w  z ", "Się NIE Było", "rt @anonymized #wybory2025 osób",
+                "a\u000Bb\fc\rd", "gęślą jaźń", "ΣΟΦΟΣ İstanbul ǅ 𐐀", "😀 👍🏽 tak");
+        for (String text : texts) {
+            assertEquivalent(text);
+        }
+    }
+
+    @Test
+    void shouldSkipStopWordsAndKeepListsAligned() {
+        TokenizedText result = tokenizer.tokenizeAndLemmatize("się kota nie ma w domu");
+
+        assertThat(result.tokens()).doesNotContain("się", "nie", "w");
+        assertThat(result.lemmas()).hasSameSizeAs(result.tokens());
+    }
+
+    /**
+     * Porównanie przepustowości obu ścieżek. Uruchamiane ręcznie:
+     * {@code mvn test -Dtest=TextTokenizerTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkThroughput() throws IOException {
+        List<String> corpus = new ArrayList<>();
+        List<String> fixture = loadNormalizedFixture();
+        while (corpus.size() < 50_000) {
+            corpus.addAll(fixture);
+        }
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            long checksum = 0;
+            for (String text : corpus) {
+                checksum += tokenizer.lemmatizeTokens(tokenizer.tokenize(text)).size();
+            }
+            double twoPassPerSecond = corpus.size() / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+            start = System.nanoTime();
+            for (String text : corpus) {
+                checksum -= tokenizer.tokenizeAndLemmatize(text).lemmas().size();
+            }
+            double fusedPerSecond = corpus.size() / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+            assertThat(checksum).isZero();
+            log.info("runda {}: tokenize+lemmatize {} tekstów/s, jednoprzebiegowo {} tekstów/s (x{})", round,
+                    String.format("%.0f", twoPassPerSecond), String.format("%.0f", fusedPerSecond),
+                    String.format("%.2f", fusedPerSecond / twoPassPerSecond));
+        }
+    }
+
+    private void assertEquivalent(String text) {
+        List<String> tokens = tokenizer.tokenize(text);
+        TokenizedText result = tokenizer.tokenizeAndLemmatize(text);
+
+        assertThat(result.tokens()).as("tekst: %s", text).isEqualTo(tokens);
+        assertThat(result.lemmas()).as("tekst: %s", text).isEqualTo(tokenizer.lemmatizeTokens(tokens));
+    }
+
+    private List<String> loadNormalizedFixture() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(getClass().getResourceAsStream(FIXTURE_FILE)), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .filter(line -> !line.isBlank())
+                    .map(line -> line.replace("\\t", "\t").replace("\\n", "\n"))
+                    .map(normalizer::normalize)
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package pl.bgnat.master.xsnts.normalization.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pojemności segmentów sumują się dokładnie do limitu, a w obrębie segmentu usuwany jest najdawniej używany wpis.
+ */
+class ConcurrentLruCacheTest {
+
+    @Test
+    void shouldHoldExactlyMaxSizeEntriesWhenFull() {
+        for (int maxSize : new int[]{1, 3, 10, 63, 64, 65, 100, 1000, 100_001}) {
+            ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(maxSize);
+            int puts = maxSize * 20;
+            // kolejne liczby rozkładają się równo na segmenty, więc każdy segment się zapełnia
+            for (int key = 0; key < puts; key++) {
+                cache.put(key, key);
+            }
+
+            ConcurrentLruCache.Stats stats = cache.getStats();
+            assertThat(stats.size()).as("rozmiar dla limitu %d", maxSize).isEqualTo(maxSize);
+            assertThat(stats.evictions()).as("usunięcia dla limitu %d", maxSize).isEqualTo(puts - maxSize);
+            assertThat(cache.getMaxSize()).isEqualTo(maxSize);
+        }
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntryWithinSegment() {
+        // 64 segmenty po 2 wpisy; klucze 0, 64, 128 trafiają do tego samego segmentu
+        ConcurrentLruCache<Integer, String> cache = new ConcurrentLruCache<>(128);
+        cache.put(0, "a");
+        cache.put(64, "b");
+        assertThat(cache.get(0)).isEqualTo("a");    // 64 staje się najdawniej używanym
+
+        cache.put(128, "c");
+
+        assertThat(cache.get(64)).isNull();
+        assertThat(cache.get(0)).isEqualTo("a");
+        assertThat(cache.get(128)).isEqualTo("c");
+        assertThat(cache.getStats().evictions()).isEqualTo(1);
+        assertThat(cache.getStats().size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldStoreNothingWhenDisabled() {
+        ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(0);
+        cache.put(1, 1);
+
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.getStats().size()).isEqualTo(0);
+        assertThat(cache.getStats().misses()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,100 @@
+package pl.bgnat.master.xsnts.normalization.utils;
+
+import com.github.pemistahl.lingua.api.Language;
+import com.github.pemistahl.lingua.api.LanguageDetector;
+import com.github.pemistahl.lingua.api.LanguageDetectorBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import pl.bgnat.master.xsnts.normalization.utils.LanguagePreClassifier.Verdict;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Zgodność szybkiej ścieżki detekcji języka z etykietami (i opcjonalnie z Lingua) na zbiorze fixture.
+ */
+@Slf4j
+class LanguagePreClassifierTest {
+
+    private static final String FIXTURE_FILE = "/normalization/language_fixture.tsv";
+
+    @Test
+    void shouldAgreeWithLabelsOnEveryDecidedTweet() throws IOException {
+        List<LabelledTweet> fixture = loadFixture();
+        int decided = 0;
+
+        for (LabelledTweet tweet : fixture) {
+            Verdict verdict = LanguagePreClassifier.classify(tweet.text());
+            if (verdict == Verdict.UNKNOWN) continue;
+
+            decided++;
+            assertThat(verdict == Verdict.POLISH)
+                    .as("tweet: %s", tweet.text())
+                    .isEqualTo(tweet.polish());
+        }
+
+        // szybka ścieżka ma rozstrzygać większość wyraźnych przypadków
+        assertThat(decided).isGreaterThan(fixture.size() / 2);
+    }
+
+    @Test
+    void shouldLeaveAmbiguousTextsToFullDetection() {
+        assertThat(LanguagePreClassifier.classify("Lewandowski Barcelona 2:1")).isEqualTo(Verdict.UNKNOWN);
+        assertThat(LanguagePreClassifier.classify("https://t.co/abc @user #tag")).isEqualTo(Verdict.UNKNOWN);
+    }
+
+    @Test
+    void shouldRejectNonLatinScripts() {
+        assertThat(LanguagePreClassifier.classify("Сегодня в Москве прошла акция")).isEqualTo(Verdict.NOT_POLISH);
+    }
+
+    /**
+     * Zgodność z Lingua (ładuje modele językowe). Uruchamiane ręcznie:
+     * {@code mvn test -Dtest=LanguagePreClassifierTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void reportAgreementWithLingua() throws IOException {
+        LanguageDetector detector = LanguageDetectorBuilder.fromLanguages(
+                Language.POLISH, Language.ENGLISH, Language.GERMAN, Language.FRENCH,
+                Language.SPANISH, Language.ITALIAN, Language.RUSSIAN, Language.UKRAINIAN
+        ).build();
+
+        List<LabelledTweet> fixture = loadFixture();
+        int decided = 0;
+        int agreed = 0;
+        for (LabelledTweet tweet : fixture) {
+            Verdict verdict = LanguagePreClassifier.classify(tweet.text());
+            if (verdict == Verdict.UNKNOWN) continue;
+
+            decided++;
+            if ((verdict == Verdict.POLISH) == (detector.detectLanguageOf(tweet.text()) == Language.POLISH)) {
+                agreed++;
+            }
+        }
+
+        log.info("szybka ścieżka: {}/{} tweetów, zgodność z Lingua {}/{}",
+                decided, fixture.size(), agreed, decided);
+        assertThat(agreed).isEqualTo(decided);
+    }
+
+    private List<LabelledTweet> loadFixture() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(getClass().getResourceAsStream(FIXTURE_FILE)), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                    .map(line -> line.split("\t", 2))
+                    .map(parts -> new LabelledTweet(parts[0].equals("pl"), parts[1]))
+                    .toList();
+        }
+    }
+
+    private record LabelledTweet(boolean polish, String text) {}
+}
@@ -0,0 +1,49 @@
+package pl.bgnat.master.xsnts.normalization.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Kodowanie varint na granicach liczby bajtów (7, 14 bitów i maksymalny int).
+ */
+class VarIntCodecTest {
+
+    @Test
+    void shouldRoundTripValuesAtByteBoundaries() {
+        int[] values = {0, 127, 128, 16383, 16384, Integer.MAX_VALUE};
+
+        byte[] encoded = VarIntCodec.encode(values);
+
+        // 1 + 1 + 2 + 2 + 3 + 5 bajtów
+        assertThat(encoded).hasSize(14);
+        assertThat(VarIntCodec.count(encoded)).isEqualTo(values.length);
+        assertThat(VarIntCodec.decode(encoded)).containsExactly(values);
+    }
+
+    @Test
+    void shouldEncodeSingleValuesWithExpectedLength() {
+        assertThat(VarIntCodec.encode(new int[]{0})).containsExactly(0x00);
+        assertThat(VarIntCodec.encode(new int[]{127})).containsExactly(0x7F);
+        assertThat(VarIntCodec.encode(new int[]{128})).containsExactly(0x80, 0x01);
+        assertThat(VarIntCodec.encode(new int[]{16383})).containsExactly(0xFF, 0x7F);
+        assertThat(VarIntCodec.encode(new int[]{16384})).containsExactly(0x80, 0x80, 0x01);
+        assertThat(VarIntCodec.encode(new int[]{Integer.MAX_VALUE})).containsExactly(0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+    }
+
+    @Test
+    void shouldHandleEmptyInput() {
+        byte[] encoded = VarIntCodec.encode(new int[0]);
+
+        assertThat(encoded).isEmpty();
+        assertThat(VarIntCodec.count(encoded)).isEqualTo(0);
+        assertThat(VarIntCodec.decode(encoded)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectNegativeValues() {
+        assertThatThrownBy(() -> VarIntCodec.encode(new int[]{1, -1}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,101 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Liczniki dokumentów z indeksu odwróconego porównane z naiwnym przeglądem dokumentów
+ * (poprzednia implementacja buildStats: zbiór słów każdego dokumentu).
+ */
+class CoherenceIndexTest {
+
+    @Test
+    void shouldMatchNaiveScanOnSmallCorpusWithDuplicateTokens() {
+        List<String> documents = List.of(
+                "wybory wybory sejm",
+                "Sejm  ustawa\tustawa ustawa",
+                "prezydent weto ustawa",
+                " wybory prezydent prezydent ",
+                "pogoda");
+
+        CoherenceIndex index = CoherenceIndex.fromDocuments(documents);
+
+        assertMatchesNaiveScan(index, documents, List.of("wybory", "sejm", "ustawa", "prezydent", "weto", "pogoda", "brak"));
+        assertThat(index.count("ustawa")).isEqualTo(2);
+        assertThat(index.coCount("sejm", "ustawa")).isEqualTo(1);
+        assertThat(index.coCount("ustawa", "ustawa")).isEqualTo(0);
+    }
+
+    @Test
+    void shouldMatchNaiveScanOnMergeAndBitSetPaths() {
+        Random random = new Random(13);
+        int documentCount = 1280;           // próg bitmapy: 1280 / 64 = 20 dokumentów
+        List<String> frequent = new ArrayList<>();
+        List<String> rare = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            frequent.add("czeste" + i);
+            rare.add("rzadkie" + i);
+        }
+
+        List<StringBuilder> texts = new ArrayList<>(documentCount);
+        for (int d = 0; d < documentCount; d++) {
+            StringBuilder text = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int t = 0; t < length; t++) {
+                String word = frequent.get(random.nextInt(frequent.size()));
+                text.append(word).append(' ');
+                if (random.nextInt(5) == 0) {
+                    text.append(word).append(' ');     // powtórzenie w dokumencie
+                }
+            }
+            texts.add(text);
+        }
+        // rzadkie słowa w 1-15 losowych dokumentach (poniżej progu bitmapy), część wstawień trafia w ten sam dokument
+        for (int i = 0; i < rare.size(); i++) {
+            for (int n = 0; n < 1 + i % 15; n++) {
+                texts.get(random.nextInt(documentCount)).append(rare.get(i)).append(' ');
+            }
+        }
+        List<String> documents = texts.stream().map(StringBuilder::toString).toList();
+        List<String> vocabulary = new ArrayList<>(frequent);
+        vocabulary.addAll(rare);
+
+        CoherenceIndex index = CoherenceIndex.fromDocuments(documents);
+        int bitsetThreshold = documentCount / 64;
+
+        // obie ścieżki przecięcia muszą być użyte: pary rzadkich słów (merge) i pary z częstym słowem (bitmapa)
+        assertThat(vocabulary.stream().filter(word -> index.count(word) >= bitsetThreshold).count()).isGreaterThan(5);
+        assertThat(vocabulary.stream().filter(word -> index.count(word) > 0 && index.count(word) < bitsetThreshold).count())
+                .isGreaterThan(5);
+        assertMatchesNaiveScan(index, documents, vocabulary);
+    }
+
+    private static void assertMatchesNaiveScan(CoherenceIndex index, List<String> documents, List<String> words) {
+        List<Set<String>> documentWords = documents.stream()
+                .map(doc -> Arrays.stream(doc.toLowerCase().split("\\s+"))
+                        .filter(word -> !word.isEmpty())
+                        .collect(Collectors.toSet()))
+                .toList();
+
+        assertThat(index.getDocumentCount()).isEqualTo(documents.size());
+        for (String w1 : words) {
+            long count = documentWords.stream().filter(doc -> doc.contains(w1)).count();
+            assertThat(index.count(w1)).as("count(%s)", w1).isEqualTo((int) count);
+
+            for (String w2 : words) {
+                long coCount = w1.equals(w2) ? 0 : documentWords.stream()
+                        .filter(doc -> doc.contains(w1) && doc.contains(w2))
+                        .count();
+                assertThat(index.coCount(w1, w2)).as("coCount(%s, %s)", w1, w2).isEqualTo((int) coCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Liczniki okien porównane z naiwnym zliczaniem zbioru słów w każdym położeniu okna.
+ * Dokument krótszy niż okno jest jednym oknem, pusty dokument nie daje żadnego.
+ */
+class SlidingWindowCoherenceTest {
+
+    private static final double TOLERANCE = 1e-9;
+    private static final double EPSILON = 1e-12;    // jak w SlidingWindowCoherence
+
+    @Test
+    void shouldMatchNaiveCountOnShortDocuments() {
+        int[][] documents = {
+                {0, 1, 2, 0, 3, 1, 4, 4, 2, 5},
+                {3, 3, 3, 3, 0, 1},
+                {2, 5},                         // krótszy niż okno
+                {},
+                {1, 4, 0, 2, 9, 9},             // dwa ostatnie identyfikatory poza długością dokumentu
+        };
+        int[] lengths = {10, 6, 2, 0, 4};
+        List<int[]> topics = List.of(new int[]{0, 1, 2}, new int[]{3, 4, 5}, new int[]{1, 5});
+
+        assertMatchesNaiveCount(documents, lengths, 10, topics, 3);
+        assertMatchesNaiveCount(documents, lengths, 10, topics, 4);
+    }
+
+    @Test
+    void shouldCountDocumentShorterThanWindowAsSingleWindow() {
+        int[][] documents = {{0, 1, 2}};
+        List<int[]> topics = List.of(new int[]{0, 1, 2});
+
+        SlidingWindowCoherence.Result result = SlidingWindowCoherence.calculate(documents, new int[]{3}, 3, topics, 10);
+
+        assertThat(result.windows()).isEqualTo(1);
+        assertMatchesNaiveCount(documents, new int[]{3}, 3, topics, 10);
+    }
+
+    @Test
+    void shouldMatchNaiveCountOnRandomCorpus() {
+        Random random = new Random(7);
+        int vocabularySize = 30;
+        int[][] documents = new int[2000][];
+        int[] lengths = new int[documents.length];
+        for (int d = 0; d < documents.length; d++) {
+            lengths[d] = random.nextInt(25);
+            documents[d] = random.ints(lengths[d], 0, vocabularySize).toArray();
+        }
+        // słowa spoza top słów przerywają serie okien o tym samym zbiorze
+        List<int[]> topics = List.of(new int[]{0, 1, 2, 3, 4}, new int[]{5, 6, 7, 8, 9}, new int[]{0, 5, 10, 15});
+
+        assertMatchesNaiveCount(documents, lengths, vocabularySize, topics, 5);
+        assertMatchesNaiveCount(documents, lengths, vocabularySize, topics, 12);
+    }
+
+    private static void assertMatchesNaiveCount(int[][] documents, int[] lengths, int vocabularySize,
+                                                List<int[]> topics, int windowSize) {
+        long[] wordWindows = new long[vocabularySize];
+        long[][] pairWindows = new long[vocabularySize][vocabularySize];
+        long windows = 0;
+        for (int d = 0; d < documents.length; d++) {
+            int length = lengths[d];
+            if (length == 0) continue;
+
+            int lastStart = Math.max(0, length - windowSize);
+            for (int start = 0; start <= lastStart; start++) {
+                Set<Integer> window = new HashSet<>();
+                for (int i = start; i < Math.min(length, start + windowSize); i++) {
+                    window.add(documents[d][i]);
+                }
+                windows++;
+                for (int a : window) {
+                    wordWindows[a]++;
+                    for (int b : window) {
+                        pairWindows[a][b]++;
+                    }
+                }
+            }
+        }
+
+        SlidingWindowCoherence.Result result = SlidingWindowCoherence.calculate(
+                documents, lengths, vocabularySize, topics, windowSize);
+
+        assertThat(result.windows()).as("okno %d", windowSize).isEqualTo(windows);
+        for (int topic = 0; topic < topics.size(); topic++) {
+            double[][] npmi = npmiMatrix(topics.get(topic), wordWindows, pairWindows, windows);
+            assertThat(result.npmi()[topic]).as("NPMI tematu %d, okno %d", topic, windowSize)
+                    .isCloseTo(meanPairwise(npmi), within(TOLERANCE));
+            assertThat(result.cv()[topic]).as("C_V tematu %d, okno %d", topic, windowSize)
+                    .isCloseTo(cv(npmi), within(TOLERANCE));
+        }
+    }
+
+    private static double[][] npmiMatrix(int[] words, long[] wordWindows, long[][] pairWindows, long windows) {
+        double[][] matrix = new double[words.length][words.length];
+        for (int i = 0; i < words.length; i++) {
+            for (int j = 0; j < words.length; j++) {
+                double pA = (double) wordWindows[words[i]] / windows;
+                double pB = (double) wordWindows[words[j]] / windows;
+                if (pA == 0 || pB == 0) continue;
+
+                double pAB = (double) pairWindows[words[i]][words[j]] / windows;
+                matrix[i][j] = Math.log((pAB + EPSILON) / (pA * pB)) / -Math.log(pAB + EPSILON);
+            }
+        }
+        return matrix;
+    }
+
+    private static double meanPairwise(double[][] npmi) {
+        double sum = 0;
+        int pairs = 0;
+        for (int i = 0; i < npmi.length; i++) {
+            for (int j = i + 1; j < npmi.length; j++) {
+                sum += npmi[i][j];
+                pairs++;
+            }
+        }
+        return sum / pairs;
+    }
+
+    private static double cv(double[][] npmi) {
+        int n = npmi.length;
+        double[] topicVector = new double[n];
+        for (double[] row : npmi) {
+            for (int j = 0; j < n; j++) {
+                topicVector[j] += row[j];
+            }
+        }
+
+        double sum = 0;
+        for (double[] row : npmi) {
+            double dot = 0;
+            double normRow = 0;
+            double normTopic = 0;
+            for (int j = 0; j < n; j++) {
+                dot += row[j] * topicVector[j];
+                normRow += row[j] * row[j];
+                normTopic += topicVector[j] * topicVector[j];
+            }
+            sum += normRow == 0 || normTopic == 0 ? 0.0 : dot / Math.sqrt(normRow * normTopic);
+        }
+        return sum / n;
+    }
+}
@@ -0,0 +1,135 @@
+package pl.bgnat.master.xsnts.topicmodeling.service;
+
+import cc.mallet.types.Alphabet;
+import cc.mallet.types.FeatureSequence;
+import cc.mallet.types.Instance;
+import cc.mallet.types.InstanceList;
+import org.junit.jupiter.api.Test;
+import pl.bgnat.master.xsnts.topicmodeling.dto.CorpusSnapshot;
+import pl.bgnat.master.xsnts.topicmodeling.dto.Document;
+import pl.bgnat.master.xsnts.topicmodeling.dto.VocabularyPruningStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Przycinanie słownika na ręcznie zbudowanym korpusie: progi df, limit rozmiaru, pomijanie pustych dokumentów
+ * i pozostawienie korpusu, gdy przycięcie usunęłoby cały słownik.
+ */
+class VocabularyPrunerTest {
+
+    private final VocabularyPruner pruner = new VocabularyPruner();
+
+    @Test
+    void shouldPruneRareAndCommonWords() {
+        CorpusSnapshot corpus = corpus(
+                "ala ma kota ala",
+                "ala ma psa",
+                "ala ma rybki",
+                "ala kot");
+
+        // ala w 4/4 dokumentach > floor(0.75 * 4); ma w 3 - zostaje; reszta w 1 dokumencie
+        VocabularyPruner.Result result = pruner.prune(corpus, 2, 0.75, 0);
+
+        VocabularyPruningStats stats = result.stats();
+        assertThat(stats.vocabularyBefore()).isEqualTo(6);
+        assertThat(stats.vocabularyAfter()).isEqualTo(1);
+        assertThat(stats.prunedRare()).isEqualTo(4);
+        assertThat(stats.prunedCommon()).isEqualTo(1);
+        assertThat(stats.prunedLimit()).isEqualTo(0);
+        assertThat(stats.tokensBefore()).isEqualTo(12);
+        assertThat(stats.tokensAfter()).isEqualTo(3);
+        // "ala kot" nie ma już żadnego tokenu
+        assertThat(words(result.corpus())).containsExactly(List.of("ma"), List.of("ma"), List.of("ma"));
+        assertThat(result.corpus().instances().getDataAlphabet().size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepMostFrequentWordsWithinSizeLimitAndBreakTiesByLowerId() {
+        CorpusSnapshot corpus = corpus(
+                "zupa chleb mleko",
+                "zupa chleb mleko",
+                "zupa ser");
+
+        // zupa df=3, chleb/mleko df=2 - remis rozstrzyga mniejsze id (chleb pojawił się wcześniej)
+        VocabularyPruner.Result result = pruner.prune(corpus, 1, 1.0, 2);
+
+        assertThat(result.stats().prunedLimit()).isEqualTo(2);
+        assertThat(result.stats().vocabularyAfter()).isEqualTo(2);
+        // nowy alfabet zachowuje kolejność dotychczasowych id
+        assertThat(words(result.corpus())).containsExactly(
+                List.of("zupa", "chleb"), List.of("zupa", "chleb"), List.of("zupa"));
+    }
+
+    @Test
+    void shouldDropDocumentsWithoutRemainingTokens() {
+        CorpusSnapshot corpus = corpus(
+                "wybory sejm",
+                "hapax",
+                "wybory sejm prezydent");
+
+        VocabularyPruner.Result result = pruner.prune(corpus, 2, 1.0, 0);
+
+        assertThat(result.stats().documentsBefore()).isEqualTo(3);
+        assertThat(result.stats().documentsAfter()).isEqualTo(2);
+        assertThat(result.corpus().documents().stream().map(Document::id).toList()).containsExactly("d0", "d2");
+        assertThat(instanceNames(result.corpus())).containsExactly("d0", "d2");
+        assertThat(words(result.corpus())).containsExactly(List.of("wybory", "sejm"), List.of("wybory", "sejm"));
+    }
+
+    @Test
+    void shouldLeaveCorpusUnchangedWhenPruningWouldRemoveEveryWord() {
+        CorpusSnapshot corpus = corpus("jeden dwa", "trzy cztery");
+
+        VocabularyPruner.Result result = pruner.prune(corpus, 2, 1.0, 0);
+
+        assertThat(result.corpus()).isSameAs(corpus);
+        assertThat(result.stats().vocabularyAfter()).isEqualTo(4);
+        assertThat(result.stats().prunedRare()).isEqualTo(0);
+        assertThat(result.stats().tokensAfter()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldLeaveCorpusUnchangedWithoutThresholds() {
+        CorpusSnapshot corpus = corpus("ala ma kota", "ala ma psa");
+
+        VocabularyPruner.Result result = pruner.prune(corpus, 1, 1.0, 0);
+
+        assertThat(result.corpus()).isSameAs(corpus);
+        assertThat(result.stats().estimatedSamplingSpeedup()).isEqualTo(1.0);
+    }
+
+    private static CorpusSnapshot corpus(String... texts) {
+        Alphabet alphabet = new Alphabet();
+        InstanceList instances = new InstanceList(alphabet, null);
+        List<Document> documents = new ArrayList<>();
+        for (int d = 0; d < texts.length; d++) {
+            String id = "d" + d;
+            int[] features = Arrays.stream(texts[d].split(" "))
+                    .mapToInt(word -> alphabet.lookupIndex(word, true))
+                    .toArray();
+            instances.add(new Instance(new FeatureSequence(alphabet, features), null, id, null));
+            documents.add(new Document(id, texts[d], List.of((long) d), 1));
+        }
+        return new CorpusSnapshot(documents, instances, false);
+    }
+
+    private static List<List<String>> words(CorpusSnapshot corpus) {
+        Alphabet alphabet = corpus.instances().getDataAlphabet();
+        List<List<String>> documents = new ArrayList<>();
+        for (Instance instance : corpus.instances()) {
+            FeatureSequence tokens = (FeatureSequence) instance.getData();
+            documents.add(Arrays.stream(tokens.getFeatures(), 0, tokens.getLength())
+                    .mapToObj(id -> (String) alphabet.lookupObject(id))
+                    .toList());
+        }
+        return documents;
+    }
+
+    private static List<Object> instanceNames(CorpusSnapshot corpus) {
+        return corpus.instances().stream().map(Instance::getName).toList();
+    }
+}
@@ -0,0 +1,48 @@
+package pl.bgnat.master.xsnts.topicmodeling.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Wektor prawdopodobieństw tematów jako float little-endian: odczyt całości i pojedynczego tematu.
+ */
+class TopicProbabilityCodecTest {
+
+    @Test
+    void shouldRoundTripProbabilitiesAsFloats() {
+        double[] probabilities = {0.5, 0.25, 0.125, 0.0, 0.1};
+
+        byte[] encoded = TopicProbabilityCodec.encode(probabilities);
+
+        assertThat(encoded).hasSize(probabilities.length * Float.BYTES);
+        assertThat(TopicProbabilityCodec.size(encoded)).isEqualTo(probabilities.length);
+        assertThat(TopicProbabilityCodec.decode(encoded)).containsExactly(0.5f, 0.25f, 0.125f, 0.0f, 0.1f);
+    }
+
+    @Test
+    void shouldWriteLittleEndian() {
+        // 1.0f = 0x3F800000
+        assertThat(TopicProbabilityCodec.encode(new double[]{1.0})).containsExactly(0x00, 0x00, 0x80, 0x3F);
+    }
+
+    @Test
+    void shouldReadSingleTopicAndZeroOutsideVector() {
+        byte[] encoded = TopicProbabilityCodec.encode(new double[]{0.7, 0.2, 0.1});
+
+        assertThat(TopicProbabilityCodec.get(encoded, 0)).isEqualTo(0.7f);
+        assertThat(TopicProbabilityCodec.get(encoded, 2)).isEqualTo(0.1f);
+        assertThat(TopicProbabilityCodec.get(encoded, 3)).isEqualTo(0f);
+        assertThat(TopicProbabilityCodec.get(encoded, -1)).isEqualTo(0f);
+        assertThat(TopicProbabilityCodec.get(null, 0)).isEqualTo(0f);
+    }
+
+    @Test
+    void shouldHandleEmptyAndMissingVectors() {
+        byte[] encoded = TopicProbabilityCodec.encode(new double[0]);
+
+        assertThat(encoded).isEmpty();
+        assertThat(TopicProbabilityCodec.decode(encoded)).isEmpty();
+        assertThat(TopicProbabilityCodec.size(null)).isEqualTo(0);
+    }
+}
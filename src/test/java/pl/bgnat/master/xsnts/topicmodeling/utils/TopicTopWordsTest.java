@@ -0,0 +1,119 @@
+package pl.bgnat.master.xsnts.topicmodeling.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Top N słów z kopców porównane ze zwykłym sortowaniem liczników słowo-temat zbudowanych ręcznie w formacie MALLET.
+ */
+class TopicTopWordsTest {
+
+    private static final int NUM_TOPICS = 3;
+    private static final int TOPIC_MASK = 3;    // MALLET: dla K niebędącego potęgą 2 maska to 2^ceil(log2 K) - 1
+    private static final int TOPIC_BITS = 2;
+
+    @Test
+    void shouldMatchPlainSortOnHandBuiltCounts() {
+        int[][] counts = {
+                // temat:  0  1  2
+                {5, 0, 1},
+                {3, 3, 0},
+                {5, 0, 2},      // remis ze słowem 0 w temacie 0 - wygrywa mniejsze id
+                {0, 7, 0},
+                {1, 3, 2},
+                {0, 0, 0},      // słowo bez wystąpień
+        };
+
+        assertMatchesPlainSort(counts, 2);
+        assertMatchesPlainSort(counts, 4);
+
+        TopicTopWords top = extract(counts, 2);
+        assertThat(top.wordIds(0, 2)).containsExactly(0, 2);
+        assertThat(top.wordIds(1, 2)).containsExactly(3, 1);
+        assertThat(top.wordIds(2, 2)).containsExactly(2, 4);
+        assertThat(top.weight(1, 0)).isEqualTo(7);
+    }
+
+    @Test
+    void shouldReturnAllNonZeroWordsWhenTopNExceedsVocabulary() {
+        int[][] counts = {{2, 0, 0}, {4, 1, 0}, {2, 0, 0}};
+
+        TopicTopWords top = extract(counts, 10);
+
+        assertThat(top.wordIds(0, 10)).containsExactly(1, 0, 2);
+        assertThat(top.wordIds(1, 10)).containsExactly(1);
+        assertThat(top.wordIds(2, 10)).isEmpty();
+        assertThat(top.nonZeroWords(0)).isEqualTo(3);
+        assertMatchesPlainSort(counts, 10);
+    }
+
+    @Test
+    void shouldMatchPlainSortOnRandomCountsWithTies() {
+        Random random = new Random(42);
+        int[][] counts = new int[200][NUM_TOPICS];
+        for (int[] wordCounts : counts) {
+            for (int topic = 0; topic < NUM_TOPICS; topic++) {
+                // mały zakres wartości wymusza wiele remisów
+                wordCounts[topic] = random.nextInt(3) == 0 ? 0 : random.nextInt(8);
+            }
+        }
+
+        for (int topN : new int[]{0, 1, 5, 20, 250}) {
+            assertMatchesPlainSort(counts, topN);
+        }
+    }
+
+    private static void assertMatchesPlainSort(int[][] counts, int topN) {
+        TopicTopWords top = extract(counts, topN);
+
+        assertThat(top.numTopics()).isEqualTo(NUM_TOPICS);
+        for (int topic = 0; topic < NUM_TOPICS; topic++) {
+            int t = topic;
+            List<Integer> sorted = IntStream.range(0, counts.length)
+                    .filter(word -> counts[word][t] > 0)
+                    .boxed()
+                    .sorted(Comparator.<Integer>comparingInt(word -> -counts[word][t]).thenComparingInt(word -> word))
+                    .toList();
+            List<Integer> expected = sorted.subList(0, Math.min(topN, sorted.size()));
+
+            assertThat(top.wordIds(topic, Integer.MAX_VALUE))
+                    .as("temat %d, top %d", topic, topN)
+                    .containsExactlyElementsOf(expected);
+            for (int rank = 0; rank < expected.size(); rank++) {
+                assertThat(top.weight(topic, rank)).isEqualTo(counts[expected.get(rank)][topic]);
+            }
+            assertThat(top.nonZeroWords(topic)).isEqualTo(sorted.size());
+        }
+    }
+
+    private static TopicTopWords extract(int[][] counts, int topN) {
+        return TopicTopWords.extract(typeTopicCounts(counts), TOPIC_MASK, TOPIC_BITS, NUM_TOPICS, topN);
+    }
+
+    /**
+     * Format MALLET: dla każdego słowa wpisy (licznik << topicBits | temat) malejąco, puste miejsca na końcu to zera
+     */
+    private static int[][] typeTopicCounts(int[][] counts) {
+        int[][] typeTopicCounts = new int[counts.length][NUM_TOPICS];
+        for (int word = 0; word < counts.length; word++) {
+            List<Integer> entries = new ArrayList<>();
+            for (int topic = 0; topic < NUM_TOPICS; topic++) {
+                if (counts[word][topic] > 0) {
+                    entries.add(counts[word][topic] << TOPIC_BITS | topic);
+                }
+            }
+            entries.sort(Comparator.reverseOrder());
+            for (int index = 0; index < entries.size(); index++) {
+                typeTopicCounts[word][index] = entries.get(index);
+            }
+        }
+        return typeTopicCounts;
+    }
+}